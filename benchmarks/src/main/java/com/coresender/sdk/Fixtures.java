@@ -0,0 +1,69 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.Email.Address;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Realistic emails and API responses shared by the benchmarks.
+ */
+final class Fixtures {
+
+    static final String HTML = "<html><head><style>body{font-family:Arial,sans-serif;color:#333}</style></head><body>"
+            + "<h1>Spring newsletter</h1>"
+            + "<p>Dear customer, here is what's new this month. We've shipped faster delivery, a redesigned dashboard "
+            + "and a brand new mobile app. Read on for details &amp; offers tailored for you.</p>".repeat(8)
+            + "<a href=\"https://example.com/offers?utm_source=newsletter&utm_medium=email\">See offers</a>"
+            + "</body></html>";
+
+    static final String TEXT = "Dear customer, here is what's new this month. We've shipped faster delivery, "
+            + "a redesigned dashboard and a brand new mobile app.\n".repeat(8);
+
+    private Fixtures() {
+    }
+
+    static Email email(int index) {
+        return Email.builder()
+                    .from(Address.of("newsletter@example.com", "Example Newsletter"))
+                    .to(List.of(Address.of("customer" + index + "@example.com", "Customer " + index)))
+                    .replyTo(List.of(Address.of("support@example.com", "Example Support")))
+                    .subject("Spring newsletter")
+                    .bodyText(TEXT)
+                    .bodyHtml(HTML)
+                    .customId("campaign-42-" + index)
+                    .customIdUnique(true)
+                    .trackOpens(true)
+                    .trackClicks(true)
+                    .listId("spring-newsletter")
+                    .listUnsubscribe("https://example.com/unsubscribe/abcd-1234")
+                    .build();
+    }
+
+    static List<Email> emails(int count) {
+        List<Email> emails = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            emails.add(email(i));
+        }
+        return emails;
+    }
+
+    static String response(int count) {
+        StringBuilder json = new StringBuilder("{\"data\":[");
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            if (i % 10 == 9) {
+                json.append("{\"custom_id\":\"campaign-42-").append(i).append("\",\"status\":\"rejected\",\"code\":\"422\",")
+                    .append("\"errors\":[{\"code\":\"invalid\",\"description\":\"Invalid address\",\"field\":\"to.0.email\",")
+                    .append("\"value\":\"customer").append(i).append("@example\"}]}");
+            } else {
+                json.append("{\"message_id\":\"8a3f3c1e-5b7d-4c1a-9e2f-").append(String.format("%012d", i))
+                    .append("\",\"custom_id\":\"campaign-42-").append(i).append("\",\"status\":\"accepted\"}");
+            }
+        }
+        return json.append("],\"meta\":{\"rq_time\":\"0.0123\"}}").toString();
+    }
+}
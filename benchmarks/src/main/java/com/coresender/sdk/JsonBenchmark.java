@@ -0,0 +1,85 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.FragmentCache;
+import com.coresender.sdk.data.JsonCodec;
+import com.coresender.sdk.data.SendEmailResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of email batches and deserialization of API responses,
+ * through the SDK's data binding object mapper and through the streaming {@link JsonCodec}, with and without
+ * a {@link FragmentCache}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int batchSize;
+
+    private List<Email> emails;
+
+    private byte[] response;
+
+    private final FragmentCache fragmentCache = new FragmentCache();
+
+    @Setup
+    public void setUp() {
+        emails = Fixtures.emails(batchSize);
+        response = Fixtures.response(batchSize).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] serializeEmails() throws IOException {
+        return Coresender.mapper.writeValueAsBytes(emails);
+    }
+
+    @Benchmark
+    public SendEmailResponse deserializeResponse() throws IOException {
+        return Coresender.mapper.readValue(response, SendEmailResponse.class);
+    }
+
+    @Benchmark
+    public byte[] serializeEmailsCodec() throws IOException {
+        ByteArrayBuilder output = new ByteArrayBuilder(JsonCodec.getFactory()._getBufferRecycler());
+        try (JsonGenerator generator = JsonCodec.getFactory().createGenerator(output)) {
+            JsonCodec.writeEmails(generator, emails);
+        }
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serializeEmailsCodecCached() throws IOException {
+        return JsonCodec.writeEmailsAsBytes(emails, fragmentCache);
+    }
+
+    @Benchmark
+    public SendEmailResponse deserializeResponseCodec() throws IOException {
+        try (JsonParser parser = JsonCodec.getFactory().createParser(response)) {
+            return JsonCodec.readResponse(parser);
+        }
+    }
+}
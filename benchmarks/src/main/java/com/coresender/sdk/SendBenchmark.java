@@ -0,0 +1,75 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.Coresender.CoresenderBuilder;
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full send path (serialize, HTTP round trip, parse) against an in-process loopback stub.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SendBenchmark {
+
+    @Param({"1", "100", "1000"})
+    private int batchSize;
+
+    @Param({"false", "true"})
+    private boolean http2;
+
+    @Param({"false", "true"})
+    private boolean pooled;
+
+    private LoopbackServer server;
+
+    private Coresender coresender;
+
+    private List<Email> emails;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new LoopbackServer(Fixtures.response(batchSize));
+        CoresenderBuilder builder = Coresender.builder().accountId("benchmark").apiKey("benchmark").baseUrl(server.baseUrl()).http2(http2);
+        if (pooled) {
+            builder.bufferPool(new BufferPool());
+        }
+        coresender = builder.build();
+        emails = Fixtures.emails(batchSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        coresender.close();
+        server.close();
+    }
+
+    @Benchmark
+    public HttpResponse<SendEmailResponse> sendEmailBatch() {
+        HttpResponse<SendEmailResponse> response = coresender.sendEmailBatch(emails);
+        if (response.getBody() == null) {
+            throw new IllegalStateException("Unexpected response " + response.getStatus());
+        }
+        return response;
+    }
+}
@@ -0,0 +1,83 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.Email.Address;
+import com.coresender.sdk.data.EmailTemplate;
+import com.coresender.sdk.data.JsonCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and serializing a personalized campaign, with one complete email per recipient created by
+ * {@link Email.EmailBuilder} versus emails sharing a precompiled {@link EmailTemplate}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TemplateBenchmark {
+
+    private static final String GREETING = "<p>Dear {{name}},</p>";
+
+    private static final String FOOTER = "<p><a href=\"https://example.com/unsubscribe/{{{token}}}\">Unsubscribe</a></p>";
+
+    private static final EmailTemplate TEMPLATE = EmailTemplate.builder()
+                                                               .subject("{{name}}, our spring newsletter is here")
+                                                               .bodyText("Dear {{name}},\n" + Fixtures.TEXT + "Unsubscribe: https://example.com/unsubscribe/{{token}}")
+                                                               .bodyHtml(GREETING + Fixtures.HTML + FOOTER)
+                                                               .build();
+
+    @Param({"100", "1000"})
+    private int batchSize;
+
+    @Benchmark
+    public byte[] builder() throws IOException {
+        List<Email> emails = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            String name = "Customer " + i;
+            String token = "token-" + i;
+            emails.add(recipient(i)
+                               .subject(name + ", our spring newsletter is here")
+                               .bodyText("Dear " + name + ",\n" + Fixtures.TEXT + "Unsubscribe: https://example.com/unsubscribe/" + token)
+                               .bodyHtml(GREETING.replace("{{name}}", name) + Fixtures.HTML + FOOTER.replace("{{{token}}}", token))
+                               .build());
+        }
+        return JsonCodec.writeEmailsAsBytes(emails);
+    }
+
+    @Benchmark
+    public byte[] template() throws IOException {
+        List<Email> emails = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            emails.add(recipient(i)
+                               .template(TEMPLATE, Map.of("name", "Customer " + i, "token", "token-" + i))
+                               .build());
+        }
+        return JsonCodec.writeEmailsAsBytes(emails);
+    }
+
+    private static Email.EmailBuilder recipient(int index) {
+        return Email.builder()
+                    .from(Address.of("newsletter@example.com", "Example Newsletter"))
+                    .to(List.of(Address.of("customer" + index + "@example.com", "Customer " + index)))
+                    .customId("campaign-42-" + index)
+                    .customIdUnique(true)
+                    .listUnsubscribe("https://example.com/unsubscribe/token-" + index);
+    }
+}
@@ -0,0 +1,285 @@
+package com.coresender.loadtest;
+
+import com.coresender.sdk.Coresender;
+import com.coresender.sdk.RetryPolicy;
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.Email.Address;
+import com.coresender.sdk.testing.ApiSimulator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Open-loop load and soak test of the SDK.
+ * <p>
+ * Operations are started at a fixed rate regardless of how fast earlier ones complete, and their latency is measured
+ * from the scheduled start. A slow SDK therefore shows up as growing latency instead of a silently lower request rate.
+ * At most {@code --max-in-flight} operations run at once; beyond that the dispatcher waits, which again counts towards
+ * latency.
+ * <p>
+ * Without {@code --base-url} the SDK sends to an in-process {@link ApiSimulator}.
+ */
+public final class LoadTest {
+
+    private static final String ACCOUNT_ID = "loadtest";
+
+    private static final String API_KEY = "loadtest";
+
+    private final Options options;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final List<Map<String, Object>> intervals = new ArrayList<>();
+
+    private LoadTest(final Options options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("Usage: java -jar loadtest.jar [--scenario=simple|batch|async|async-batch|enqueue] [--rate=100]"
+                    + " [--batch-size=100] [--duration=60s] [--warmup=10s] [--interval=5s] [--max-in-flight=256]"
+                    + " [--http2] [--virtual-threads] [--compression] [--latency-median=20ms] [--latency-p99=100ms]"
+                    + " [--failure-rate=0] [--reject-rate=0] [--base-url=URL] [--report=loadtest-report.json]");
+            System.exit(2);
+            return;
+        }
+        new LoadTest(options).run();
+    }
+
+    private void run() throws Exception {
+        ApiSimulator simulator = null;
+        if (options.baseUrl == null) {
+            ApiSimulator.ApiSimulatorBuilder builder = ApiSimulator.builder()
+                                                                   .credentials(ACCOUNT_ID, API_KEY)
+                                                                   .latency(ApiSimulator.Latency.logNormal(options.latencyMedian, options.latencyP99))
+                                                                   .rejectRate(options.rejectRate);
+            if (options.failureRate > 0) {
+                builder.statusRate(503, options.failureRate);
+            }
+            simulator = builder.start();
+        }
+        Coresender coresender = Coresender.builder()
+                                          .accountId(ACCOUNT_ID)
+                                          .apiKey(API_KEY)
+                                          .baseUrl(simulator != null ? simulator.getBaseUrl() : options.baseUrl)
+                                          .http2(options.http2)
+                                          .virtualThreads(options.virtualThreads)
+                                          .compression(options.compression)
+                                          .retryPolicy(RetryPolicy.builder().retryNonIdempotent(true).build())
+                                          .build();
+        ExecutorService workers = Executors.newFixedThreadPool(options.maxInFlight, runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            Map<String, Object> summary = generate(coresender, workers, simulator);
+            writeReport(summary);
+        } finally {
+            workers.shutdownNow();
+            coresender.close();
+            if (simulator != null) {
+                simulator.close();
+            }
+        }
+    }
+
+    private Map<String, Object> generate(Coresender coresender, ExecutorService workers, ApiSimulator simulator) throws InterruptedException {
+        long period = (long) (TimeUnit.SECONDS.toNanos(1) / options.rate);
+        int emailsPerOperation = options.scenario.emailsPerOperation(options.batchSize);
+        Supplier<Email> emails = this::email;
+        Semaphore inFlight = new Semaphore(options.maxInFlight);
+
+        long start = System.nanoTime();
+        long measureFrom = start + options.warmup.toNanos();
+        long end = measureFrom + options.duration.toNanos();
+        Recorder recorder = new Recorder(measureFrom);
+        Reporter reporter = new Reporter(recorder, start, simulator);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = options.interval.toNanos();
+        scheduler.scheduleAtFixedRate(reporter, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+
+        System.out.printf(Locale.ROOT, "%s, %.1f ops/s, %d emails per operation, %ds warmup, %ds measured%n",
+                options.scenario.getName(), options.rate, emailsPerOperation, options.warmup.toSeconds(), options.duration.toSeconds());
+        for (long intended = start; intended < end; intended += period) {
+            long delay;
+            while ((delay = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            long scheduled = intended;
+            inFlight.acquire();
+            workers.execute(() -> {
+                CompletableFuture<?> operation;
+                try {
+                    operation = options.scenario.run(coresender, emails, options.batchSize);
+                } catch (RuntimeException e) {
+                    operation = CompletableFuture.failedFuture(e);
+                }
+                operation.whenComplete((result, throwable) -> {
+                    recorder.record(scheduled, System.nanoTime(), emailsPerOperation, throwable != null);
+                    inFlight.release();
+                });
+            });
+        }
+        if (!inFlight.tryAcquire(options.maxInFlight, 30, TimeUnit.SECONDS)) {
+            System.out.println("Some operations did not complete within 30s of the end of the run");
+        }
+        scheduler.shutdownNow();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        reporter.run();
+
+        double seconds = options.duration.toNanos() / 1e9;
+        Recorder.Window total = recorder.getTotal();
+        Map<String, Object> summary = total.toMap(seconds);
+        summary.put("gcCount", reporter.measuredGcCount);
+        summary.put("gcTimeMillis", reporter.measuredGcMillis);
+        summary.put("maxHeapUsedBytes", reporter.maxHeap);
+        if (simulator != null) {
+            summary.put("connections", simulator.getConnections());
+            summary.put("statusCounts", simulator.getStatusCounts());
+        }
+        System.out.printf(Locale.ROOT, "total  %s  gc %d/%dms%n", describe(total, seconds), reporter.measuredGcCount, reporter.measuredGcMillis);
+        return summary;
+    }
+
+    /**
+     * Closes the current interval window, samples GC and heap, and prints one line per interval.
+     */
+    private final class Reporter implements Runnable {
+
+        private final Recorder recorder;
+
+        private final long start;
+
+        private final ApiSimulator simulator;
+
+        private long last;
+
+        private long gcCount = Recorder.gcCount();
+
+        private long gcMillis = Recorder.gcMillis();
+
+        private long measuredGcCount;
+
+        private long measuredGcMillis;
+
+        private long maxHeap;
+
+        Reporter(final Recorder recorder, final long start, final ApiSimulator simulator) {
+            this.recorder = recorder;
+            this.start = start;
+            this.simulator = simulator;
+            this.last = start;
+        }
+
+        @Override
+        public void run() {
+            long now = System.nanoTime();
+            Recorder.Window window = recorder.nextInterval();
+            long count = Recorder.gcCount() - gcCount;
+            long millis = Recorder.gcMillis() - gcMillis;
+            gcCount += count;
+            gcMillis += millis;
+            long heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            boolean warmup = last - start < options.warmup.toNanos();
+            if (!warmup) {
+                measuredGcCount += count;
+                measuredGcMillis += millis;
+                maxHeap = Math.max(maxHeap, heap);
+            }
+            double seconds = (now - last) / 1e9;
+            last = now;
+
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("elapsedSeconds", TimeUnit.NANOSECONDS.toSeconds(now - start));
+            map.put("warmup", warmup);
+            map.putAll(window.toMap(seconds));
+            map.put("gcCount", count);
+            map.put("gcTimeMillis", millis);
+            map.put("heapUsedBytes", heap);
+            map.put("threads", ManagementFactory.getThreadMXBean().getThreadCount());
+            if (simulator != null) {
+                map.put("connections", simulator.getConnections());
+            }
+            intervals.add(map);
+            System.out.printf(Locale.ROOT, "%5ds  %s  gc %d/%dms  heap %dMB%s%n", TimeUnit.NANOSECONDS.toSeconds(now - start),
+                    describe(window, seconds), count, millis, heap >> 20, warmup ? "  (warmup)" : "");
+        }
+    }
+
+    private static String describe(Recorder.Window window, double seconds) {
+        return String.format(Locale.ROOT, "%8.1f ops/s %9.1f emails/s  errors %d  p50 %.1fms  p99 %.1fms  p99.9 %.1fms  max %.1fms",
+                window.getOperations() / seconds, window.getEmails() / seconds, window.getErrors(),
+                millis(window.getLatency().getValueAtPercentile(50)), millis(window.getLatency().getValueAtPercentile(99)),
+                millis(window.getLatency().getValueAtPercentile(99.9)), millis(window.getLatency().getMax()));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private void writeReport(Map<String, Object> summary) throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("sdkVersion", sdkVersion());
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("timestamp", Instant.now().toString());
+        report.put("config", options.toMap());
+        report.put("summary", summary);
+        report.put("intervals", intervals);
+        Path path = Paths.get(options.report);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), report);
+        System.out.println("Report written to " + path.toAbsolutePath());
+    }
+
+    private static String sdkVersion() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = LoadTest.class.getResourceAsStream("/loadtest.properties")) {
+            if (input != null) {
+                properties.load(input);
+            }
+        }
+        return properties.getProperty("sdk.version", "unknown");
+    }
+
+    private Email email() {
+        long id = sequence.incrementAndGet();
+        return Email.builder()
+                    .from(Address.of("jean.luc@example.com", "Jean-Luc Picard"))
+                    .to(List.of(Address.of("geordi" + id + "@example.com", "Geordi La Forge")))
+                    .subject("I need engines")
+                    .bodyText("Geordi, I need engines, now!")
+                    .bodyHtml("<html><body><p>Geordi,</p><p>I need engines, <b>now</b>!</p></body></html>")
+                    .customId(Long.toString(id))
+                    .build();
+    }
+}
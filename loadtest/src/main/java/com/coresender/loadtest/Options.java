@@ -0,0 +1,155 @@
+package com.coresender.loadtest;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Load test settings, parsed from {@code --name=value} arguments.
+ */
+final class Options {
+
+    Scenario scenario = Scenario.ASYNC_BATCH;
+
+    double rate = 100;
+
+    int batchSize = 100;
+
+    Duration duration = Duration.ofSeconds(60);
+
+    Duration warmup = Duration.ofSeconds(10);
+
+    Duration interval = Duration.ofSeconds(5);
+
+    int maxInFlight = 256;
+
+    boolean http2;
+
+    boolean virtualThreads;
+
+    boolean compression;
+
+    String baseUrl;
+
+    Duration latencyMedian = Duration.ofMillis(20);
+
+    Duration latencyP99 = Duration.ofMillis(100);
+
+    double failureRate;
+
+    double rejectRate;
+
+    String report = "loadtest-report.json";
+
+    static Options parse(String... args) {
+        Options options = new Options();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + arg);
+            }
+            int separator = arg.indexOf('=');
+            String name = separator < 0 ? arg.substring(2) : arg.substring(2, separator);
+            String value = separator < 0 ? "true" : arg.substring(separator + 1);
+            switch (name) {
+                case "scenario":
+                    options.scenario = Scenario.of(value);
+                    break;
+                case "rate":
+                    options.rate = Double.parseDouble(value);
+                    break;
+                case "batch-size":
+                    options.batchSize = Integer.parseInt(value);
+                    break;
+                case "duration":
+                    options.duration = duration(value);
+                    break;
+                case "warmup":
+                    options.warmup = duration(value);
+                    break;
+                case "interval":
+                    options.interval = duration(value);
+                    break;
+                case "max-in-flight":
+                    options.maxInFlight = Integer.parseInt(value);
+                    break;
+                case "http2":
+                    options.http2 = Boolean.parseBoolean(value);
+                    break;
+                case "virtual-threads":
+                    options.virtualThreads = Boolean.parseBoolean(value);
+                    break;
+                case "compression":
+                    options.compression = Boolean.parseBoolean(value);
+                    break;
+                case "base-url":
+                    options.baseUrl = value;
+                    break;
+                case "latency-median":
+                    options.latencyMedian = duration(value);
+                    break;
+                case "latency-p99":
+                    options.latencyP99 = duration(value);
+                    break;
+                case "failure-rate":
+                    options.failureRate = Double.parseDouble(value);
+                    break;
+                case "reject-rate":
+                    options.rejectRate = Double.parseDouble(value);
+                    break;
+                case "report":
+                    options.report = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option --" + name);
+            }
+        }
+        if (options.rate <= 0) {
+            throw new IllegalArgumentException("rate must be positive");
+        }
+        if (options.batchSize < 1) {
+            throw new IllegalArgumentException("batch-size must be positive");
+        }
+        if (options.maxInFlight < 1) {
+            throw new IllegalArgumentException("max-in-flight must be positive");
+        }
+        return options;
+    }
+
+    /**
+     * Parses durations like {@code 500ms}, {@code 30s} or {@code 5m}.
+     */
+    static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("h")) {
+            return Duration.ofHours(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("scenario", scenario.getName());
+        map.put("rate", rate);
+        map.put("batchSize", batchSize);
+        map.put("durationSeconds", duration.toSeconds());
+        map.put("warmupSeconds", warmup.toSeconds());
+        map.put("maxInFlight", maxInFlight);
+        map.put("http2", http2);
+        map.put("virtualThreads", virtualThreads);
+        map.put("compression", compression);
+        map.put("baseUrl", baseUrl);
+        map.put("latencyMedianMillis", latencyMedian.toMillis());
+        map.put("latencyP99Millis", latencyP99.toMillis());
+        map.put("failureRate", failureRate);
+        map.put("rejectRate", rejectRate);
+        return map;
+    }
+}
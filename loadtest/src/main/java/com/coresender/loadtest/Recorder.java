@@ -0,0 +1,131 @@
+package com.coresender.loadtest;
+
+import com.coresender.sdk.Histogram;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects operation latencies into a cumulative window, covering everything after warmup, and a window per
+ * reporting interval.
+ */
+final class Recorder {
+
+    private final long measureFrom;
+
+    private final Window total = new Window();
+
+    private volatile Window current = new Window();
+
+    Recorder(final long measureFrom) {
+        this.measureFrom = measureFrom;
+    }
+
+    /**
+     * @param intended  {@link System#nanoTime()} at which the operation was scheduled to start; latency is measured from
+     *                  here rather than from the actual start, so stalls of the load generator are not hidden
+     * @param finished  {@link System#nanoTime()} at which the operation completed
+     * @param emails    emails sent by the operation
+     * @param failed    whether the operation failed
+     */
+    void record(long intended, long finished, int emails, boolean failed) {
+        long latency = finished - intended;
+        current.record(latency, emails, failed);
+        if (intended >= measureFrom) {
+            total.record(latency, emails, failed);
+        }
+    }
+
+    /**
+     * Starts a new interval window.
+     *
+     * @return the window of the interval that ended
+     */
+    Window nextInterval() {
+        Window ended = current;
+        current = new Window();
+        return ended;
+    }
+
+    Window getTotal() {
+        return total;
+    }
+
+    static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    static final class Window {
+
+        private final Histogram latency = new Histogram();
+
+        private final LongAdder operations = new LongAdder();
+
+        private final LongAdder emails = new LongAdder();
+
+        private final LongAdder errors = new LongAdder();
+
+        private void record(long latency, int emails, boolean failed) {
+            this.latency.record(latency);
+            operations.increment();
+            this.emails.add(emails);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        Histogram getLatency() {
+            return latency;
+        }
+
+        long getOperations() {
+            return operations.sum();
+        }
+
+        long getEmails() {
+            return emails.sum();
+        }
+
+        long getErrors() {
+            return errors.sum();
+        }
+
+        Map<String, Object> toMap(double seconds) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("operations", getOperations());
+            map.put("emails", getEmails());
+            map.put("errors", getErrors());
+            map.put("operationsPerSecond", seconds > 0 ? getOperations() / seconds : 0);
+            map.put("emailsPerSecond", seconds > 0 ? getEmails() / seconds : 0);
+            Map<String, Object> percentiles = new LinkedHashMap<>();
+            percentiles.put("mean", micros((long) latency.getMean()));
+            percentiles.put("p50", micros(latency.getValueAtPercentile(50)));
+            percentiles.put("p90", micros(latency.getValueAtPercentile(90)));
+            percentiles.put("p99", micros(latency.getValueAtPercentile(99)));
+            percentiles.put("p999", micros(latency.getValueAtPercentile(99.9)));
+            percentiles.put("max", micros(latency.getMax()));
+            map.put("latencyMicros", percentiles);
+            return map;
+        }
+
+        private static long micros(long nanos) {
+            return TimeUnit.NANOSECONDS.toMicros(nanos);
+        }
+    }
+}
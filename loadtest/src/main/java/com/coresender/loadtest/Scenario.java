@@ -0,0 +1,115 @@
+package com.coresender.loadtest;
+
+import com.coresender.sdk.Coresender;
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * SDK entry point driven by the load test. Every operation sends one email or one batch.
+ */
+enum Scenario {
+
+    /**
+     * {@link Coresender#sendSimpleEmail(Email)}, blocking, one email per operation.
+     */
+    SIMPLE("simple") {
+        @Override
+        CompletableFuture<?> run(Coresender coresender, Supplier<Email> emails, int batchSize) {
+            return CompletableFuture.completedFuture(check(coresender.sendSimpleEmail(emails.get())));
+        }
+    },
+
+    /**
+     * {@link Coresender#addToBatch(Email)} then {@link Coresender#execute()}, blocking. Concurrent operations share
+     * the sender's batch, so a request may carry emails added by another operation.
+     */
+    BATCH("batch") {
+        @Override
+        CompletableFuture<?> run(Coresender coresender, Supplier<Email> emails, int batchSize) {
+            for (int i = 0; i < batchSize; i++) {
+                coresender.addToBatch(emails.get());
+            }
+            return CompletableFuture.completedFuture(check(coresender.execute()));
+        }
+    },
+
+    /**
+     * {@link Coresender#sendAsync(Email)}, one email per operation.
+     */
+    ASYNC("async") {
+        @Override
+        CompletableFuture<?> run(Coresender coresender, Supplier<Email> emails, int batchSize) {
+            return coresender.sendAsync(emails.get()).thenApply(Scenario::check);
+        }
+    },
+
+    /**
+     * {@link Coresender#sendBatchAsync(java.util.Collection)}.
+     */
+    ASYNC_BATCH("async-batch") {
+        @Override
+        CompletableFuture<?> run(Coresender coresender, Supplier<Email> emails, int batchSize) {
+            List<Email> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(emails.get());
+            }
+            return coresender.sendBatchAsync(batch).thenApply(Scenario::check);
+        }
+    },
+
+    /**
+     * {@link Coresender#enqueue(Email)}, one email per operation, batched by the SDK.
+     */
+    ENQUEUE("enqueue") {
+        @Override
+        CompletableFuture<?> run(Coresender coresender, Supplier<Email> emails, int batchSize) {
+            return coresender.enqueue(emails.get());
+        }
+    };
+
+    private final String name;
+
+    Scenario(final String name) {
+        this.name = name;
+    }
+
+    static Scenario of(String name) {
+        for (Scenario scenario : values()) {
+            if (scenario.name.equals(name)) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario " + name);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int emailsPerOperation(int batchSize) {
+        return this == BATCH || this == ASYNC_BATCH ? batchSize : 1;
+    }
+
+    /**
+     * Starts one operation.
+     *
+     * @param coresender sender under test
+     * @param emails     source of emails
+     * @param batchSize  emails per batch operation
+     * @return future completed when the operation is processed, exceptionally if it failed
+     */
+    abstract CompletableFuture<?> run(Coresender coresender, Supplier<Email> emails, int batchSize);
+
+    private static HttpResponse<SendEmailResponse> check(HttpResponse<SendEmailResponse> response) {
+        if (!response.isSuccess()) {
+            throw new IllegalStateException("Got response " + response.getStatus());
+        }
+        return response;
+    }
+}
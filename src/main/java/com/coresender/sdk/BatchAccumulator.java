@@ -0,0 +1,226 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.JsonCodec;
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Collects emails from many producer threads and sends them in batches once the batch reaches the configured
+ * number of emails, estimated payload size or linger time, whichever comes first.
+ */
+class BatchAccumulator {
+
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger pendingEmails = new AtomicInteger();
+
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    private final ReentrantLock drainLock = new ReentrantLock();
+
+    private final AtomicBoolean lingerArmed = new AtomicBoolean();
+
+    private volatile boolean closed;
+
+    private final int maxEmails;
+
+    private final long maxBytes;
+
+    private final long lingerNanos;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Function<List<Email>, CompletableFuture<HttpResponse<SendEmailResponse>>> sender;
+
+    BatchAccumulator(final int maxEmails, final long maxBytes, final Duration linger, final ScheduledExecutorService scheduler,
+                     final Function<List<Email>, CompletableFuture<HttpResponse<SendEmailResponse>>> sender) {
+        if (maxEmails < 1) {
+            throw new IllegalArgumentException("maxEmails must be positive");
+        }
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be positive");
+        }
+        this.maxEmails = maxEmails;
+        this.maxBytes = maxBytes;
+        this.lingerNanos = linger.toNanos();
+        this.scheduler = scheduler;
+        this.sender = sender;
+    }
+
+    /**
+     * Estimates the serialized size of an email without serializing it.
+     *
+     * @param email email to be measured
+     * @return approximate number of bytes the email takes in a request
+     */
+    static long estimateSize(Email email) {
+        return JsonCodec.estimateSize(email);
+    }
+
+    /**
+     * Adds email to the pending batch.
+     *
+     * @param email to be sent
+     * @return future completed with the email's own processing information
+     */
+    CompletableFuture<SendEmailResponse.Data> add(Email email) {
+        if (closed) {
+            throw new IllegalStateException("Coresender is closed");
+        }
+        Pending pending = new Pending(email, estimateSize(email));
+        queue.offer(pending);
+        pendingEmails.incrementAndGet();
+        pendingBytes.addAndGet(pending.size);
+        // close may have drained the queue before the offer; if the email is still there, nobody else will send it
+        if (closed && queue.remove(pending)) {
+            pendingEmails.decrementAndGet();
+            pendingBytes.addAndGet(-pending.size);
+            throw new IllegalStateException("Coresender is closed");
+        }
+        if (isFull()) {
+            drain(false);
+        }
+        // offer happens before this check, so a timer disarmed after it is guaranteed to see the email
+        if (lingerArmed.compareAndSet(false, true)) {
+            try {
+                scheduler.schedule(this::onLinger, lingerNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException exception) {
+                // the scheduler is shutting down, so there won't be a timer to wait for
+                lingerArmed.set(false);
+                drain(true);
+            }
+        }
+        return pending.result;
+    }
+
+    /**
+     * Sends all pending emails regardless of the batch limits.
+     *
+     * @return future completed when all batches sent by this call are processed
+     */
+    CompletableFuture<Void> flush() {
+        return drain(true);
+    }
+
+    /**
+     * Rejects further emails and sends the pending ones.
+     *
+     * @return future completed when all pending emails are processed
+     */
+    CompletableFuture<Void> close() {
+        closed = true;
+        return flush();
+    }
+
+    int getPendingEmails() {
+        return pendingEmails.get();
+    }
+
+    private boolean isFull() {
+        return pendingEmails.get() >= maxEmails || pendingBytes.get() >= maxBytes;
+    }
+
+    private void onLinger() {
+        lingerArmed.set(false);
+        drain(true);
+    }
+
+    private CompletableFuture<Void> drain(boolean all) {
+        List<CompletableFuture<?>> sent = new ArrayList<>();
+        // re-checked after releasing the flag, a producer may have crossed a limit in the meantime
+        while (all ? !queue.isEmpty() : isFull()) {
+            // a full batch is left to the thread already draining, a flush waits for it
+            if (all) {
+                drainLock.lock();
+            } else if (!drainLock.tryLock()) {
+                break;
+            }
+            try {
+                while (all ? !queue.isEmpty() : isFull()) {
+                    sent.add(dispatch(take()));
+                }
+            } finally {
+                drainLock.unlock();
+            }
+        }
+        return CompletableFuture.allOf(sent.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private List<Pending> take() {
+        List<Pending> chunk = new ArrayList<>(Math.min(maxEmails, Math.max(pendingEmails.get(), 1)));
+        long bytes = 0;
+        Pending next;
+        while (chunk.size() < maxEmails && (next = queue.peek()) != null && (chunk.isEmpty() || bytes + next.size <= maxBytes)) {
+            queue.poll();
+            chunk.add(next);
+            bytes += next.size;
+        }
+        pendingEmails.addAndGet(-chunk.size());
+        pendingBytes.addAndGet(-bytes);
+        return chunk;
+    }
+
+    private CompletableFuture<?> dispatch(List<Pending> chunk) {
+        if (chunk.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        List<Email> emails = new ArrayList<>(chunk.size());
+        for (Pending pending : chunk) {
+            emails.add(pending.email);
+        }
+        CompletableFuture<HttpResponse<SendEmailResponse>> response;
+        try {
+            response = sender.apply(emails);
+        } catch (RuntimeException exception) {
+            response = CompletableFuture.failedFuture(exception);
+        }
+        return response.whenComplete((result, throwable) -> complete(chunk, result, throwable));
+    }
+
+    private static void complete(List<Pending> chunk, HttpResponse<SendEmailResponse> response, Throwable throwable) {
+        if (throwable != null) {
+            chunk.forEach(pending -> pending.result.completeExceptionally(throwable));
+            return;
+        }
+        List<SendEmailResponse.Data> data = response.getBody() == null ? null : response.getBody().getData();
+        Iterator<SendEmailResponse.Data> results = data == null ? Collections.emptyIterator() : data.iterator();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (results.hasNext()) {
+                chunk.get(i).result.complete(results.next());
+            } else {
+                chunk.get(i).result.completeExceptionally(new SendEmailException("No processing information for email at index " + i, response));
+            }
+        }
+    }
+
+    private static class Pending {
+
+        private final Email email;
+
+        private final long size;
+
+        private final CompletableFuture<SendEmailResponse.Data> result = new CompletableFuture<>();
+
+        Pending(final Email email, final long size) {
+            this.email = email;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Splits a batch into requests within the API limits, sends them with bounded parallelism
+ * and merges the responses back in the original order.
+ */
+final class BatchSplitter {
+
+    private BatchSplitter() {
+    }
+
+    /**
+     * Splits emails into consecutive chunks of at most {@code maxEmails} emails and {@code maxBytes} estimated
+     * payload size. An email larger than {@code maxBytes} is put into a chunk of its own.
+     *
+     * @param emails    emails to be split
+     * @param maxEmails maximum number of emails in a chunk
+     * @param maxBytes  maximum estimated payload size of a chunk
+     * @return chunks in the order of emails
+     */
+    static List<List<Email>> split(Collection<Email> emails, int maxEmails, long maxBytes) {
+        List<List<Email>> chunks = new ArrayList<>();
+        List<Email> chunk = new ArrayList<>();
+        long bytes = 0;
+        for (Email email : emails) {
+            long size = BatchAccumulator.estimateSize(email);
+            if (!chunk.isEmpty() && (chunk.size() == maxEmails || bytes + size > maxBytes)) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+                bytes = 0;
+            }
+            chunk.add(email);
+            bytes += size;
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    /**
+     * Sends chunks keeping at most {@code parallelism} requests in flight. With parallelism of 1 chunks are sent
+     * one after another. The returned future completes once every chunk is done, exceptionally if any request failed.
+     *
+     * @param chunks      chunks to be sent
+     * @param parallelism maximum number of concurrent requests
+     * @param sender      sends a single chunk
+     * @return future completed with responses merged in the order of chunks
+     */
+    static CompletableFuture<HttpResponse<SendEmailResponse>> sendAll(List<List<Email>> chunks, int parallelism,
+                                                                      Function<List<Email>, CompletableFuture<HttpResponse<SendEmailResponse>>> sender) {
+        List<CompletableFuture<HttpResponse<SendEmailResponse>>> responses = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            responses.add(new CompletableFuture<>());
+        }
+        AtomicInteger next = new AtomicInteger();
+        for (int i = 0; i < Math.min(parallelism, chunks.size()); i++) {
+            sendNext(chunks, responses, next, sender);
+        }
+        return CompletableFuture.allOf(responses.toArray(new CompletableFuture<?>[0]))
+                                .thenApply(ignored -> {
+                                    List<HttpResponse<SendEmailResponse>> results = new ArrayList<>(responses.size());
+                                    for (CompletableFuture<HttpResponse<SendEmailResponse>> response : responses) {
+                                        results.add(response.join());
+                                    }
+                                    return merge(chunks, results);
+                                });
+    }
+
+    private static void sendNext(List<List<Email>> chunks, List<CompletableFuture<HttpResponse<SendEmailResponse>>> responses,
+                                 AtomicInteger next, Function<List<Email>, CompletableFuture<HttpResponse<SendEmailResponse>>> sender) {
+        int index = next.getAndIncrement();
+        if (index >= chunks.size()) {
+            return;
+        }
+        CompletableFuture<HttpResponse<SendEmailResponse>> response;
+        try {
+            response = sender.apply(chunks.get(index));
+        } catch (RuntimeException exception) {
+            response = CompletableFuture.failedFuture(exception);
+        }
+        response.whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                responses.get(index).complete(result);
+            } else {
+                responses.get(index).completeExceptionally(throwable);
+            }
+            sendNext(chunks, responses, next, sender);
+        });
+    }
+
+    /**
+     * Merges chunk responses into one. Status, headers and parsing error are taken from the first unsuccessful
+     * response, or from the first one if all succeeded. Processing information of all chunks is concatenated
+     * in the order of chunks. If any chunk carries processing information, a chunk without one for each of its
+     * emails gets failed processing information instead, so every result stays at the position of its email.
+     *
+     * @param chunks    chunks in the order they were split
+     * @param responses chunk responses in the order of chunks
+     * @return merged response
+     */
+    static HttpResponse<SendEmailResponse> merge(List<List<Email>> chunks, List<HttpResponse<SendEmailResponse>> responses) {
+        if (responses.size() == 1) {
+            return responses.get(0);
+        }
+        boolean collected = false;
+        for (HttpResponse<SendEmailResponse> response : responses) {
+            collected |= response.getBody() != null && response.getBody().getData() != null;
+        }
+        HttpResponse<SendEmailResponse> representative = responses.get(0);
+        List<SendEmailResponse> bodies = new ArrayList<>(responses.size());
+        for (int i = 0; i < responses.size(); i++) {
+            HttpResponse<SendEmailResponse> response = responses.get(i);
+            SendEmailResponse body = response.getBody();
+            if (representative.isSuccess() && !representative.getParsingError().isPresent()
+                    && (!response.isSuccess() || response.getParsingError().isPresent())) {
+                representative = response;
+            }
+            if (collected && (body == null || body.getData() == null || body.getData().size() != chunks.get(i).size())) {
+                bodies.add(SendEmailResponse.of(failed(chunks.get(i), response.getStatus()), body == null ? null : body.getMeta()));
+            } else if (body != null) {
+                bodies.add(body);
+            }
+        }
+        SendEmailResponse merged = SendEmailResponse.merge(bodies);
+        return representative.map(body -> merged);
+    }
+
+    /**
+     * @param emails emails of a failed request
+     * @param status HTTP status of the request, 0 if no response was received
+     * @return failed processing information of every email, in their order
+     */
+    static List<SendEmailResponse.Data> failed(Collection<Email> emails, int status) {
+        List<SendEmailResponse.Data> data = new ArrayList<>(emails.size());
+        for (Email email : emails) {
+            data.add(SendEmailResponse.Data.failed(email.getCustomId(), status == 0 ? null : String.valueOf(status)));
+        }
+        return data;
+    }
+}
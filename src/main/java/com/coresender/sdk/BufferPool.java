@@ -0,0 +1,244 @@
+package com.coresender.sdk;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool of buffers requests are serialized into, reused once a request is finished instead of allocating
+ * a new array of the size of the whole payload for every request.
+ * <p>
+ * A request is written into a chain of buffers of growing size classes, from 4 KiB to 256 KiB, so even
+ * multi-megabyte batches never need a single large array, which G1 would allocate as a humongous object.
+ * The transport streams the chain as it is. Idle buffers are kept up to the configured total size,
+ * buffers released above it are left to the garbage collector.
+ */
+public class BufferPool {
+
+    private static final int[] SIZE_CLASSES = {4 * 1024, 16 * 1024, 64 * 1024, 256 * 1024};
+
+    private final ConcurrentLinkedQueue<ByteBuffer>[] free;
+
+    private final long maxPooledBytes;
+
+    private final boolean direct;
+
+    private final AtomicLong pooledBytes = new AtomicLong();
+
+    private final AtomicLong inUseBytes = new AtomicLong();
+
+    private final LongAdder acquired = new LongAdder();
+
+    private final LongAdder reused = new LongAdder();
+
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    private final LongAdder discarded = new LongAdder();
+
+    /**
+     * Creates pool of heap buffers keeping up to 32 MiB of idle buffers.
+     */
+    public BufferPool() {
+        this(32 * 1024 * 1024, false);
+    }
+
+    /**
+     * @param maxPooledBytes maximum total capacity of idle buffers kept for reuse
+     * @param direct         whether to allocate direct buffers, which spare a copy when the transport writes
+     *                       them to a socket channel, but are slower to fill and are allocated outside the heap
+     */
+    @SuppressWarnings("unchecked")
+    public BufferPool(final long maxPooledBytes, final boolean direct) {
+        if (maxPooledBytes < 0) {
+            throw new IllegalArgumentException("maxPooledBytes must not be negative");
+        }
+        this.maxPooledBytes = maxPooledBytes;
+        this.direct = direct;
+        this.free = (ConcurrentLinkedQueue<ByteBuffer>[]) new ConcurrentLinkedQueue<?>[SIZE_CLASSES.length];
+        for (int i = 0; i < free.length; i++) {
+            free[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * @param sizeHint expected number of bytes
+     * @return stream writing into buffers of this pool
+     */
+    Output output(long sizeHint) {
+        return new Output(sizeClass(sizeHint));
+    }
+
+    private static int sizeClass(long size) {
+        for (int i = 0; i < SIZE_CLASSES.length; i++) {
+            if (size <= SIZE_CLASSES[i]) {
+                return i;
+            }
+        }
+        return SIZE_CLASSES.length - 1;
+    }
+
+    private ByteBuffer acquire(int sizeClass) {
+        acquired.increment();
+        ByteBuffer buffer = free[sizeClass].poll();
+        int capacity = SIZE_CLASSES[sizeClass];
+        inUseBytes.addAndGet(capacity);
+        if (buffer != null) {
+            pooledBytes.addAndGet(-capacity);
+            reused.increment();
+            return buffer;
+        }
+        allocatedBytes.add(capacity);
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    /**
+     * Returns buffers to the pool.
+     *
+     * @param buffers buffers acquired from this pool
+     * @param reuse   false if the buffers may still be read, e.g. by an abandoned request, so must not be reused
+     */
+    void release(List<ByteBuffer> buffers, boolean reuse) {
+        for (ByteBuffer buffer : buffers) {
+            int capacity = buffer.capacity();
+            inUseBytes.addAndGet(-capacity);
+            if (reuse && pooledBytes.addAndGet(capacity) <= maxPooledBytes) {
+                buffer.clear();
+                free[sizeClass(capacity)].offer(buffer);
+            } else {
+                if (reuse) {
+                    pooledBytes.addAndGet(-capacity);
+                }
+                discarded.increment();
+            }
+        }
+    }
+
+    /**
+     * @return number of buffers handed out
+     */
+    public long getAcquired() {
+        return acquired.sum();
+    }
+
+    /**
+     * @return number of buffers handed out from the pool instead of being allocated
+     */
+    public long getReused() {
+        return reused.sum();
+    }
+
+    /**
+     * @return total capacity of all buffers allocated by the pool
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    /**
+     * @return number of released buffers dropped because the pool was full or they could still be read
+     */
+    public long getDiscarded() {
+        return discarded.sum();
+    }
+
+    /**
+     * @return total capacity of idle buffers kept for reuse
+     */
+    public long getPooledBytes() {
+        return pooledBytes.get();
+    }
+
+    /**
+     * @return total capacity of buffers held by requests being sent
+     */
+    public long getInUseBytes() {
+        return inUseBytes.get();
+    }
+
+    /**
+     * @return share of buffers handed out from the pool, between 0 and 1
+     */
+    public double getHitRate() {
+        long acquired = getAcquired();
+        return acquired == 0 ? 0 : (double) getReused() / acquired;
+    }
+
+    @Override
+    public String toString() {
+        return "BufferPool(acquired=" + getAcquired() + ", reused=" + getReused() + ", allocatedBytes=" + getAllocatedBytes()
+                + ", discarded=" + getDiscarded() + ", pooledBytes=" + getPooledBytes() + ", inUseBytes=" + getInUseBytes() + ")";
+    }
+
+    /**
+     * Stream filling a chain of pooled buffers, each one size class larger than the previous one.
+     */
+    final class Output extends OutputStream {
+
+        private final List<ByteBuffer> buffers = new ArrayList<>();
+
+        private int sizeClass;
+
+        private ByteBuffer current;
+
+        private boolean closed;
+
+        private Output(final int sizeClass) {
+            this.sizeClass = sizeClass;
+        }
+
+        @Override
+        public void write(int b) {
+            ensureRemaining();
+            current.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] bytes, int off, int len) {
+            while (len > 0) {
+                ensureRemaining();
+                int count = Math.min(len, current.remaining());
+                current.put(bytes, off, count);
+                off += count;
+                len -= count;
+            }
+        }
+
+        private void ensureRemaining() {
+            if (closed) {
+                throw new IllegalStateException("Output is closed");
+            }
+            if (current == null || !current.hasRemaining()) {
+                if (current != null) {
+                    sizeClass = Math.min(sizeClass + 1, SIZE_CLASSES.length - 1);
+                }
+                current = acquire(sizeClass);
+                buffers.add(current);
+            }
+        }
+
+        /**
+         * @return body reading the written bytes, which owns the buffers from now on
+         */
+        PooledRequestBody toBody() {
+            closed = true;
+            List<ByteBuffer> content = new ArrayList<>(buffers.size());
+            for (ByteBuffer buffer : buffers) {
+                content.add(buffer.flip());
+            }
+            return new PooledRequestBody(BufferPool.this, content);
+        }
+
+        /**
+         * Returns the buffers, e.g. when serialization failed.
+         */
+        void discard() {
+            closed = true;
+            release(buffers, true);
+            buffers.clear();
+        }
+    }
+}
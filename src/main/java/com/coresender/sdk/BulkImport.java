@@ -0,0 +1,807 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.Email.Address;
+import com.coresender.sdk.data.EmailTemplate;
+import com.coresender.sdk.data.JsonCodec;
+import com.coresender.sdk.data.SendEmailResponse;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import kong.unirest.HttpResponse;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Sends an email to every row of a CSV or JSON Lines file, in constant memory however many rows the file has.
+ * <p>
+ * The file is read through a memory-mapped window (64 MiB by default) and every row is turned into an email by
+ * mapping its columns to email fields or template variables, on top of fixed defaults. Emails are sent in batches
+ * of {@code batchSize}, with at most {@code maxInFlight} batches being sent at once, so the heap holds only those.
+ * <p>
+ * With a checkpoint file, the offset of the first row not sent yet is saved after every sent batch, by replacing
+ * the file atomically. Running the import again resumes from there, so an interrupted or failed import sends only
+ * the rest of the file. Batches that were being sent when the import stopped are sent again; set
+ * {@code customIdUnique} with a custom id column, or a {@link DuplicateFilter}, to have such duplicates rejected.
+ * <p>
+ * Rows that can't be turned into an email, e.g. without a recipient or with a malformed quoted field, are skipped
+ * and counted.
+ */
+public final class BulkImport {
+
+    private static final Logger log = getLogger(BulkImport.class);
+
+    private static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Format of the rows of a file.
+     */
+    public enum Format {
+        /**
+         * RFC 4180 comma separated values, with a header row naming the columns.
+         */
+        CSV,
+        /**
+         * One flat JSON object per line, keys naming the columns.
+         */
+        JSONL
+    }
+
+    /**
+     * Email field a column can be mapped to.
+     */
+    public enum Field {
+        TO_EMAIL, TO_NAME, FROM_EMAIL, FROM_NAME, REPLY_TO_EMAIL, REPLY_TO_NAME, SUBJECT, BODY_TEXT, BODY_HTML, CUSTOM_ID, LIST_ID, LIST_UNSUBSCRIBE
+    }
+
+    private static final Field[] FIELDS = Field.values();
+
+    private final Path file;
+
+    private final Format format;
+
+    private final byte delimiter;
+
+    private final Map<String, int[]> columns;
+
+    private final List<String> variables;
+
+    private final EmailTemplate template;
+
+    private final Consumer<Email.EmailBuilder> defaults;
+
+    private final int batchSize;
+
+    private final int maxInFlight;
+
+    private final Path checkpoint;
+
+    private final Consumer<SendEmailResponse.Data> results;
+
+    private final int windowSize;
+
+    private BulkImport(final BulkImportBuilder builder) {
+        if (builder.file == null) {
+            throw new IllegalArgumentException("file is marked non-null but is null");
+        }
+        if (builder.columns.isEmpty()) {
+            throw new IllegalArgumentException("At least one column must be mapped");
+        }
+        if (!builder.variables.isEmpty() && builder.template == null) {
+            throw new IllegalArgumentException("Template variables are mapped without a template");
+        }
+        this.file = builder.file;
+        this.format = builder.format != null ? builder.format : formatOf(builder.file);
+        this.delimiter = (byte) builder.delimiter;
+        this.variables = List.copyOf(builder.variables);
+        this.template = builder.template;
+        this.defaults = builder.defaults;
+        this.batchSize = builder.batchSize;
+        this.maxInFlight = builder.maxInFlight;
+        this.checkpoint = builder.checkpoint;
+        this.results = builder.results;
+        this.windowSize = builder.windowSize;
+        this.columns = new HashMap<>();
+        builder.columns.forEach((column, targets) -> this.columns.put(column, targets.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    /**
+     * Creates BulkImportBuilder instance.
+     *
+     * @return BulkImportBuilder object
+     */
+    public static BulkImportBuilder builder() {
+        return new BulkImportBuilder();
+    }
+
+    private static Format formatOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".jsonl") || name.endsWith(".ndjson") ? Format.JSONL : Format.CSV;
+    }
+
+    /**
+     * Sends the file, or its rest after the offset in the checkpoint file, and waits until every batch is sent.
+     *
+     * @param coresender client to send the emails with
+     * @return summary of the rows sent by this run
+     * @throws IOException          if the file can't be read or a batch failed, after the checkpoint is saved
+     * @throws SendEmailException   if the API answered a batch with an error, after the checkpoint is saved
+     * @throws InterruptedException if interrupted while waiting for a batch, after the checkpoint is saved
+     */
+    public Result run(Coresender coresender) throws IOException, InterruptedException {
+        if (coresender == null) {
+            throw new IllegalArgumentException("coresender is marked non-null but is null");
+        }
+        long[] saved = readCheckpoint();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             RecordReader reader = new RecordReader(channel, windowSize)) {
+            Run run = new Run(coresender, saved[0], saved[1]);
+            try {
+                run.read(reader);
+            } catch (IOException | InterruptedException | RuntimeException exception) {
+                try {
+                    run.finish();
+                } catch (Exception suppressed) {
+                    exception.addSuppressed(suppressed);
+                }
+                throw exception;
+            }
+            run.finish();
+            return run.result();
+        }
+    }
+
+    private long[] readCheckpoint() throws IOException {
+        if (checkpoint == null || !Files.exists(checkpoint)) {
+            return new long[]{0, 0};
+        }
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(checkpoint)) {
+            properties.load(input);
+        }
+        try {
+            return new long[]{Long.parseLong(properties.getProperty("offset", "0")), Long.parseLong(properties.getProperty("rows", "0"))};
+        } catch (NumberFormatException exception) {
+            throw new IOException("Malformed checkpoint file " + checkpoint, exception);
+        }
+    }
+
+    private void writeCheckpoint(long offset, long rows) throws IOException {
+        Path temporary = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        Files.write(temporary, ("offset=" + offset + "\nrows=" + rows + "\n").getBytes(StandardCharsets.ISO_8859_1));
+        try {
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(temporary, checkpoint, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private Email toEmail(String[] values) {
+        Email.EmailBuilder builder = Email.builder();
+        if (defaults != null) {
+            defaults.accept(builder);
+        }
+        if (value(values, Field.TO_EMAIL) != null) {
+            builder.to(List.of(Address.of(value(values, Field.TO_EMAIL), value(values, Field.TO_NAME))));
+        }
+        if (value(values, Field.FROM_EMAIL) != null) {
+            builder.from(Address.of(value(values, Field.FROM_EMAIL), value(values, Field.FROM_NAME)));
+        }
+        if (value(values, Field.REPLY_TO_EMAIL) != null) {
+            builder.replyTo(List.of(Address.of(value(values, Field.REPLY_TO_EMAIL), value(values, Field.REPLY_TO_NAME))));
+        }
+        if (value(values, Field.SUBJECT) != null) {
+            builder.subject(value(values, Field.SUBJECT));
+        }
+        if (value(values, Field.BODY_TEXT) != null) {
+            builder.bodyText(value(values, Field.BODY_TEXT));
+        }
+        if (value(values, Field.BODY_HTML) != null) {
+            builder.bodyHtml(value(values, Field.BODY_HTML));
+        }
+        if (value(values, Field.CUSTOM_ID) != null) {
+            builder.customId(value(values, Field.CUSTOM_ID));
+        }
+        if (value(values, Field.LIST_ID) != null) {
+            builder.listId(value(values, Field.LIST_ID));
+        }
+        if (value(values, Field.LIST_UNSUBSCRIBE) != null) {
+            builder.listUnsubscribe(value(values, Field.LIST_UNSUBSCRIBE));
+        }
+        if (template != null) {
+            Map<String, String> bound = new HashMap<>();
+            for (int i = 0; i < variables.size(); i++) {
+                bound.put(variables.get(i), values[FIELDS.length + i]);
+            }
+            builder.template(template, bound);
+        }
+        return builder.build();
+    }
+
+    private static String value(String[] values, Field field) {
+        return values[field.ordinal()];
+    }
+
+    @Override
+    public String toString() {
+        return "BulkImport(file=" + this.file + ", format=" + this.format + ", columns=" + this.columns.keySet() + ", batchSize=" + this.batchSize
+                + ", maxInFlight=" + this.maxInFlight + ", checkpoint=" + this.checkpoint + ")";
+    }
+
+    /**
+     * State of a single run: batches being sent, in the order of the file, and the offset up to which all rows
+     * were sent.
+     */
+    private final class Run {
+
+        private final Coresender coresender;
+
+        private final long resumedFrom;
+
+        private final long previousRows;
+
+        private final Semaphore inFlight = new Semaphore(maxInFlight);
+
+        private final Deque<Batch> batches = new ArrayDeque<>();
+
+        private final String[] values = new String[FIELDS.length + variables.size()];
+
+        private long sent;
+
+        private long rows;
+
+        private long emails;
+
+        private long skipped;
+
+        private long savedOffset;
+
+        private Batch failed;
+
+        private boolean warned;
+
+        private volatile boolean stopped;
+
+        Run(final Coresender coresender, final long resumedFrom, final long previousRows) {
+            this.coresender = coresender;
+            this.resumedFrom = resumedFrom;
+            this.previousRows = previousRows;
+            this.sent = resumedFrom;
+            this.savedOffset = resumedFrom;
+        }
+
+        void read(RecordReader reader) throws IOException, InterruptedException {
+            int[][] byIndex = null;
+            List<String> fields = new ArrayList<>();
+            reader.skipByteOrderMark();
+            if (format == Format.CSV) {
+                if (!reader.readCsv(delimiter, fields)) {
+                    return;
+                }
+                if (reader.getMalformed() != null) {
+                    throw new IOException("Malformed header of " + file + ": " + reader.getMalformed());
+                }
+                byIndex = header(fields);
+            }
+            if (resumedFrom > reader.position()) {
+                reader.seek(resumedFrom);
+            }
+            synchronized (this) {
+                sent = reader.position();
+            }
+            Batch batch = new Batch(reader.position());
+            while (!stopped) {
+                long offset = reader.position();
+                Arrays.fill(values, null);
+                if (format == Format.CSV) {
+                    if (!reader.readCsv(delimiter, fields)) {
+                        break;
+                    }
+                    if (reader.getMalformed() != null) {
+                        batch.rows++;
+                        batch.skipped++;
+                        skip(offset, reader.getMalformed());
+                        continue;
+                    }
+                    for (int i = 0; i < fields.size() && i < byIndex.length; i++) {
+                        set(byIndex[i], fields.get(i));
+                    }
+                } else {
+                    if (!reader.readLine()) {
+                        break;
+                    }
+                    if (!parseLine(reader, offset)) {
+                        batch.rows++;
+                        batch.skipped++;
+                        continue;
+                    }
+                }
+                batch.rows++;
+                try {
+                    batch.emails.add(toEmail(values));
+                } catch (RuntimeException exception) {
+                    batch.skipped++;
+                    skip(offset, exception.getMessage());
+                    continue;
+                }
+                if (batch.emails.size() == batchSize) {
+                    batch.end = reader.position();
+                    submit(batch);
+                    batch = new Batch(batch.end);
+                }
+            }
+            if (!stopped && batch.rows > 0) {
+                batch.end = reader.position();
+                submit(batch);
+            }
+        }
+
+        private int[][] header(List<String> names) throws IOException {
+            int[][] byIndex = new int[names.size()][];
+            for (String column : columns.keySet()) {
+                int index = names.indexOf(column);
+                if (index < 0) {
+                    throw new IOException("Column " + column + " not found in the header of " + file);
+                }
+                byIndex[index] = columns.get(column);
+            }
+            return byIndex;
+        }
+
+        private boolean parseLine(RecordReader reader, long offset) {
+            try (JsonParser parser = JsonCodec.getFactory().createParser(reader.getRecord(), 0, reader.getLength())) {
+                if (parser.nextToken() != JsonToken.START_OBJECT) {
+                    skip(offset, "not a JSON object");
+                    return false;
+                }
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    int[] targets = columns.get(parser.getCurrentName());
+                    JsonToken token = parser.nextToken();
+                    if (token.isStructStart()) {
+                        parser.skipChildren();
+                    } else if (targets != null && token != JsonToken.VALUE_NULL) {
+                        set(targets, parser.getText());
+                    }
+                }
+                return true;
+            } catch (JsonProcessingException exception) {
+                skip(offset, exception.getOriginalMessage());
+                return false;
+            } catch (IOException exception) {
+                skip(offset, exception.getMessage());
+                return false;
+            }
+        }
+
+        private void set(int[] targets, String value) {
+            if (targets == null || value.isEmpty()) {
+                return;
+            }
+            for (int target : targets) {
+                values[target] = value;
+            }
+        }
+
+        private void skip(long offset, String reason) {
+            if (!warned) {
+                warned = true;
+                log.warn("Skipped row at offset {} of {}: {}", offset, file, reason);
+            } else {
+                log.debug("Skipped row at offset {} of {}: {}", offset, file, reason);
+            }
+        }
+
+        private void submit(Batch batch) throws IOException, InterruptedException {
+            inFlight.acquire();
+            if (stopped) {
+                // a batch failed while waiting, the rest is left for the next run
+                inFlight.release();
+                return;
+            }
+            synchronized (this) {
+                batches.addLast(batch);
+            }
+            batch.size = batch.emails.size();
+            if (batch.emails.isEmpty()) {
+                complete(batch, null, null);
+            } else {
+                coresender.sendBatchAsync(batch.emails, results).whenComplete((response, throwable) -> complete(batch, response, throwable));
+            }
+            save();
+        }
+
+        private void complete(Batch batch, HttpResponse<SendEmailResponse> response, Throwable throwable) {
+            boolean success = throwable == null && (response == null || response.isSuccess());
+            synchronized (this) {
+                batch.response = response;
+                batch.throwable = throwable;
+                batch.done = true;
+                batch.emails = null;
+                if (!success) {
+                    stopped = true;
+                }
+                while (failed == null && !batches.isEmpty() && batches.peekFirst().done) {
+                    Batch head = batches.peekFirst();
+                    if (head.throwable != null || head.response != null && !head.response.isSuccess()) {
+                        failed = head;
+                        break;
+                    }
+                    batches.removeFirst();
+                    sent = head.end;
+                    rows += head.rows;
+                    emails += head.size;
+                    skipped += head.skipped;
+                }
+            }
+            inFlight.release();
+        }
+
+        /**
+         * Saves the checkpoint if more rows were sent since it was saved last.
+         */
+        private void save() throws IOException {
+            long offset;
+            long total;
+            synchronized (this) {
+                offset = sent;
+                total = previousRows + rows;
+            }
+            if (checkpoint != null && offset != savedOffset) {
+                writeCheckpoint(offset, total);
+                savedOffset = offset;
+            }
+        }
+
+        /**
+         * Waits for the batches being sent, saves the checkpoint and reports the first failed batch.
+         */
+        void finish() throws IOException, InterruptedException {
+            stopped = true;
+            inFlight.acquire(maxInFlight);
+            inFlight.release(maxInFlight);
+            save();
+            Batch batch;
+            synchronized (this) {
+                batch = failed;
+            }
+            if (batch == null) {
+                return;
+            }
+            if (batch.throwable != null) {
+                throw new IOException("Sending rows from offset " + batch.start + " of " + file + " failed", batch.throwable);
+            }
+            throw new SendEmailException("Sending rows from offset " + batch.start + " of " + file + " failed with status " + batch.response.getStatus(),
+                                         batch.response);
+        }
+
+        synchronized Result result() {
+            return new Result(resumedFrom, sent, rows, emails, skipped);
+        }
+    }
+
+    /**
+     * Rows from {@code start} up to {@code end} of the file, and the emails made of them.
+     */
+    private static final class Batch {
+
+        private final long start;
+
+        private long end;
+
+        private int rows;
+
+        private int skipped;
+
+        private int size;
+
+        private List<Email> emails = new ArrayList<>();
+
+        private boolean done;
+
+        private HttpResponse<SendEmailResponse> response;
+
+        private Throwable throwable;
+
+        Batch(final long start) {
+            this.start = start;
+        }
+    }
+
+    /**
+     * Summary of a run of an import.
+     */
+    public static final class Result {
+
+        private final long resumedFrom;
+
+        private final long offset;
+
+        private final long rows;
+
+        private final long emails;
+
+        private final long skipped;
+
+        Result(final long resumedFrom, final long offset, final long rows, final long emails, final long skipped) {
+            this.resumedFrom = resumedFrom;
+            this.offset = offset;
+            this.rows = rows;
+            this.emails = emails;
+            this.skipped = skipped;
+        }
+
+        /**
+         * @return offset the run started from, 0 unless resumed from a checkpoint
+         */
+        public long getResumedFrom() {
+            return this.resumedFrom;
+        }
+
+        /**
+         * @return offset up to which all rows were sent, the file size once the whole file is sent
+         */
+        public long getOffset() {
+            return this.offset;
+        }
+
+        /**
+         * @return number of rows sent by this run, skipped ones included
+         */
+        public long getRows() {
+            return this.rows;
+        }
+
+        /**
+         * @return number of emails sent by this run, including those the API rejected
+         */
+        public long getEmails() {
+            return this.emails;
+        }
+
+        /**
+         * @return number of rows skipped by this run
+         */
+        public long getSkipped() {
+            return this.skipped;
+        }
+
+        @Override
+        public String toString() {
+            return "BulkImport.Result(resumedFrom=" + this.resumedFrom + ", offset=" + this.offset + ", rows=" + this.rows + ", emails=" + this.emails
+                    + ", skipped=" + this.skipped + ")";
+        }
+    }
+
+    /**
+     * BulkImport builder for convenient setup.
+     */
+    public static class BulkImportBuilder {
+
+        private final Map<String, List<Integer>> columns = new LinkedHashMap<>();
+
+        private final List<String> variables = new ArrayList<>();
+
+        private Path file;
+
+        private Format format;
+
+        private char delimiter = ',';
+
+        private EmailTemplate template;
+
+        private Consumer<Email.EmailBuilder> defaults;
+
+        private int batchSize = 100;
+
+        private int maxInFlight = 4;
+
+        private Path checkpoint;
+
+        private Consumer<SendEmailResponse.Data> results;
+
+        private int windowSize = DEFAULT_WINDOW_SIZE;
+
+        BulkImportBuilder() {
+        }
+
+        /**
+         * Sets the file to send.
+         *
+         * @param file CSV or JSON Lines file
+         * @return builder object
+         */
+        public BulkImportBuilder file(final Path file) {
+            if (file == null) {
+                throw new IllegalArgumentException("file is marked non-null but is null");
+            }
+            this.file = file;
+            return this;
+        }
+
+        /**
+         * Sets the format of the file. Defaults to JSON Lines for files ending with {@code .jsonl} or {@code .ndjson},
+         * CSV otherwise.
+         *
+         * @param format format of the rows
+         * @return builder object
+         */
+        public BulkImportBuilder format(final Format format) {
+            this.format = format;
+            return this;
+        }
+
+        /**
+         * Sets the field delimiter of a CSV file. Defaults to a comma.
+         *
+         * @param delimiter ASCII delimiter, e.g. a semicolon or a tab
+         * @return builder object
+         */
+        public BulkImportBuilder delimiter(final char delimiter) {
+            if (delimiter > 127 || delimiter == '"' || delimiter == '\r' || delimiter == '\n') {
+                throw new IllegalArgumentException("delimiter must be an ASCII character other than a quote or a line break");
+            }
+            this.delimiter = delimiter;
+            return this;
+        }
+
+        /**
+         * Maps a column to an email field. Empty values leave the field as set by the defaults.
+         *
+         * @param column name of the column in the CSV header or key in the JSON objects
+         * @param field  email field
+         * @return builder object
+         */
+        public BulkImportBuilder column(final String column, final Field field) {
+            if (column == null) {
+                throw new IllegalArgumentException("column is marked non-null but is null");
+            }
+            if (field == null) {
+                throw new IllegalArgumentException("field is marked non-null but is null");
+            }
+            this.columns.computeIfAbsent(column, ignored -> new ArrayList<>()).add(field.ordinal());
+            return this;
+        }
+
+        /**
+         * Maps a column to a merge variable of the template.
+         *
+         * @param column   name of the column in the CSV header or key in the JSON objects
+         * @param variable name of the merge variable
+         * @return builder object
+         */
+        public BulkImportBuilder variable(final String column, final String variable) {
+            if (column == null) {
+                throw new IllegalArgumentException("column is marked non-null but is null");
+            }
+            if (variable == null) {
+                throw new IllegalArgumentException("variable is marked non-null but is null");
+            }
+            this.columns.computeIfAbsent(column, ignored -> new ArrayList<>()).add(FIELDS.length + this.variables.size());
+            this.variables.add(variable);
+            return this;
+        }
+
+        /**
+         * Sets the template every email is rendered from, with the values of the columns mapped by
+         * {@link #variable(String, String)}. Rows without a value of any of its variables are skipped.
+         *
+         * @param template compiled template
+         * @return builder object
+         */
+        public BulkImportBuilder template(final EmailTemplate template) {
+            this.template = template;
+            return this;
+        }
+
+        /**
+         * Sets fields shared by all emails, e.g. the sender. Called on a new email builder for every row, before
+         * the mapped columns are set.
+         *
+         * @param defaults sets fixed fields of an email
+         * @return builder object
+         */
+        public BulkImportBuilder defaults(final Consumer<Email.EmailBuilder> defaults) {
+            this.defaults = defaults;
+            return this;
+        }
+
+        /**
+         * Sets the number of emails sent in one batch. Defaults to 100.
+         *
+         * @param batchSize emails per batch
+         * @return builder object
+         */
+        public BulkImportBuilder batchSize(final int batchSize) {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("batchSize must be positive");
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets the number of batches being sent at once. Reading the file waits while that many are sent, so at
+         * most {@code batchSize * maxInFlight} emails are held in memory. Defaults to 4.
+         *
+         * @param maxInFlight number of batches
+         * @return builder object
+         */
+        public BulkImportBuilder maxInFlight(final int maxInFlight) {
+            if (maxInFlight < 1) {
+                throw new IllegalArgumentException("maxInFlight must be positive");
+            }
+            this.maxInFlight = maxInFlight;
+            return this;
+        }
+
+        /**
+         * Sets the file keeping the offset of the first row not sent yet. A run resumes from it, and updates it
+         * after every sent batch. Delete it to send the file from the start again. Not set by default.
+         *
+         * @param checkpoint checkpoint file
+         * @return builder object
+         */
+        public BulkImportBuilder checkpoint(final Path checkpoint) {
+            this.checkpoint = checkpoint;
+            return this;
+        }
+
+        /**
+         * Sets a consumer of every email's processing information, streamed like in
+         * {@link Coresender#sendBatchAsync(java.util.Collection, Consumer)}. It is called on HTTP client threads,
+         * possibly for several batches at once, and must not block. Not set by default.
+         *
+         * @param results consumer of processing information
+         * @return builder object
+         */
+        public BulkImportBuilder results(final Consumer<SendEmailResponse.Data> results) {
+            this.results = results;
+            return this;
+        }
+
+        /**
+         * Sets the size of the part of the file mapped into memory at once. Defaults to 64 MiB.
+         *
+         * @param windowSize window size in bytes
+         * @return builder object
+         */
+        public BulkImportBuilder windowSize(final int windowSize) {
+            if (windowSize < 1) {
+                throw new IllegalArgumentException("windowSize must be positive");
+            }
+            this.windowSize = windowSize;
+            return this;
+        }
+
+        /**
+         * Creates BulkImport instance.
+         *
+         * @return BulkImport object
+         */
+        public BulkImport build() {
+            return new BulkImport(this);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.JsonCodec;
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.GenericType;
+import kong.unirest.ObjectMapper;
+import kong.unirest.UnirestException;
+
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Unirest object mapper using {@link JsonCodec} for email batches and send responses,
+ * and falling back to Jackson data binding for anything else.
+ */
+class CodecObjectMapper implements ObjectMapper {
+
+    private final ObjectMapper fallback;
+
+    CodecObjectMapper(final ObjectMapper fallback) {
+        this.fallback = fallback;
+    }
+
+    @Override
+    public <T> T readValue(String value, Class<T> valueType) {
+        if (valueType != SendEmailResponse.class) {
+            return fallback.readValue(value, valueType);
+        }
+        try {
+            return valueType.cast(JsonCodec.readResponse(value));
+        } catch (IOException exception) {
+            throw new UnirestException(exception);
+        }
+    }
+
+    @Override
+    public <T> T readValue(String value, GenericType<T> genericType) {
+        return fallback.readValue(value, genericType);
+    }
+
+    @Override
+    public String writeValue(Object value) {
+        if (!isEmailCollection(value)) {
+            return fallback.writeValue(value);
+        }
+        @SuppressWarnings("unchecked")
+        Collection<Email> emails = (Collection<Email>) value;
+        try {
+            return JsonCodec.writeEmails(emails);
+        } catch (IOException exception) {
+            throw new UnirestException(exception);
+        }
+    }
+
+    private static boolean isEmailCollection(Object value) {
+        if (!(value instanceof Collection)) {
+            return false;
+        }
+        for (Object element : (Collection<?>) value) {
+            if (!(element instanceof Email)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,161 @@
+package com.coresender.sdk;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Adaptive limit of concurrent requests.
+ * <p>
+ * The limit follows the TCP Vegas idea: the lowest latency seen so far is taken as the latency of an idle API,
+ * and {@code limit * (1 - minLatency / latency)} estimates how many requests are queued on the API side.
+ * While that estimate stays low the limit grows by one, once it rises the limit shrinks by one.
+ * Throttled (429) and failed (5xx or no response) requests shrink the limit multiplicatively, at most once per
+ * minimum latency. Latency is the API processing time reported in the response when available, round trip time
+ * otherwise.
+ * <p>
+ * Requests over the limit wait in a queue. Use {@link #getLimit()}, {@link #getInFlight()} and
+ * {@link #getQueueDepth()} for monitoring.
+ */
+public class ConcurrencyLimiter {
+
+    private static final int ALPHA = 3;
+
+    private static final int BETA = 6;
+
+    private static final double BACKOFF_RATIO = 0.75;
+
+    private static final int MIN_LATENCY_RESET_SAMPLES = 1000;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final Queue<CompletableFuture<Void>> waiting = new ArrayDeque<>();
+
+    private int limit;
+
+    private int inFlight;
+
+    private long minLatency = Long.MAX_VALUE;
+
+    private int samples;
+
+    private long lastDecrease;
+
+    /**
+     * Creates limiter starting at 10 concurrent requests, adapting between 1 and 200.
+     */
+    public ConcurrencyLimiter() {
+        this(10, 1, 200);
+    }
+
+    /**
+     * @param initialLimit starting number of concurrent requests
+     * @param minLimit     lowest number of concurrent requests
+     * @param maxLimit     highest number of concurrent requests
+     */
+    public ConcurrencyLimiter(final int initialLimit, final int minLimit, final int maxLimit) {
+        if (minLimit < 1) {
+            throw new IllegalArgumentException("minLimit must be positive");
+        }
+        if (maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("initialLimit must be between minLimit and maxLimit");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        // as if the limit was shrunk ages ago, so the first overload shrinks it whatever the clock origin is
+        this.lastDecrease = System.nanoTime() - Long.MAX_VALUE / 2;
+    }
+
+    /**
+     * @return current number of allowed concurrent requests
+     */
+    public synchronized int getLimit() {
+        return this.limit;
+    }
+
+    /**
+     * @return number of requests being sent
+     */
+    public synchronized int getInFlight() {
+        return this.inFlight;
+    }
+
+    /**
+     * @return number of requests waiting for the limit
+     */
+    public synchronized int getQueueDepth() {
+        return this.waiting.size();
+    }
+
+    /**
+     * Takes a slot for a request.
+     *
+     * @return future completed once the request may be sent; cancel it to give up waiting
+     */
+    CompletableFuture<Void> acquire() {
+        synchronized (this) {
+            if (inFlight < limit && waiting.isEmpty()) {
+                inFlight++;
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Void> slot = new CompletableFuture<>();
+            waiting.add(slot);
+            return slot;
+        }
+    }
+
+    /**
+     * Returns a slot after a request completed and adjusts the limit.
+     *
+     * @param latencyNanos observed latency of the request
+     * @param overloaded   true if the request was throttled or failed
+     */
+    void release(long latencyNanos, boolean overloaded) {
+        Queue<CompletableFuture<Void>> ready = new ArrayDeque<>();
+        synchronized (this) {
+            inFlight--;
+            if (overloaded) {
+                long now = System.nanoTime();
+                if (minLatency == Long.MAX_VALUE || now - lastDecrease >= minLatency) {
+                    lastDecrease = now;
+                    limit = Math.max(minLimit, (int) (limit * BACKOFF_RATIO));
+                }
+            } else if (latencyNanos > 0) {
+                adjust(latencyNanos);
+            }
+            while (inFlight < limit && !waiting.isEmpty()) {
+                ready.add(waiting.poll());
+                inFlight++;
+            }
+        }
+        // waiters continue outside of the lock, as completing them may start another request right away
+        for (CompletableFuture<Void> slot : ready) {
+            if (!slot.complete(null)) {
+                release(0, false);
+            }
+        }
+    }
+
+    private void adjust(long latencyNanos) {
+        if (++samples >= MIN_LATENCY_RESET_SAMPLES) {
+            // forget the old minimum now and then, so the limit follows lasting changes of the API
+            samples = 0;
+            minLatency = latencyNanos;
+        }
+        minLatency = Math.min(minLatency, latencyNanos);
+        double queued = limit * (1 - (double) minLatency / latencyNanos);
+        if (queued < ALPHA && inFlight + 1 >= limit / 2) {
+            limit = Math.min(maxLimit, limit + 1);
+        } else if (queued > BETA) {
+            limit = Math.max(minLimit, limit - 1);
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ConcurrencyLimiter(limit=" + this.limit + ", inFlight=" + this.inFlight + ", queueDepth=" + this.waiting.size() + ")";
+    }
+}
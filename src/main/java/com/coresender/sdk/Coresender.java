@@ -1,28 +1,63 @@
 package com.coresender.sdk;
 
 import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.FragmentCache;
+import com.coresender.sdk.data.JsonCodec;
 import com.coresender.sdk.data.SendEmailResponse;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import kong.unirest.Config;
 import kong.unirest.HttpResponse;
-import kong.unirest.Unirest;
-import kong.unirest.jackson.JacksonObjectMapper;
+import kong.unirest.UnirestException;
+import kong.unirest.UnirestParsingException;
 import org.slf4j.Logger;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Authenticator;
+import java.net.InetSocketAddress;
+import java.net.PasswordAuthentication;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  *
  */
-public class Coresender {
+public class Coresender implements AutoCloseable {
 
     public static final String CORESENDER_SENDING_API_ID = "CORESENDER_SENDING_API_ID";
 
@@ -30,9 +65,21 @@ public class Coresender {
 
     private static final Logger log = getLogger(Coresender.class);
 
-    private static final ObjectMapper mapper = new ObjectMapper();
+    static final ObjectMapper mapper = new ObjectMapper();
 
-    private static final String URL = "https://api.coresender.com/v1/send_email";
+    private static final String DEFAULT_BASE_URL = "https://api.coresender.com";
+
+    private static final String SEND_EMAIL_PATH = "/v1/send_email";
+
+    private static final int DEFAULT_BATCH_MAX_EMAILS = 100;
+
+    private static final long DEFAULT_BATCH_MAX_BYTES = 5 * 1024 * 1024;
+
+    private static final Duration DEFAULT_BATCH_LINGER = Duration.ofMillis(50);
+
+    private static final int DEFAULT_BATCH_PARALLELISM = 4;
+
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
 
     static {
         mapper.setPropertyNamingStrategy(PropertyNamingStrategy.SNAKE_CASE);
@@ -42,31 +89,171 @@ public class Coresender {
         mapper.setSerializationInclusion(Include.NON_NULL);
     }
 
-    private final String accountId;
+    private final String url;
+
+    private final Map<String, String> headers;
+
+    private final Map<String, String> compressedHeaders;
+
+    private final boolean jacksonDataBinding;
+
+    private final long compressionThreshold;
+
+    private final FragmentCache fragmentCache;
+
+    private final BufferPool bufferPool;
+
+    private final Transport transport;
+
+    private final boolean ownedTransport;
+
+    private final Deque<Email> batch = new ConcurrentLinkedDeque<>();
+
+    private final Executor executor;
 
-    private final String apiKey;
+    private final ExecutorService ownedExecutor;
 
-    private final kong.unirest.ObjectMapper unirestMapper = new JacksonObjectMapper(mapper);
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(daemonThreadFactory("coresender-batch-"));
 
-    private final List<Email> batch = new ArrayList<>();
+    private final BatchAccumulator accumulator;
 
-    private Coresender(final String accountId, final String apiKey) {
-        if (accountId == null) {
+    private final int batchMaxEmails;
+
+    private final long batchMaxBytes;
+
+    private final int batchParallelism;
+
+    private final Duration batchLinger;
+
+    private final SendInterceptor[] interceptors;
+
+    private final SendEvents events;
+
+    private final RetryPolicy retryPolicy;
+
+    private final RateLimiter rateLimiter;
+
+    private final boolean rateLimitFailFast;
+
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    private final Outbox outbox;
+
+    private final EmailValidator validator;
+
+    private final DuplicateFilter duplicateFilter;
+
+    private Coresender(final CoresenderBuilder builder) {
+        if (builder.accountId == null) {
             throw new IllegalArgumentException("accountId is marked non-null but is null");
         }
-        if (apiKey == null) {
+        if (builder.apiKey == null) {
             throw new IllegalArgumentException("apiKey is marked non-null but is null");
         }
-        this.accountId = accountId;
-        this.apiKey = apiKey;
+        this.url = (builder.baseUrl != null ? builder.baseUrl : DEFAULT_BASE_URL) + SEND_EMAIL_PATH;
+        String credentials = builder.accountId + ":" + builder.apiKey;
+        this.headers = Map.of("Authorization", "Basic " + Base64.getEncoder().encodeToString(credentials.getBytes(StandardCharsets.UTF_8)),
+                              "Content-Type", "application/json",
+                              "Accept", "application/json");
+        Map<String, String> compressedHeaders = new HashMap<>(this.headers);
+        compressedHeaders.put("Content-Encoding", "gzip");
+        this.compressedHeaders = Map.copyOf(compressedHeaders);
+        this.jacksonDataBinding = builder.jacksonDataBinding;
+        this.fragmentCache = builder.fragmentCache;
+        this.bufferPool = builder.bufferPool;
+        if (!builder.compression) {
+            this.compressionThreshold = Long.MAX_VALUE;
+        } else {
+            this.compressionThreshold = builder.compressionThreshold > 0 ? builder.compressionThreshold : DEFAULT_COMPRESSION_THRESHOLD;
+        }
+        boolean virtualThreads = builder.virtualThreads && VirtualThreads.isSupported();
+        if (builder.virtualThreads && !virtualThreads) {
+            log.warn("Virtual threads require Java 21, using platform threads");
+        }
+        if (builder.executor == null) {
+            this.ownedExecutor = virtualThreads ? VirtualThreads.newThreadPerTaskExecutor("coresender-async-")
+                                                : Executors.newCachedThreadPool(daemonThreadFactory("coresender-async-"));
+            this.executor = this.ownedExecutor;
+        } else {
+            this.ownedExecutor = null;
+            this.executor = builder.executor;
+        }
+        if (builder.transport != null) {
+            this.transport = builder.transport;
+            this.ownedTransport = false;
+        } else {
+            // the Apache client behind Unirest blocks inside synchronized blocks, which pins virtual threads
+            this.transport = builder.http2 || virtualThreads ? httpClientTransport(builder, virtualThreads, this.executor) : new UnirestTransport(unirestConfig(builder));
+            this.ownedTransport = true;
+        }
+        this.batchMaxEmails = builder.batchMaxEmails > 0 ? builder.batchMaxEmails : DEFAULT_BATCH_MAX_EMAILS;
+        this.batchMaxBytes = builder.batchMaxBytes > 0 ? builder.batchMaxBytes : DEFAULT_BATCH_MAX_BYTES;
+        this.batchParallelism = builder.batchParallelism > 0 ? builder.batchParallelism : DEFAULT_BATCH_PARALLELISM;
+        this.batchLinger = builder.batchLinger != null ? builder.batchLinger : DEFAULT_BATCH_LINGER;
+        this.accumulator = new BatchAccumulator(batchMaxEmails, batchMaxBytes, batchLinger, scheduler, emails -> sendRequestAsync(emails, null));
+        this.retryPolicy = builder.retryPolicy != null ? builder.retryPolicy : RetryPolicy.none();
+        this.rateLimiter = builder.rateLimiter;
+        this.rateLimitFailFast = builder.rateLimitFailFast;
+        this.concurrencyLimiter = builder.concurrencyLimiter;
+        this.outbox = builder.outbox;
+        this.validator = builder.validator;
+        this.duplicateFilter = builder.duplicateFilter;
+        this.interceptors = builder.interceptors == null ? new SendInterceptor[0] : builder.interceptors.toArray(new SendInterceptor[0]);
+        this.events = new SendEvents(builder.eventListeners);
     }
 
-    private static String prettyPrint(Object object) {
-        try {
-            return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(object);
-        } catch (JsonProcessingException exception) {
-            throw new IllegalArgumentException(exception.getCause());
+    private static Config unirestConfig(CoresenderBuilder builder) {
+        Config config = new Config().concurrency(builder.maxConnections > 0 ? builder.maxConnections : Config.DEFAULT_MAX_CONNECTIONS,
+                                                 builder.maxConnectionsPerRoute > 0 ? builder.maxConnectionsPerRoute : Config.DEFAULT_MAX_PER_ROUTE);
+        if (builder.connectTimeout != null) {
+            config.connectTimeout(Math.toIntExact(builder.connectTimeout.toMillis()));
+        }
+        if (builder.socketTimeout != null) {
+            config.socketTimeout(Math.toIntExact(builder.socketTimeout.toMillis()));
+        }
+        if (builder.connectionTtl != null) {
+            config.connectionTTL(builder.connectionTtl);
+        }
+        if (builder.proxyHost != null && builder.proxyUsername != null) {
+            config.proxy(builder.proxyHost, builder.proxyPort, builder.proxyUsername, builder.proxyPassword);
+        } else if (builder.proxyHost != null) {
+            config.proxy(builder.proxyHost, builder.proxyPort);
+        }
+        return config;
+    }
+
+    private static Transport httpClientTransport(CoresenderBuilder builder, boolean virtualThreads, Executor readExecutor) {
+        HttpClient.Builder client = HttpClient.newBuilder()
+                                              .version(builder.http2 ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                                              .connectTimeout(builder.connectTimeout != null ? builder.connectTimeout : Duration.ofSeconds(10));
+        ExecutorService executor = virtualThreads ? VirtualThreads.newThreadPerTaskExecutor("coresender-http-") : null;
+        if (executor != null) {
+            client.executor(executor);
         }
+        if (builder.proxyHost != null) {
+            client.proxy(ProxySelector.of(new InetSocketAddress(builder.proxyHost, builder.proxyPort)));
+        }
+        if (builder.proxyHost != null && builder.proxyUsername != null) {
+            PasswordAuthentication authentication = new PasswordAuthentication(builder.proxyUsername,
+                                                                               builder.proxyPassword == null ? new char[0] : builder.proxyPassword.toCharArray());
+            client.authenticator(new Authenticator() {
+                @Override
+                protected PasswordAuthentication getPasswordAuthentication() {
+                    return getRequestorType() == RequestorType.PROXY ? authentication : null;
+                }
+            });
+        }
+        return new HttpClientTransport(client.build(), builder.socketTimeout != null ? builder.socketTimeout : Duration.ofSeconds(60), executor,
+                                       executor != null ? executor : readExecutor);
+    }
+
+    static ThreadFactory daemonThreadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
     }
 
     public static CoresenderBuilder builder() {
@@ -74,12 +261,106 @@ public class Coresender {
     }
 
     /**
-     * Adds email to a batch.
+     * Adds email to a batch. Safe to call from many threads.
+     * With an {@link Outbox} configured the email is appended to its journal, and stays there until the API
+     * confirms it, so it's sent again after a crash or a failed request.
      *
      * @param email to be added to batch
      */
     public void addToBatch(Email email) {
-        batch.add(email);
+        if (outbox != null) {
+            outbox.append(email);
+        } else {
+            batch.add(email);
+        }
+    }
+
+    /**
+     * Queues email for automatic batch sending. The batch is sent once it reaches the configured number of emails,
+     * estimated payload size or linger time. Safe to call from many threads.
+     *
+     * @param email to be sent
+     * @return future completed with the email's own processing information
+     */
+    public CompletableFuture<SendEmailResponse.Data> enqueue(Email email) {
+        if (validator != null) {
+            List<SendEmailResponse.Error> errors = validator.validate(email);
+            if (!errors.isEmpty()) {
+                return CompletableFuture.completedFuture(SendEmailResponse.Data.rejected(email.getCustomId(), EmailValidator.REJECTED_CODE, errors));
+            }
+        }
+        String customId = email.getCustomId();
+        if (duplicateFilter == null || customId == null || !email.isCustomIdUnique()) {
+            return accumulator.add(email);
+        }
+        if (!duplicateFilter.claim(customId)) {
+            return CompletableFuture.completedFuture(LocalResults.duplicate(customId));
+        }
+        CompletableFuture<SendEmailResponse.Data> result;
+        try {
+            result = accumulator.add(email);
+        } catch (RuntimeException exception) {
+            duplicateFilter.forget(customId);
+            throw exception;
+        }
+        return result.whenComplete((data, throwable) -> {
+            if (throwable == null && "accepted".equals(data.getStatus())) {
+                duplicateFilter.confirm(customId);
+            } else {
+                duplicateFilter.forget(customId);
+            }
+        });
+    }
+
+    /**
+     * Sends all emails queued with {@link #enqueue(Email)} without waiting for the batch limits.
+     *
+     * @return future completed when the queued emails are processed
+     */
+    public CompletableFuture<Void> flush() {
+        return accumulator.flush();
+    }
+
+    /**
+     * Creates a reactive processor for bulk sending. Subscribe it to a publisher of emails, and subscribe to it
+     * to receive every email's processing information in the order the emails were published. Emails are sent
+     * in batches limited like in {@link #enqueue(Email)}, and only as many emails are requested from the publisher
+     * as fit into {@code batchParallelism} batches not yet delivered to the subscriber. A failed request ends
+     * the stream with its error.
+     *
+     * @return processor accepting a single subscriber
+     */
+    public Flow.Processor<Email, SendEmailResponse.Data> sendProcessor() {
+        return new SendProcessor(batchMaxEmails, batchMaxBytes, batchParallelism, batchLinger, scheduler,
+                                 emails -> screenAsync(emails, null, this::sendRequestAsync));
+    }
+
+    private List<Email> drainBatch() {
+        List<Email> emails = new ArrayList<>();
+        Email email;
+        while ((email = batch.poll()) != null) {
+            emails.add(email);
+        }
+        return emails;
+    }
+
+    /**
+     * Puts emails of a batch that couldn't be sent back in front of the emails added since, in their order.
+     */
+    private void restoreBatch(List<Email> emails) {
+        for (int i = emails.size() - 1; i >= 0; i--) {
+            batch.addFirst(emails.get(i));
+        }
+    }
+
+    private HttpResponse<SendEmailResponse> sendBatch(Consumer<SendEmailResponse.Data> consumer) {
+        List<Email> emails = drainBatch();
+        try {
+            return send(emails, consumer);
+        } catch (RuntimeException exception) {
+            restoreBatch(emails);
+            throw exception;
+        }
     }
 
     /**
@@ -89,72 +370,1191 @@ public class Coresender {
      * @return message processing information
      */
     public HttpResponse<SendEmailResponse> sendSimpleEmail(Email email) {
-        return sendEmailBatch(List.of(email));
+        return send(List.of(email), null);
     }
 
     /**
-     * Sends emails batch.
+     * Sends emails batch. A batch exceeding the configured number of emails or payload size is split into
+     * several requests sent in parallel, and their results are merged in the order the emails were added.
+     * If any request fails, the merged response carries its status. If sending throws, the emails are put back
+     * in the batch.
      *
      * @return messages processing information
      */
     public HttpResponse<SendEmailResponse> execute() {
-        HttpResponse<SendEmailResponse> response = sendEmailBatch(batch);
-        batch.clear();
-        return response;
+        if (outbox != null) {
+            return join(sendOutboxAsync(null));
+        }
+        return sendBatch(null);
+    }
+
+    /**
+     * Sends emails batch, passing every message processing information to the consumer as soon as it is parsed.
+     * Results are not collected, so the response body carries only metadata. A batch exceeding the configured
+     * number of emails or payload size is split into requests sent one after another, to keep the order of results.
+     * A request is not retried once some of its results were passed to the consumer.
+     *
+     * @param consumer receives processing information in the order the emails were added to the batch
+     * @return messages processing metadata
+     */
+    public HttpResponse<SendEmailResponse> execute(Consumer<SendEmailResponse.Data> consumer) {
+        if (consumer == null) {
+            throw new IllegalArgumentException("consumer is marked non-null but is null");
+        }
+        if (outbox != null) {
+            return join(sendOutboxAsync(consumer));
+        }
+        return sendBatch(consumer);
+    }
+
+    private HttpResponse<SendEmailResponse> send(List<Email> emails, Consumer<SendEmailResponse.Data> consumer) {
+        LocalResults local = LocalResults.of(validator, duplicateFilter, emails);
+        if (local == null) {
+            return sendSplit(emails, consumer);
+        }
+        HttpResponse<SendEmailResponse> response = null;
+        Throwable failure = null;
+        try {
+            List<Email> remaining = local.getRemaining();
+            response = local.merge(remaining.isEmpty() ? null : sendSplit(remaining, local.consumer(consumer)), consumer);
+            return response;
+        } catch (RuntimeException exception) {
+            failure = exception;
+            throw exception;
+        } finally {
+            local.settle(response, failure);
+        }
+    }
+
+    private HttpResponse<SendEmailResponse> sendSplit(List<Email> emails, Consumer<SendEmailResponse.Data> consumer) {
+        List<List<Email>> chunks = BatchSplitter.split(emails, batchMaxEmails, batchMaxBytes);
+        if (chunks.size() <= 1) {
+            return sendEmailBatch(emails, consumer);
+        }
+        return join(sendChunksAsync(chunks, consumer));
     }
 
-    private HttpResponse<SendEmailResponse> sendEmailBatch(Collection<Email> emails) {
-        log.debug("Sending emails: {}", prettyPrint(emails));
-        HttpResponse<SendEmailResponse> response = Unirest.post(URL)
-                .basicAuth(accountId, apiKey)
-                .withObjectMapper(unirestMapper)
-                .body(emails)
-                .asObject(SendEmailResponse.class);
-        log.debug("Got response: {}", prettyPrint(response.getBody()));
-        return response;
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException exception) {
+            throw exception.getCause() instanceof RuntimeException ? (RuntimeException) exception.getCause() : exception;
+        }
     }
 
     /**
-     * Coresender builder for convenient setup.
+     * Sends emails pending in the outbox. Emails confirmed by a response are acknowledged in the journal,
+     * the rest is returned to the outbox to be sent by the next execution.
      */
-    public static class CoresenderBuilder {
+    private CompletableFuture<HttpResponse<SendEmailResponse>> sendOutboxAsync(Consumer<SendEmailResponse.Data> consumer) {
+        List<Outbox.Entry> entries = outbox.drain();
+        List<Email> emails = new ArrayList<>(entries.size());
+        for (Outbox.Entry entry : entries) {
+            emails.add(entry.getEmail());
+        }
+        List<List<Email>> chunks = BatchSplitter.split(emails, batchMaxEmails, batchMaxBytes);
+        if (chunks.isEmpty()) {
+            return sendRequestAsync(emails, consumer);
+        }
+        Map<List<Email>, List<Outbox.Entry>> chunkEntries = new IdentityHashMap<>();
+        int offset = 0;
+        for (List<Email> chunk : chunks) {
+            chunkEntries.put(chunk, entries.subList(offset, offset + chunk.size()));
+            offset += chunk.size();
+        }
+        return BatchSplitter.sendAll(chunks, consumer == null ? batchParallelism : 1, chunk -> {
+            AtomicInteger streamed = new AtomicInteger();
+            Consumer<SendEmailResponse.Data> counting = consumer == null ? null : data -> {
+                streamed.incrementAndGet();
+                consumer.accept(data);
+            };
+            return screenAsync(chunk, counting, this::sendRequestAsync)
+                    .whenComplete((response, throwable) -> settle(chunkEntries.get(chunk), response, throwable, streamed.get()))
+                    .whenComplete((response, throwable) -> streamFailed(chunk, streamed.get(), consumer, response));
+        });
+    }
 
-        private String accountId;
+    private void settle(List<Outbox.Entry> entries, HttpResponse<SendEmailResponse> response, Throwable throwable, int streamed) {
+        int confirmed = 0;
+        if (throwable == null && response != null && response.isSuccess() && response.getBody() != null) {
+            confirmed = response.getBody().getData() != null ? response.getBody().getData().size() : streamed;
+        }
+        confirmed = Math.min(confirmed, entries.size());
+        List<Outbox.Entry> unconfirmed = entries.subList(confirmed, entries.size());
+        try {
+            outbox.acknowledge(entries.subList(0, confirmed));
+        } catch (RuntimeException exception) {
+            // not known to be acknowledged, so kept pending like after a restart, at the cost of sending them twice
+            log.error("Cannot acknowledge {} sent email(s) in {}, keeping them pending", confirmed, outbox, exception);
+            unconfirmed = entries;
+        }
+        outbox.requeue(unconfirmed);
+    }
 
-        private String apiKey;
+    /**
+     * Sends a single email without blocking the calling thread.
+     *
+     * @param email to be sent
+     * @return future completed with message processing information
+     */
+    public CompletableFuture<HttpResponse<SendEmailResponse>> sendAsync(Email email) {
+        return sendBatchAsync(List.of(email));
+    }
 
-        CoresenderBuilder() {
+    /**
+     * Sends emails batch without blocking the calling thread. The batch is emptied before the request is made,
+     * and the emails are put back in it if the returned future completes exceptionally.
+     *
+     * @return future completed with messages processing information
+     */
+    public CompletableFuture<HttpResponse<SendEmailResponse>> executeAsync() {
+        if (outbox != null) {
+            return sendOutboxAsync(null);
+        }
+        List<Email> emails = drainBatch();
+        CompletableFuture<HttpResponse<SendEmailResponse>> future;
+        try {
+            future = sendBatchAsync(emails);
+        } catch (RuntimeException exception) {
+            restoreBatch(emails);
+            throw exception;
         }
+        return future.whenComplete((response, throwable) -> {
+            if (throwable != null) {
+                restoreBatch(emails);
+            }
+        });
+    }
 
-        String getEnvironmentVariable(String variable) {
-            return System.getenv(variable);
+    /**
+     * Sends given emails as a batch without blocking the calling thread, split into several requests like
+     * in {@link #execute()} if needed. The returned future is completed on the configured executor.
+     *
+     * @param emails to be sent
+     * @return future completed with messages processing information
+     */
+    public CompletableFuture<HttpResponse<SendEmailResponse>> sendBatchAsync(Collection<Email> emails) {
+        return sendBatchAsync(emails, null);
+    }
+
+    /**
+     * Sends given emails as a batch without blocking the calling thread, passing every message processing
+     * information to the consumer as soon as it is parsed. The consumer is called on the thread reading the response
+     * and must not block. Results are not collected, so the response body carries only metadata.
+     * The batch is split and retried like in {@link #execute(Consumer)} if needed.
+     *
+     * @param emails   to be sent
+     * @param consumer receives processing information in the order of emails, may be null to collect them instead
+     * @return future completed with messages processing metadata
+     */
+    public CompletableFuture<HttpResponse<SendEmailResponse>> sendBatchAsync(Collection<Email> emails, Consumer<SendEmailResponse.Data> consumer) {
+        return screenAsync(emails, consumer, this::sendSplitAsync);
+    }
+
+    /**
+     * Sends emails neither rejected by the validator nor suppressed as duplicates, if any, and puts the processing
+     * information of the others back at their positions.
+     */
+    private CompletableFuture<HttpResponse<SendEmailResponse>> screenAsync(Collection<Email> emails, Consumer<SendEmailResponse.Data> consumer,
+                                                                           BiFunction<Collection<Email>, Consumer<SendEmailResponse.Data>, CompletableFuture<HttpResponse<SendEmailResponse>>> sender) {
+        LocalResults local;
+        try {
+            local = LocalResults.of(validator, duplicateFilter, emails);
+        } catch (RuntimeException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+        if (local == null) {
+            return sender.apply(emails, consumer);
+        }
+        if (local.getRemaining().isEmpty()) {
+            return CompletableFuture.supplyAsync(() -> local.merge(null, consumer), executor);
         }
+        CompletableFuture<HttpResponse<SendEmailResponse>> response;
+        try {
+            response = sender.apply(local.getRemaining(), local.consumer(consumer));
+        } catch (RuntimeException exception) {
+            response = CompletableFuture.failedFuture(exception);
+        }
+        return response.thenApply(value -> local.merge(value, consumer)).whenComplete(local::settle);
+    }
 
-        /**
-         * Sets the account id.
-         *
-         * @param accountId account id
-         * @return builder object
-         */
-        public CoresenderBuilder accountId(final String accountId) {
-            if (accountId == null) {
-                throw new IllegalArgumentException("accountId is marked non-null but is null");
+    private CompletableFuture<HttpResponse<SendEmailResponse>> sendSplitAsync(Collection<Email> emails, Consumer<SendEmailResponse.Data> consumer) {
+        List<List<Email>> chunks = BatchSplitter.split(emails, batchMaxEmails, batchMaxBytes);
+        if (chunks.size() <= 1) {
+            return sendRequestAsync(emails, consumer);
+        }
+        return sendChunksAsync(chunks, consumer);
+    }
+
+    private CompletableFuture<HttpResponse<SendEmailResponse>> sendChunksAsync(List<List<Email>> chunks, Consumer<SendEmailResponse.Data> consumer) {
+        if (consumer == null) {
+            return BatchSplitter.sendAll(chunks, batchParallelism, chunk -> sendRequestAsync(chunk, null));
+        }
+        // results passed to a consumer must keep their order, so chunks go one at a time then
+        return BatchSplitter.sendAll(chunks, 1, chunk -> {
+            AtomicInteger streamed = new AtomicInteger();
+            return sendRequestAsync(chunk, data -> {
+                streamed.incrementAndGet();
+                consumer.accept(data);
+            }).whenComplete((response, throwable) -> streamFailed(chunk, streamed.get(), consumer, response));
+        });
+    }
+
+    /**
+     * Passes failed processing information of the emails of a chunk the API did not report on to the consumer,
+     * before the next chunk is sent, so the results of the next chunks stay at the positions of their emails.
+     */
+    private static void streamFailed(List<Email> chunk, int streamed, Consumer<SendEmailResponse.Data> consumer, HttpResponse<SendEmailResponse> response) {
+        if (consumer == null || streamed >= chunk.size()) {
+            return;
+        }
+        BatchSplitter.failed(chunk.subList(streamed, chunk.size()), response == null ? 0 : response.getStatus()).forEach(consumer);
+    }
+
+    private CompletableFuture<HttpResponse<SendEmailResponse>> sendRequestAsync(Collection<Email> emails, Consumer<SendEmailResponse.Data> consumer) {
+        CompletableFuture<HttpResponse<SendEmailResponse>> result = new CompletableFuture<>();
+        AtomicInteger streamed = consumer == null ? null : new AtomicInteger();
+        Consumer<SendEmailResponse.Data> counting = consumer == null ? null : data -> {
+            streamed.incrementAndGet();
+            consumer.accept(data);
+        };
+        TransportRequest request;
+        try {
+            request = request(emails, counting);
+        } catch (RuntimeException exception) {
+            beforeSend(emails);
+            return CompletableFuture.<HttpResponse<SendEmailResponse>>failedFuture(exception)
+                    .whenCompleteAsync((response, throwable) -> afterSend(emails, response, throwable), executor);
+        }
+        result.whenComplete((response, throwable) -> release(request));
+        attemptAsync(emails, request, streamed, 1, 0, result);
+        return result;
+    }
+
+    private void attemptAsync(Collection<Email> emails, TransportRequest request, AtomicInteger streamed, int attempt, long previousDelay,
+                              CompletableFuture<HttpResponse<SendEmailResponse>> result) {
+        long queued = System.nanoTime();
+        if (rateLimiter != null && rateLimitFailFast && !rateLimiter.tryAcquire(emails.size())) {
+            executor.execute(() -> result.completeExceptionally(rateLimitExceeded(emails)));
+            return;
+        }
+        long wait = rateLimiter == null || rateLimitFailFast ? 0 : rateLimiter.reserve(emails.size());
+        if (wait == 0) {
+            admitAsync(emails, request, streamed, attempt, previousDelay, queued, result);
+            return;
+        }
+        try {
+            scheduler.schedule(() -> admitAsync(emails, request, streamed, attempt, previousDelay, queued, result), wait, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException exception) {
+            executor.execute(() -> result.completeExceptionally(exception));
+        }
+    }
+
+    private void admitAsync(Collection<Email> emails, TransportRequest request, AtomicInteger streamed, int attempt, long previousDelay,
+                            long queued, CompletableFuture<HttpResponse<SendEmailResponse>> result) {
+        if (concurrencyLimiter == null) {
+            sendAttemptAsync(emails, request, streamed, attempt, previousDelay, queued, result);
+        } else {
+            concurrencyLimiter.acquire().thenRun(() -> sendAttemptAsync(emails, request, streamed, attempt, previousDelay, queued, result));
+        }
+    }
+
+    private void sendAttemptAsync(Collection<Email> emails, TransportRequest request, AtomicInteger streamed, int attempt, long previousDelay,
+                                  long queued, CompletableFuture<HttpResponse<SendEmailResponse>> result) {
+        long start = System.nanoTime();
+        beforeSend(emails);
+        SendEvents.Attempt observed = events.send(request, emails.size(), attempt, start - queued);
+        CompletableFuture<HttpResponse<SendEmailResponse>> response;
+        try {
+            response = transport.sendAsync(request);
+        } catch (RuntimeException exception) {
+            response = CompletableFuture.failedFuture(exception);
+        }
+        response.whenCompleteAsync((value, throwable) -> {
+            if (throwable != null) {
+                abandon(request);
+            }
+            observed.complete(value, throwable);
+            releaseSlot(start, value, throwable);
+            afterSend(emails, value, throwable);
+            if (shouldRetry(attempt, emails, value, throwable, streamed)) {
+                long delay = retryPolicy.delayMillis(previousDelay, value);
+                events.retry(emails.size(), attempt, delay);
+                log.debug("Retrying request of {} email(s) in {} ms, attempt {} failed", emails.size(), delay, attempt);
+                try {
+                    // the scheduler only starts the next attempt, so the caller's threads are never parked
+                    scheduler.schedule(() -> attemptAsync(emails, request, streamed, attempt + 1, delay, result), delay, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (RejectedExecutionException exception) {
+                    // closed in the meantime, report the last outcome
+                }
+            }
+            if (throwable == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(throwable);
+            }
+        }, executor);
+    }
+
+    /**
+     * Sends emails still queued with {@link #enqueue(Email)}, waits for them to be processed, closes the HTTP
+     * connections and shuts down the threads created by the SDK. A caller-supplied executor or transport
+     * is left untouched.
+     */
+    @Override
+    public void close() {
+        try {
+            accumulator.close().join();
+        } finally {
+            scheduler.shutdown();
+            if (ownedTransport) {
+                transport.close();
+            }
+            if (ownedExecutor != null) {
+                ownedExecutor.shutdown();
             }
-            this.accountId = accountId;
-            return this;
         }
+    }
 
-        /**
-         * Sets the API key.
-         *
-         * @param apiKey api key
-         * @return builder object
-         */
-        public CoresenderBuilder apiKey(final String apiKey) {
-            if (apiKey == null) {
-                throw new IllegalArgumentException("apiKey is marked non-null but is null");
+    HttpResponse<SendEmailResponse> sendEmailBatch(Collection<Email> emails) {
+        return sendEmailBatch(emails, null);
+    }
+
+    private HttpResponse<SendEmailResponse> sendEmailBatch(Collection<Email> emails, Consumer<SendEmailResponse.Data> consumer) {
+        AtomicInteger streamed = consumer == null ? null : new AtomicInteger();
+        Consumer<SendEmailResponse.Data> counting = consumer == null ? null : data -> {
+            streamed.incrementAndGet();
+            consumer.accept(data);
+        };
+        TransportRequest request = null;
+        long delay = 0;
+        try {
+            for (int attempt = 1; ; attempt++) {
+                long queued = System.nanoTime();
+                throttle(emails);
+                acquireSlot();
+                long start = System.nanoTime();
+                beforeSend(emails);
+                HttpResponse<SendEmailResponse> response;
+                SendEvents.Attempt observed = null;
+                try {
+                    if (request == null) {
+                        request = request(emails, counting);
+                    }
+                    observed = events.send(request, emails.size(), attempt, start - queued);
+                    response = transport.send(request);
+                } catch (RuntimeException exception) {
+                    if (request == null) {
+                        releaseSlot();
+                    } else {
+                        abandon(request);
+                        releaseSlot(start, null, exception);
+                    }
+                    if (observed != null) {
+                        observed.complete(null, exception);
+                    }
+                    afterSend(emails, null, exception);
+                    if (request == null || !shouldRetry(attempt, emails, null, exception, streamed)) {
+                        throw exception;
+                    }
+                    delay = retryPolicy.delayMillis(delay, null);
+                    events.retry(emails.size(), attempt, delay);
+                    if (!sleepBeforeRetry(emails, attempt, delay)) {
+                        throw exception;
+                    }
+                    continue;
+                }
+                observed.complete(response, null);
+                releaseSlot(start, response, null);
+                afterSend(emails, response, null);
+                if (!shouldRetry(attempt, emails, response, null, streamed)) {
+                    return response;
+                }
+                delay = retryPolicy.delayMillis(delay, response);
+                events.retry(emails.size(), attempt, delay);
+                if (!sleepBeforeRetry(emails, attempt, delay)) {
+                    return response;
+                }
             }
-            this.apiKey = apiKey;
+        } finally {
+            release(request);
+        }
+    }
+
+    /**
+     * Results passed to a consumer can't be taken back and a repeated request would report them again,
+     * so a request is not repeated once any of its results was streamed.
+     *
+     * @param streamed number of results passed to the consumer, null if results are collected
+     */
+    private boolean shouldRetry(int attempt, Collection<Email> emails, HttpResponse<SendEmailResponse> response, Throwable throwable,
+                                AtomicInteger streamed) {
+        return (streamed == null || streamed.get() == 0) && retryPolicy.shouldRetry(attempt, emails, response, throwable);
+    }
+
+    private void throttle(Collection<Email> emails) {
+        if (rateLimiter == null) {
+            return;
+        }
+        if (rateLimitFailFast) {
+            if (!rateLimiter.tryAcquire(emails.size())) {
+                throw rateLimitExceeded(emails);
+            }
+            return;
+        }
+        try {
+            rateLimiter.acquire(emails.size());
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new RateLimitExceededException("Interrupted while waiting for the rate limit", exception);
+        }
+    }
+
+    private void acquireSlot() {
+        if (concurrencyLimiter == null) {
+            return;
+        }
+        CompletableFuture<Void> slot = concurrencyLimiter.acquire();
+        try {
+            slot.get();
+        } catch (InterruptedException exception) {
+            if (!slot.cancel(false)) {
+                releaseSlot();
+            }
+            Thread.currentThread().interrupt();
+            throw new UnirestException(exception);
+        } catch (ExecutionException exception) {
+            throw new UnirestException(exception.getCause());
+        }
+    }
+
+    private void releaseSlot() {
+        if (concurrencyLimiter != null) {
+            concurrencyLimiter.release(0, false);
+        }
+    }
+
+    private void releaseSlot(long start, HttpResponse<SendEmailResponse> response, Throwable throwable) {
+        if (concurrencyLimiter == null) {
+            return;
+        }
+        boolean overloaded = throwable != null || response != null && (response.getStatus() == 429 || response.getStatus() >= 500);
+        long latency = System.nanoTime() - start;
+        if (response != null && response.getBody() != null && response.getBody().getMeta() != null) {
+            latency = serverTime(response.getBody().getMeta().getRqTime(), latency);
+        }
+        concurrencyLimiter.release(latency, overloaded);
+    }
+
+    static long serverTime(String rqTime, long fallback) {
+        if (rqTime == null) {
+            return fallback;
+        }
+        try {
+            long nanos = (long) (Double.parseDouble(rqTime) * TimeUnit.SECONDS.toNanos(1));
+            return nanos > 0 ? nanos : fallback;
+        } catch (NumberFormatException exception) {
+            return fallback;
+        }
+    }
+
+    private static RateLimitExceededException rateLimitExceeded(Collection<Email> emails) {
+        return new RateLimitExceededException("Sending " + emails.size() + " email(s) now would exceed the rate limit");
+    }
+
+    private static boolean sleepBeforeRetry(Collection<Email> emails, int attempt, long delay) {
+        log.debug("Retrying request of {} email(s) in {} ms, attempt {} failed", emails.size(), delay, attempt);
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private TransportRequest request(Collection<Email> emails, Consumer<SendEmailResponse.Data> consumer) {
+        long size = estimateSize(emails);
+        boolean compress = compressionThreshold != Long.MAX_VALUE && size >= compressionThreshold;
+        long start = System.nanoTime();
+        RequestBody body;
+        try {
+            body = bufferPool == null ? RequestBody.of(serialize(emails, compress)) : serializePooled(emails, compress, size);
+        } catch (IOException exception) {
+            throw new UnirestException(exception);
+        }
+        long serializeNanos = System.nanoTime() - start;
+        events.serialized(emails.size(), body.getContentLength(), compress, serializeNanos);
+        ResponseReader reader = consumer == null ? this::readResponse : content -> readStreaming(content, consumer);
+        return new TransportRequest(url, compress ? compressedHeaders : headers, body, new SendEvents.TimedReader(reader, serializeNanos));
+    }
+
+    private static long estimateSize(Collection<Email> emails) {
+        long size = 0;
+        for (Email email : emails) {
+            size += BatchAccumulator.estimateSize(email);
+        }
+        return size;
+    }
+
+    private byte[] serialize(Collection<Email> emails, boolean compress) throws IOException {
+        if (!compress) {
+            return jacksonDataBinding ? mapper.writeValueAsBytes(emails) : JsonCodec.writeEmailsAsBytes(emails, fragmentCache);
+        }
+        // JSON is written straight into the deflater, so only the compressed payload is held in memory
+        try (ByteArrayBuilder bytes = new ByteArrayBuilder(JsonCodec.getFactory()._getBufferRecycler())) {
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bytes, 8192)) {
+                write(gzip, emails);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    private RequestBody serializePooled(Collection<Email> emails, boolean compress, long size) throws IOException {
+        // compressed JSON usually takes a fraction of its size, the first buffer should not be much too large
+        BufferPool.Output output = bufferPool.output(compress ? size / 4 : size);
+        try {
+            if (compress) {
+                try (GZIPOutputStream gzip = new GZIPOutputStream(output, 8192)) {
+                    write(gzip, emails);
+                }
+            } else {
+                write(output, emails);
+            }
+            return output.toBody();
+        } catch (IOException | RuntimeException exception) {
+            output.discard();
+            throw exception;
+        }
+    }
+
+    private void write(OutputStream output, Collection<Email> emails) throws IOException {
+        if (jacksonDataBinding) {
+            mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET).writeValue(output, emails);
+        } else {
+            JsonCodec.writeEmails(output, emails, fragmentCache);
+        }
+    }
+
+    private static void abandon(TransportRequest request) {
+        if (request.getBody() instanceof PooledRequestBody) {
+            ((PooledRequestBody) request.getBody()).abandon();
+        }
+    }
+
+    private static void release(TransportRequest request) {
+        if (request != null && request.getBody() instanceof PooledRequestBody) {
+            ((PooledRequestBody) request.getBody()).release();
+        }
+    }
+
+    private SendEmailResponse readResponse(InputStream content) throws IOException {
+        byte[] bytes = content.readAllBytes();
+        if (bytes.length == 0) {
+            return null;
+        }
+        try {
+            return jacksonDataBinding ? mapper.readValue(bytes, SendEmailResponse.class) : JsonCodec.readResponse(bytes);
+        } catch (IOException exception) {
+            throw new UnirestParsingException(new String(bytes, StandardCharsets.UTF_8), exception);
+        }
+    }
+
+    private static SendEmailResponse readStreaming(InputStream content, Consumer<SendEmailResponse.Data> consumer) throws IOException {
+        // the content is consumed while parsing, so it can't be attached to a parsing error
+        try (JsonParser parser = JsonCodec.getFactory().createParser(content)) {
+            return JsonCodec.readResponse(parser, consumer);
+        }
+    }
+
+    private void beforeSend(Collection<Email> emails) {
+        for (SendInterceptor interceptor : interceptors) {
+            try {
+                interceptor.onRequest(emails);
+            } catch (RuntimeException exception) {
+                log.warn("Interceptor {} failed", interceptor, exception);
+            }
+        }
+    }
+
+    private void afterSend(Collection<Email> emails, HttpResponse<SendEmailResponse> response, Throwable throwable) {
+        for (SendInterceptor interceptor : interceptors) {
+            try {
+                if (throwable == null) {
+                    interceptor.onResponse(emails, response);
+                } else {
+                    interceptor.onFailure(emails, throwable);
+                }
+            } catch (RuntimeException exception) {
+                log.warn("Interceptor {} failed", interceptor, exception);
+            }
+        }
+    }
+
+    /**
+     * Coresender builder for convenient setup.
+     */
+    public static class CoresenderBuilder {
+
+        private String accountId;
+
+        private String apiKey;
+
+        private Executor executor;
+
+        private int batchMaxEmails;
+
+        private long batchMaxBytes;
+
+        private Duration batchLinger;
+
+        private int batchParallelism;
+
+        private List<SendInterceptor> interceptors;
+
+        private List<SendEventListener> eventListeners;
+
+        private RetryPolicy retryPolicy;
+
+        private RateLimiter rateLimiter;
+
+        private boolean rateLimitFailFast;
+
+        private ConcurrencyLimiter concurrencyLimiter;
+
+        private Outbox outbox;
+
+        private EmailValidator validator;
+
+        private DuplicateFilter duplicateFilter;
+
+        private String baseUrl;
+
+        private boolean jacksonDataBinding;
+
+        private FragmentCache fragmentCache;
+
+        private BufferPool bufferPool;
+
+        private boolean compression;
+
+        private int compressionThreshold;
+
+        private Transport transport;
+
+        private boolean http2;
+
+        private boolean virtualThreads;
+
+        private int maxConnections;
+
+        private int maxConnectionsPerRoute;
+
+        private Duration connectTimeout;
+
+        private Duration socketTimeout;
+
+        private Duration connectionTtl;
+
+        private String proxyHost;
+
+        private int proxyPort;
+
+        private String proxyUsername;
+
+        private String proxyPassword;
+
+        CoresenderBuilder() {
+        }
+
+        String getEnvironmentVariable(String variable) {
+            return System.getenv(variable);
+        }
+
+        /**
+         * Sets the account id.
+         *
+         * @param accountId account id
+         * @return builder object
+         */
+        public CoresenderBuilder accountId(final String accountId) {
+            if (accountId == null) {
+                throw new IllegalArgumentException("accountId is marked non-null but is null");
+            }
+            this.accountId = accountId;
+            return this;
+        }
+
+        /**
+         * Sets the API key.
+         *
+         * @param apiKey api key
+         * @return builder object
+         */
+        public CoresenderBuilder apiKey(final String apiKey) {
+            if (apiKey == null) {
+                throw new IllegalArgumentException("apiKey is marked non-null but is null");
+            }
+            this.apiKey = apiKey;
+            return this;
+        }
+
+        /**
+         * Sets the executor on which asynchronous sends are completed.
+         * When not set, the SDK manages its own daemon thread pool which is shut down by {@link Coresender#close()}.
+         *
+         * @param executor completion executor
+         * @return builder object
+         */
+        public CoresenderBuilder executor(final Executor executor) {
+            if (executor == null) {
+                throw new IllegalArgumentException("executor is marked non-null but is null");
+            }
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of emails sent in one request. Larger batches are split. Defaults to 100.
+         *
+         * @param batchMaxEmails maximum number of emails
+         * @return builder object
+         */
+        public CoresenderBuilder batchMaxEmails(final int batchMaxEmails) {
+            if (batchMaxEmails < 1) {
+                throw new IllegalArgumentException("batchMaxEmails must be positive");
+            }
+            this.batchMaxEmails = batchMaxEmails;
+            return this;
+        }
+
+        /**
+         * Sets the maximum estimated payload size of one request. Larger batches are split. Defaults to 5 MiB.
+         *
+         * @param batchMaxBytes maximum payload size in bytes
+         * @return builder object
+         */
+        public CoresenderBuilder batchMaxBytes(final long batchMaxBytes) {
+            if (batchMaxBytes < 1) {
+                throw new IllegalArgumentException("batchMaxBytes must be positive");
+            }
+            this.batchMaxBytes = batchMaxBytes;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of concurrent requests a split batch is sent with. Defaults to 4.
+         *
+         * @param batchParallelism maximum number of concurrent requests
+         * @return builder object
+         */
+        public CoresenderBuilder batchParallelism(final int batchParallelism) {
+            if (batchParallelism < 1) {
+                throw new IllegalArgumentException("batchParallelism must be positive");
+            }
+            this.batchParallelism = batchParallelism;
+            return this;
+        }
+
+        /**
+         * Sets how long a queued email may wait for the automatic batch to fill up. Defaults to 50 milliseconds.
+         *
+         * @param batchLinger maximum waiting time
+         * @return builder object
+         */
+        public CoresenderBuilder batchLinger(final Duration batchLinger) {
+            if (batchLinger == null) {
+                throw new IllegalArgumentException("batchLinger is marked non-null but is null");
+            }
+            this.batchLinger = batchLinger;
+            return this;
+        }
+
+        /**
+         * Adds an interceptor invoked around every request, e.g. {@link LoggingInterceptor}.
+         * Interceptors are called in the order they were added.
+         *
+         * @param interceptor request and response interceptor
+         * @return builder object
+         */
+        public CoresenderBuilder interceptor(final SendInterceptor interceptor) {
+            if (interceptor == null) {
+                throw new IllegalArgumentException("interceptor is marked non-null but is null");
+            }
+            if (this.interceptors == null) {
+                this.interceptors = new ArrayList<>();
+            }
+            this.interceptors.add(interceptor);
+            return this;
+        }
+
+        /**
+         * Adds a listener receiving the phases of every request with their timings, e.g. {@link SendMetrics}.
+         * Requests are also recorded as {@code com.coresender.Send} Flight Recorder events, without any listener.
+         *
+         * @param eventListener send event listener
+         * @return builder object
+         */
+        public CoresenderBuilder eventListener(final SendEventListener eventListener) {
+            if (eventListener == null) {
+                throw new IllegalArgumentException("eventListener is marked non-null but is null");
+            }
+            if (this.eventListeners == null) {
+                this.eventListeners = new ArrayList<>();
+            }
+            this.eventListeners.add(eventListener);
+            return this;
+        }
+
+        /**
+         * Sets the policy for repeating requests that failed with a transient error. No request is repeated by default.
+         *
+         * @param retryPolicy retry policy
+         * @return builder object
+         */
+        public CoresenderBuilder retryPolicy(final RetryPolicy retryPolicy) {
+            if (retryPolicy == null) {
+                throw new IllegalArgumentException("retryPolicy is marked non-null but is null");
+            }
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Limits the number of emails sent per second. Blocking methods wait until the emails may be sent,
+         * asynchronous ones delay the request without blocking any thread.
+         *
+         * @param emailsPerSecond sustained number of emails per second
+         * @param burst           number of emails that may be sent at once after a pause
+         * @return builder object
+         * @see #rateLimitFailFast(boolean)
+         */
+        public CoresenderBuilder rateLimit(final double emailsPerSecond, final int burst) {
+            return rateLimiter(new RateLimiter(emailsPerSecond, burst));
+        }
+
+        /**
+         * Limits the number of emails sent per second with the given limiter, which may be shared with other instances.
+         *
+         * @param rateLimiter rate limiter
+         * @return builder object
+         * @see #rateLimit(double, int)
+         */
+        public CoresenderBuilder rateLimiter(final RateLimiter rateLimiter) {
+            if (rateLimiter == null) {
+                throw new IllegalArgumentException("rateLimiter is marked non-null but is null");
+            }
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Sets whether sending over the rate limit fails with {@link RateLimitExceededException} instead of waiting.
+         * A batch larger than the burst capacity always fails then. Defaults to false.
+         *
+         * @param rateLimitFailFast if sending over the rate limit should fail
+         * @return builder object
+         */
+        public CoresenderBuilder rateLimitFailFast(final boolean rateLimitFailFast) {
+            this.rateLimitFailFast = rateLimitFailFast;
+            return this;
+        }
+
+        /**
+         * Limits the number of concurrent requests with an adaptive limit, which grows while the API responds
+         * quickly and shrinks when it slows down or throttles. Requests over the limit wait without blocking
+         * in asynchronous sends. Keep a reference to the limiter to monitor it.
+         *
+         * @param concurrencyLimiter concurrency limiter, e.g. {@code new ConcurrencyLimiter()}
+         * @return builder object
+         */
+        public CoresenderBuilder concurrencyLimiter(final ConcurrencyLimiter concurrencyLimiter) {
+            if (concurrencyLimiter == null) {
+                throw new IllegalArgumentException("concurrencyLimiter is marked non-null but is null");
+            }
+            this.concurrencyLimiter = concurrencyLimiter;
+            return this;
+        }
+
+        /**
+         * Keeps emails added with {@link Coresender#addToBatch(Email)} in a durable outbox until the API confirms
+         * them. Emails pending after a crash are sent by the next execution. The outbox is left open when
+         * Coresender is closed.
+         *
+         * @param outbox outbox, e.g. {@code Outbox.open(Path.of("outbox"))}
+         * @return builder object
+         */
+        public CoresenderBuilder outbox(final Outbox outbox) {
+            if (outbox == null) {
+                throw new IllegalArgumentException("outbox is marked non-null but is null");
+            }
+            this.outbox = outbox;
+            return this;
+        }
+
+        /**
+         * Checks emails before sending. Emails the validator rejects are not sent, their processing information
+         * has the {@code rejected} status and the problems found, at the same position as the API would put it.
+         *
+         * @param validator validator, e.g. {@code EmailValidator.builder().build()}
+         * @return builder object
+         */
+        public CoresenderBuilder validator(final EmailValidator validator) {
+            if (validator == null) {
+                throw new IllegalArgumentException("validator is marked non-null but is null");
+            }
+            this.validator = validator;
+            return this;
+        }
+
+        /**
+         * Suppresses emails with {@code customIdUnique} whose custom id was already sent. Their processing
+         * information has the {@code rejected} status, code 409 and a {@code duplicate} error, and no request
+         * is made for them.
+         *
+         * @param duplicateFilter filter, e.g. {@code DuplicateFilter.builder().build()}
+         * @return builder object
+         */
+        public CoresenderBuilder duplicateFilter(final DuplicateFilter duplicateFilter) {
+            if (duplicateFilter == null) {
+                throw new IllegalArgumentException("duplicateFilter is marked non-null but is null");
+            }
+            this.duplicateFilter = duplicateFilter;
+            return this;
+        }
+
+        /**
+         * Sets whether requests and responses are mapped with Jackson data binding instead of the built-in
+         * streaming codec. Defaults to false.
+         *
+         * @param jacksonDataBinding if Jackson data binding should be used
+         * @return builder object
+         */
+        public CoresenderBuilder jacksonDataBinding(final boolean jacksonDataBinding) {
+            this.jacksonDataBinding = jacksonDataBinding;
+            return this;
+        }
+
+        /**
+         * Sets whether request bodies are compressed with gzip. Batches of HTML emails usually shrink many times,
+         * which cuts upload time on slow or distant links. Defaults to false.
+         *
+         * @param compression if request bodies should be compressed
+         * @return builder object
+         * @see #compressionThreshold(int)
+         */
+        public CoresenderBuilder compression(final boolean compression) {
+            this.compression = compression;
+            return this;
+        }
+
+        /**
+         * Sets the estimated payload size below which requests are sent uncompressed even if compression is enabled,
+         * as compressing a single short email costs more than it saves. Defaults to 1 KiB.
+         *
+         * @param compressionThreshold minimum payload size in bytes
+         * @return builder object
+         */
+        public CoresenderBuilder compressionThreshold(final int compressionThreshold) {
+            if (compressionThreshold < 1) {
+                throw new IllegalArgumentException("compressionThreshold must be positive");
+            }
+            this.compressionThreshold = compressionThreshold;
+            return this;
+        }
+
+        /**
+         * Keeps values shared by many emails (sender, reply to, subject, list headers, content) JSON encoded
+         * in the cache, so they are encoded once instead of once per email. Has no effect with Jackson data binding.
+         * Keep a reference to the cache to monitor its hit rate.
+         *
+         * @param fragmentCache cache, e.g. {@code new FragmentCache()}; may be shared by several Coresender instances
+         * @return builder object
+         */
+        public CoresenderBuilder fragmentCache(final FragmentCache fragmentCache) {
+            if (fragmentCache == null) {
+                throw new IllegalArgumentException("fragmentCache is marked non-null but is null");
+            }
+            this.fragmentCache = fragmentCache;
+            return this;
+        }
+
+        /**
+         * Serializes requests into buffers borrowed from the pool, reused once a request is finished, instead of
+         * allocating a new array for every request. Keeps large batches clear of humongous allocations, and
+         * {@link HttpClientTransport} streams the buffers without copying them into one array.
+         * A custom {@link Transport} must not read a request body after completing the request.
+         * Keep a reference to the pool to monitor its usage.
+         *
+         * @param bufferPool pool, e.g. {@code new BufferPool()}; may be shared by several Coresender instances
+         * @return builder object
+         */
+        public CoresenderBuilder bufferPool(final BufferPool bufferPool) {
+            if (bufferPool == null) {
+                throw new IllegalArgumentException("bufferPool is marked non-null but is null");
+            }
+            this.bufferPool = bufferPool;
+            return this;
+        }
+
+        /**
+         * Sets the transport used to send requests instead of the built-in ones. Connection settings of this builder
+         * are not applied to it, and {@link Coresender#close()} leaves it open.
+         *
+         * @param transport request transport
+         * @return builder object
+         */
+        public CoresenderBuilder transport(final Transport transport) {
+            if (transport == null) {
+                throw new IllegalArgumentException("transport is marked non-null but is null");
+            }
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * Sets whether requests are sent with {@link HttpClientTransport}, which negotiates HTTP/2 and multiplexes
+         * concurrent requests over a single connection, instead of the pooled HTTP/1.1 {@link UnirestTransport}.
+         * Connection pool size and time to live do not apply then. Defaults to false.
+         *
+         * @param http2 if HTTP/2 transport should be used
+         * @return builder object
+         */
+        public CoresenderBuilder http2(final boolean http2) {
+            this.http2 = http2;
+            return this;
+        }
+
+        /**
+         * Sets whether asynchronous sends and their callbacks run on virtual threads, one per task, instead of
+         * a cached thread pool. Unless a transport is given, requests are sent with {@link HttpClientTransport},
+         * which doesn't pin the carrier thread of a virtual thread blocked in {@link Coresender#sendSimpleEmail(Email)}.
+         * Requires Java 21; on older versions a warning is logged and platform threads are used. Defaults to false.
+         *
+         * @param virtualThreads if virtual threads should be used
+         * @return builder object
+         */
+        public CoresenderBuilder virtualThreads(final boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * Sets the API base URL, e.g. to point the client at a local stand-in for testing.
+         * Defaults to https://api.coresender.com.
+         *
+         * @param baseUrl scheme, host and optional port, without trailing slash
+         * @return builder object
+         */
+        public CoresenderBuilder baseUrl(final String baseUrl) {
+            if (baseUrl == null) {
+                throw new IllegalArgumentException("baseUrl is marked non-null but is null");
+            }
+            this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of pooled connections. Defaults to 200.
+         *
+         * @param maxConnections maximum number of connections
+         * @return builder object
+         */
+        public CoresenderBuilder maxConnections(final int maxConnections) {
+            if (maxConnections < 1) {
+                throw new IllegalArgumentException("maxConnections must be positive");
+            }
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of pooled connections to a single host. Defaults to 20.
+         *
+         * @param maxConnectionsPerRoute maximum number of connections per host
+         * @return builder object
+         */
+        public CoresenderBuilder maxConnectionsPerRoute(final int maxConnectionsPerRoute) {
+            if (maxConnectionsPerRoute < 1) {
+                throw new IllegalArgumentException("maxConnectionsPerRoute must be positive");
+            }
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * Sets the connection establishing timeout. Defaults to 10 seconds.
+         *
+         * @param connectTimeout connect timeout
+         * @return builder object
+         */
+        public CoresenderBuilder connectTimeout(final Duration connectTimeout) {
+            if (connectTimeout == null) {
+                throw new IllegalArgumentException("connectTimeout is marked non-null but is null");
+            }
+            this.connectTimeout = connectTimeout;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time of inactivity between two data packets. {@link HttpClientTransport} has no such
+         * timeout, so with {@link #http2(boolean)} it limits the time to wait for the response instead.
+         * Defaults to 60 seconds.
+         *
+         * @param socketTimeout socket timeout
+         * @return builder object
+         */
+        public CoresenderBuilder socketTimeout(final Duration socketTimeout) {
+            if (socketTimeout == null) {
+                throw new IllegalArgumentException("socketTimeout is marked non-null but is null");
+            }
+            this.socketTimeout = socketTimeout;
+            return this;
+        }
+
+        /**
+         * Sets how long a pooled connection may be kept alive and reused. Unlimited by default.
+         *
+         * @param connectionTtl connection time to live
+         * @return builder object
+         */
+        public CoresenderBuilder connectionTtl(final Duration connectionTtl) {
+            if (connectionTtl == null) {
+                throw new IllegalArgumentException("connectionTtl is marked non-null but is null");
+            }
+            this.connectionTtl = connectionTtl;
+            return this;
+        }
+
+        /**
+         * Sets the HTTP proxy.
+         *
+         * @param host proxy host
+         * @param port proxy port
+         * @return builder object
+         */
+        public CoresenderBuilder proxy(final String host, final int port) {
+            return proxy(host, port, null, null);
+        }
+
+        /**
+         * Sets the HTTP proxy requiring authentication.
+         *
+         * @param host     proxy host
+         * @param port     proxy port
+         * @param username proxy user name
+         * @param password proxy password
+         * @return builder object
+         */
+        public CoresenderBuilder proxy(final String host, final int port, final String username, final String password) {
+            if (host == null) {
+                throw new IllegalArgumentException("host is marked non-null but is null");
+            }
+            this.proxyHost = host;
+            this.proxyPort = port;
+            this.proxyUsername = username;
+            this.proxyPassword = password;
             return this;
         }
 
@@ -166,7 +1566,7 @@ public class Coresender {
             }
             String apiKey = getEnvironmentVariable(CORESENDER_SENDING_API_KEY);
             if (this.apiKey == null && apiKey != null) {
-                log.debug("Setting api key from {} variable: {}", CORESENDER_SENDING_API_KEY, apiKey);
+                log.debug("Setting api key from {} variable", CORESENDER_SENDING_API_KEY);
                 this.apiKey = apiKey;
             }
         }
@@ -178,12 +1578,12 @@ public class Coresender {
          */
         public Coresender build() {
             setupApiFromEnvironmentVariables();
-            return new Coresender(this.accountId, this.apiKey);
+            return new Coresender(this);
         }
 
         @Override
         public String toString() {
-            return "Coresender.CoresenderBuilder(accountId=" + this.accountId + ", apiKey=" + this.apiKey + ")";
+            return "Coresender.CoresenderBuilder(accountId=" + this.accountId + ", apiKey=" + (this.apiKey == null ? null : "****") + ")";
         }
     }
 }
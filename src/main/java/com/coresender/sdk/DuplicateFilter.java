@@ -0,0 +1,314 @@
+package com.coresender.sdk;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers custom ids of sent emails, so an email with {@code customIdUnique} repeating one of them is answered
+ * locally instead of being uploaded for the API to reject.
+ * <p>
+ * Ids are kept in two tiers of fixed size. The most recent ones, including those of emails still being sent, are kept
+ * exactly in a striped LRU map. Every id the API accepted is also added to a Bloom filter sized for
+ * {@code expectedIds} ids. Once that many ids were added, the filter becomes the previous generation and a fresh one
+ * takes its place, so the memory taken stays the same however many ids go through, and ids are remembered for at
+ * least {@code expectedIds} more sends.
+ * <p>
+ * An id found in the exact tier is a duplicate. An id found only in the Bloom filter is a probable duplicate: it was
+ * sent before or is a false positive, which happens at {@code falsePositiveRate}. Probable duplicates are sent and
+ * left for the API to check, unless {@link DuplicateFilterBuilder#suppressProbable(boolean)} is set.
+ * <p>
+ * An id is remembered once the email is accepted, and forgotten if the request fails or the email is rejected,
+ * so sending it again is not suppressed. A filter can be shared by several {@link Coresender} instances.
+ */
+public final class DuplicateFilter {
+
+    private static final int STRIPES = 16;
+
+    private final long expectedIds;
+
+    private final double falsePositiveRate;
+
+    private final int recentIds;
+
+    private final boolean suppressProbable;
+
+    private final long bits;
+
+    private final int hashes;
+
+    private final Recent[] recent = new Recent[STRIPES];
+
+    private final AtomicLong added = new AtomicLong();
+
+    private final LongAdder duplicates = new LongAdder();
+
+    private final LongAdder probableDuplicates = new LongAdder();
+
+    private volatile AtomicLongArray current;
+
+    private volatile AtomicLongArray previous;
+
+    private DuplicateFilter(final DuplicateFilterBuilder builder) {
+        this.expectedIds = builder.expectedIds;
+        this.falsePositiveRate = builder.falsePositiveRate;
+        this.recentIds = builder.recentIds;
+        this.suppressProbable = builder.suppressProbable;
+        // optimal size and number of hash functions for the expected number of ids and false positive rate
+        double ln2 = Math.log(2);
+        this.bits = Math.max(64, (long) Math.ceil(-expectedIds * Math.log(falsePositiveRate) / (ln2 * ln2)));
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedIds * ln2));
+        this.current = new AtomicLongArray(Math.toIntExact((bits + 63) / 64));
+        this.previous = new AtomicLongArray(current.length());
+        for (int i = 0; i < STRIPES; i++) {
+            recent[i] = new Recent(Math.max(1, recentIds / STRIPES));
+        }
+    }
+
+    /**
+     * Creates DuplicateFilterBuilder instance.
+     *
+     * @return DuplicateFilterBuilder object
+     */
+    public static DuplicateFilterBuilder builder() {
+        return new DuplicateFilterBuilder();
+    }
+
+    /**
+     * Reserves an id for an email about to be sent.
+     *
+     * @param id custom id
+     * @return false if the email is a duplicate and should not be sent
+     */
+    boolean claim(String id) {
+        long hash = hash(id);
+        Recent stripe = stripe(hash);
+        synchronized (stripe) {
+            if (stripe.get(id) != null) {
+                duplicates.increment();
+                return false;
+            }
+            if (mightContain(hash)) {
+                probableDuplicates.increment();
+                if (suppressProbable) {
+                    return false;
+                }
+            }
+            stripe.put(id, Boolean.FALSE);
+        }
+        return true;
+    }
+
+    /**
+     * Remembers an id after its email was accepted.
+     *
+     * @param id custom id reserved by {@link #claim(String)}
+     */
+    void confirm(String id) {
+        long hash = hash(id);
+        Recent stripe = stripe(hash);
+        synchronized (stripe) {
+            stripe.replace(id, Boolean.TRUE);
+        }
+        AtomicLongArray filter = current;
+        long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(hash + i * h2, bits);
+            long mask = 1L << bit;
+            int index = (int) (bit >>> 6);
+            long word;
+            while (((word = filter.get(index)) & mask) == 0 && !filter.compareAndSet(index, word, word | mask)) {
+                // lost a race with another bit of the same word
+            }
+        }
+        if (added.incrementAndGet() % expectedIds == 0) {
+            rotate(filter);
+        }
+    }
+
+    /**
+     * Releases an id whose email was not accepted, so it can be sent again.
+     *
+     * @param id custom id reserved by {@link #claim(String)}
+     */
+    void forget(String id) {
+        Recent stripe = stripe(hash(id));
+        synchronized (stripe) {
+            stripe.remove(id, Boolean.FALSE);
+        }
+    }
+
+    private synchronized void rotate(AtomicLongArray full) {
+        if (current == full) {
+            previous = full;
+            current = new AtomicLongArray(full.length());
+        }
+    }
+
+    private boolean mightContain(long hash) {
+        return mightContain(current, hash) || mightContain(previous, hash);
+    }
+
+    private boolean mightContain(AtomicLongArray filter, long hash) {
+        long h2 = mix(hash ^ 0x9e3779b97f4a7c15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            long bit = Long.remainderUnsigned(hash + i * h2, bits);
+            if ((filter.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Recent stripe(long hash) {
+        return recent[(int) (hash >>> 60) & (STRIPES - 1)];
+    }
+
+    /**
+     * 64-bit FNV-1a of the characters, finished with the SplitMix64 mixer so every bit depends on every character.
+     */
+    static long hash(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash = (hash ^ id.charAt(i)) * 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * @return number of emails suppressed because their id was found in the exact tier
+     */
+    public long getDuplicates() {
+        return duplicates.sum();
+    }
+
+    /**
+     * @return number of ids found only in the Bloom filter, suppressed or not
+     */
+    public long getProbableDuplicates() {
+        return probableDuplicates.sum();
+    }
+
+    /**
+     * @return approximate heap taken by both Bloom filter generations, in bytes
+     */
+    public long getFilterBytes() {
+        return 2L * current.length() * Long.BYTES;
+    }
+
+    @Override
+    public String toString() {
+        return "DuplicateFilter(expectedIds=" + this.expectedIds + ", falsePositiveRate=" + this.falsePositiveRate + ", recentIds=" + this.recentIds
+                + ", suppressProbable=" + this.suppressProbable + ", hashes=" + this.hashes + ", filterBytes=" + getFilterBytes()
+                + ", duplicates=" + getDuplicates() + ", probableDuplicates=" + getProbableDuplicates() + ")";
+    }
+
+    /**
+     * LRU stripe of the exact tier, guarded by its own monitor. Values tell whether the id was confirmed.
+     */
+    private static class Recent extends LinkedHashMap<String, Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Recent(final int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    /**
+     * DuplicateFilter builder for convenient setup.
+     */
+    public static class DuplicateFilterBuilder {
+
+        private long expectedIds = 1_000_000;
+
+        private double falsePositiveRate = 0.000_001;
+
+        private int recentIds = 100_000;
+
+        private boolean suppressProbable;
+
+        DuplicateFilterBuilder() {
+        }
+
+        /**
+         * Sets the number of ids a Bloom filter generation holds at the false positive rate. Two generations are kept,
+         * about {@code -expectedIds * ln(falsePositiveRate) / ln(2)^2} bits each. Defaults to 1 000 000.
+         *
+         * @param expectedIds number of ids per generation
+         * @return builder object
+         */
+        public DuplicateFilterBuilder expectedIds(final long expectedIds) {
+            if (expectedIds < 1) {
+                throw new IllegalArgumentException("expectedIds must be positive");
+            }
+            this.expectedIds = expectedIds;
+            return this;
+        }
+
+        /**
+         * Sets the probability that a new id is found in a full Bloom filter generation. Defaults to one in a million.
+         *
+         * @param falsePositiveRate false positive rate, between 0 and 1
+         * @return builder object
+         */
+        public DuplicateFilterBuilder falsePositiveRate(final double falsePositiveRate) {
+            if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+                throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+            }
+            this.falsePositiveRate = falsePositiveRate;
+            return this;
+        }
+
+        /**
+         * Sets the number of most recent ids kept exactly. Defaults to 100 000.
+         *
+         * @param recentIds number of ids
+         * @return builder object
+         */
+        public DuplicateFilterBuilder recentIds(final int recentIds) {
+            if (recentIds < 1) {
+                throw new IllegalArgumentException("recentIds must be positive");
+            }
+            this.recentIds = recentIds;
+            return this;
+        }
+
+        /**
+         * Sets whether ids found only in the Bloom filter are suppressed too, so duplicates older than the exact tier
+         * are caught at the cost of dropping new emails at the false positive rate. Defaults to false.
+         *
+         * @param suppressProbable if probable duplicates should not be sent
+         * @return builder object
+         */
+        public DuplicateFilterBuilder suppressProbable(final boolean suppressProbable) {
+            this.suppressProbable = suppressProbable;
+            return this;
+        }
+
+        /**
+         * Creates DuplicateFilter instance.
+         *
+         * @return DuplicateFilter object
+         */
+        public DuplicateFilter build() {
+            return new DuplicateFilter(this);
+        }
+    }
+}
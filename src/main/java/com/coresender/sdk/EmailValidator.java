@@ -0,0 +1,413 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.Email.Address;
+import com.coresender.sdk.data.SendEmailResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Checks emails before they are sent, so an email the API would reject doesn't cost a round trip.
+ * <p>
+ * Addresses are checked by a single pass parser, without regular expressions, so the time taken grows linearly with
+ * the address length whatever the input. Accepted are dot-atom and quoted local parts, UTF-8 characters (RFC 6531),
+ * host names of at least two labels and address literals in brackets. Besides addresses the sender, at least one
+ * recipient, a subject and a text or html body are required, and field lengths are limited.
+ * <p>
+ * Problems are reported as {@link SendEmailResponse.Error}s shaped like the ones returned by the API, with the
+ * {@code required}, {@code invalid}, {@code too_long} or {@code too_many} code and the field path, e.g.
+ * {@code to.0.email}.
+ */
+public final class EmailValidator {
+
+    static final String REJECTED_CODE = "422";
+
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+
+    private static final int MAX_DOMAIN_LENGTH = 253;
+
+    private static final int MAX_LABEL_LENGTH = 63;
+
+    private final int maxAddressLength;
+
+    private final int maxRecipients;
+
+    private final int maxSubjectLength;
+
+    private final int maxCustomIdLength;
+
+    private final int maxBodyLength;
+
+    private final int parallelThreshold;
+
+    private EmailValidator(final EmailValidatorBuilder builder) {
+        this.maxAddressLength = builder.maxAddressLength;
+        this.maxRecipients = builder.maxRecipients;
+        this.maxSubjectLength = builder.maxSubjectLength;
+        this.maxCustomIdLength = builder.maxCustomIdLength;
+        this.maxBodyLength = builder.maxBodyLength;
+        this.parallelThreshold = builder.parallelThreshold;
+    }
+
+    /**
+     * Creates EmailValidatorBuilder instance.
+     *
+     * @return EmailValidatorBuilder object
+     */
+    public static EmailValidatorBuilder builder() {
+        return new EmailValidatorBuilder();
+    }
+
+    /**
+     * Checks a single email.
+     *
+     * @param email email to be checked
+     * @return problems found, empty if the email is valid
+     */
+    public List<SendEmailResponse.Error> validate(Email email) {
+        List<SendEmailResponse.Error> errors = null;
+        errors = checkAddress(errors, email.getFrom(), "from");
+        List<Address> to = email.getTo();
+        if (to.isEmpty()) {
+            errors = add(errors, "required", "At least one recipient is required", "to", null);
+        } else if (to.size() > maxRecipients) {
+            errors = add(errors, "too_many", "More than " + maxRecipients + " recipients", "to", String.valueOf(to.size()));
+        }
+        for (int i = 0; i < to.size(); i++) {
+            errors = checkAddress(errors, to.get(i), "to." + i);
+        }
+        List<Address> replyTo = email.getReplyTo();
+        if (replyTo != null) {
+            for (int i = 0; i < replyTo.size(); i++) {
+                errors = checkAddress(errors, replyTo.get(i), "reply_to." + i);
+            }
+        }
+        // lengths are computed without rendering the email's template, if any
+        long subjectLength = email.subjectLength();
+        if (email.hasBlankSubject()) {
+            errors = add(errors, "required", "Subject is required", "subject", email.getSubject());
+        } else if (subjectLength > maxSubjectLength) {
+            errors = add(errors, "too_long", "Longer than " + maxSubjectLength + " characters", "subject", String.valueOf(subjectLength));
+        }
+        long bodyLength = email.bodyLength();
+        if (bodyLength == 0) {
+            errors = add(errors, "required", "Text or html body is required", "body", null);
+        } else if (bodyLength > maxBodyLength) {
+            errors = add(errors, "too_long", "Longer than " + maxBodyLength + " characters", "body", String.valueOf(bodyLength));
+        }
+        String customId = email.getCustomId();
+        if (customId != null && customId.length() > maxCustomIdLength) {
+            errors = add(errors, "too_long", "Longer than " + maxCustomIdLength + " characters", "custom_id", String.valueOf(customId.length()));
+        }
+        return errors == null ? List.of() : errors;
+    }
+
+    /**
+     * Checks emails, in parallel if there are at least {@code parallelThreshold} of them.
+     *
+     * @param emails emails to be checked
+     * @return processing information of every rejected email at its position and null at valid ones,
+     * or null if all emails are valid
+     */
+    SendEmailResponse.Data[] reject(List<Email> emails) {
+        SendEmailResponse.Data[] rejected = new SendEmailResponse.Data[emails.size()];
+        IntStream indexes = IntStream.range(0, emails.size());
+        if (emails.size() >= parallelThreshold) {
+            indexes = indexes.parallel();
+        }
+        long count = indexes.filter(i -> {
+            Email email = emails.get(i);
+            List<SendEmailResponse.Error> errors = validate(email);
+            if (errors.isEmpty()) {
+                return false;
+            }
+            rejected[i] = SendEmailResponse.Data.rejected(email.getCustomId(), REJECTED_CODE, errors);
+            return true;
+        }).count();
+        return count == 0 ? null : rejected;
+    }
+
+    private List<SendEmailResponse.Error> checkAddress(List<SendEmailResponse.Error> errors, Address address, String field) {
+        String email = address == null ? null : address.getEmail();
+        if (email == null || email.isEmpty()) {
+            return add(errors, "required", "Address is required", field + ".email", null);
+        }
+        if (email.length() > maxAddressLength) {
+            errors = add(errors, "too_long", "Longer than " + maxAddressLength + " characters", field + ".email", String.valueOf(email.length()));
+        } else if (!isValidAddress(email)) {
+            errors = add(errors, "invalid", "Invalid email address", field + ".email", email);
+        }
+        String name = address.getName();
+        if (name != null && (name.indexOf('\r') >= 0 || name.indexOf('\n') >= 0)) {
+            errors = add(errors, "invalid", "Line breaks are not allowed", field + ".name", name);
+        }
+        return errors;
+    }
+
+    private static List<SendEmailResponse.Error> add(List<SendEmailResponse.Error> errors, String code, String description, String field, String value) {
+        if (errors == null) {
+            errors = new ArrayList<>(2);
+        }
+        errors.add(SendEmailResponse.Error.of(code, description, field, value));
+        return errors;
+    }
+
+    /**
+     * Checks the syntax of an email address in a single pass, looking at every character at most once.
+     *
+     * @param address address without a display name, e.g. {@code jean.luc@example.com}
+     * @return true if the address is well formed
+     */
+    public static boolean isValidAddress(String address) {
+        int length = address.length();
+        if (length == 0) {
+            return false;
+        }
+        int i = 0;
+        if (address.charAt(0) == '"') {
+            // quoted string, any printable character, backslash escapes the next one
+            i = 1;
+            boolean closed = false;
+            while (i < length && !closed) {
+                char c = address.charAt(i++);
+                if (c == '\\') {
+                    if (i == length || isControl(address.charAt(i++))) {
+                        return false;
+                    }
+                } else if (c == '"') {
+                    closed = true;
+                } else if (isControl(c)) {
+                    return false;
+                }
+            }
+            if (!closed) {
+                return false;
+            }
+        } else {
+            // dot-atom, no leading, trailing or consecutive dots
+            boolean afterDot = true;
+            for (char c; i < length && (c = address.charAt(i)) != '@'; i++) {
+                if (c == '.') {
+                    if (afterDot) {
+                        return false;
+                    }
+                    afterDot = true;
+                } else if (isAtext(c)) {
+                    afterDot = false;
+                } else {
+                    return false;
+                }
+            }
+            if (afterDot) {
+                return false;
+            }
+        }
+        if (i > MAX_LOCAL_PART_LENGTH + (address.charAt(0) == '"' ? 2 : 0) || i == length || address.charAt(i) != '@') {
+            return false;
+        }
+        return isValidDomain(address, i + 1);
+    }
+
+    private static boolean isValidDomain(String address, int start) {
+        int length = address.length();
+        if (start == length || length - start > MAX_DOMAIN_LENGTH) {
+            return false;
+        }
+        if (address.charAt(start) == '[') {
+            // address literal, e.g. [192.0.2.1] or [IPv6:2001:db8::1]
+            if (length - start < 3 || address.charAt(length - 1) != ']') {
+                return false;
+            }
+            for (int i = start + 1; i < length - 1; i++) {
+                char c = address.charAt(i);
+                if (!isAsciiLetterOrDigit(c) && c != '.' && c != ':') {
+                    return false;
+                }
+            }
+            return true;
+        }
+        int labels = 0;
+        int labelStart = start;
+        for (int i = start; i <= length; i++) {
+            char c = i == length ? '.' : address.charAt(i);
+            if (c == '.') {
+                int labelLength = i - labelStart;
+                if (labelLength == 0 || labelLength > MAX_LABEL_LENGTH || address.charAt(labelStart) == '-' || address.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labels++;
+                labelStart = i + 1;
+            } else if (!isAsciiLetterOrDigit(c) && c != '-' && !isUnicodeText(c)) {
+                return false;
+            }
+        }
+        return labels >= 2;
+    }
+
+    private static boolean isAtext(char c) {
+        if (isAsciiLetterOrDigit(c)) {
+            return true;
+        }
+        switch (c) {
+            case '!':
+            case '#':
+            case '$':
+            case '%':
+            case '&':
+            case '\'':
+            case '*':
+            case '+':
+            case '-':
+            case '/':
+            case '=':
+            case '?':
+            case '^':
+            case '_':
+            case '`':
+            case '{':
+            case '|':
+            case '}':
+            case '~':
+                return true;
+            default:
+                return isUnicodeText(c);
+        }
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+    }
+
+    private static boolean isUnicodeText(char c) {
+        return c >= 0x80 && !Character.isSpaceChar(c) && !Character.isISOControl(c);
+    }
+
+    private static boolean isControl(char c) {
+        return c < 0x20 && c != '\t' || c == 0x7f;
+    }
+
+    @Override
+    public String toString() {
+        return "EmailValidator(maxAddressLength=" + this.maxAddressLength + ", maxRecipients=" + this.maxRecipients + ", maxSubjectLength="
+                + this.maxSubjectLength + ", maxCustomIdLength=" + this.maxCustomIdLength + ", maxBodyLength=" + this.maxBodyLength
+                + ", parallelThreshold=" + this.parallelThreshold + ")";
+    }
+
+    /**
+     * EmailValidator builder for convenient setup.
+     */
+    public static class EmailValidatorBuilder {
+
+        private int maxAddressLength = 254;
+
+        private int maxRecipients = Integer.MAX_VALUE;
+
+        private int maxSubjectLength = 998;
+
+        private int maxCustomIdLength = 255;
+
+        private int maxBodyLength = 5 * 1024 * 1024;
+
+        private int parallelThreshold = 1000;
+
+        EmailValidatorBuilder() {
+        }
+
+        /**
+         * Sets the maximum length of an email address. Defaults to 254, the limit of SMTP.
+         *
+         * @param maxAddressLength maximum number of characters
+         * @return builder object
+         */
+        public EmailValidatorBuilder maxAddressLength(final int maxAddressLength) {
+            if (maxAddressLength < 1) {
+                throw new IllegalArgumentException("maxAddressLength must be positive");
+            }
+            this.maxAddressLength = maxAddressLength;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of recipients of an email. Not limited by default.
+         *
+         * @param maxRecipients maximum number of recipients
+         * @return builder object
+         */
+        public EmailValidatorBuilder maxRecipients(final int maxRecipients) {
+            if (maxRecipients < 1) {
+                throw new IllegalArgumentException("maxRecipients must be positive");
+            }
+            this.maxRecipients = maxRecipients;
+            return this;
+        }
+
+        /**
+         * Sets the maximum length of a subject. Defaults to 998, the line length limit of RFC 5322.
+         *
+         * @param maxSubjectLength maximum number of characters
+         * @return builder object
+         */
+        public EmailValidatorBuilder maxSubjectLength(final int maxSubjectLength) {
+            if (maxSubjectLength < 1) {
+                throw new IllegalArgumentException("maxSubjectLength must be positive");
+            }
+            this.maxSubjectLength = maxSubjectLength;
+            return this;
+        }
+
+        /**
+         * Sets the maximum length of a custom id. Defaults to 255.
+         *
+         * @param maxCustomIdLength maximum number of characters
+         * @return builder object
+         */
+        public EmailValidatorBuilder maxCustomIdLength(final int maxCustomIdLength) {
+            if (maxCustomIdLength < 1) {
+                throw new IllegalArgumentException("maxCustomIdLength must be positive");
+            }
+            this.maxCustomIdLength = maxCustomIdLength;
+            return this;
+        }
+
+        /**
+         * Sets the maximum length of text and html body together. Defaults to 5 Mi characters, the default
+         * request size limit.
+         *
+         * @param maxBodyLength maximum number of characters
+         * @return builder object
+         */
+        public EmailValidatorBuilder maxBodyLength(final int maxBodyLength) {
+            if (maxBodyLength < 1) {
+                throw new IllegalArgumentException("maxBodyLength must be positive");
+            }
+            this.maxBodyLength = maxBodyLength;
+            return this;
+        }
+
+        /**
+         * Sets the number of emails from which a batch is checked in parallel, on the common fork-join pool.
+         * Defaults to 1000.
+         *
+         * @param parallelThreshold minimum batch size checked in parallel
+         * @return builder object
+         */
+        public EmailValidatorBuilder parallelThreshold(final int parallelThreshold) {
+            if (parallelThreshold < 1) {
+                throw new IllegalArgumentException("parallelThreshold must be positive");
+            }
+            this.parallelThreshold = parallelThreshold;
+            return this;
+        }
+
+        /**
+         * Creates EmailValidator instance.
+         *
+         * @return EmailValidator object
+         */
+        public EmailValidator build() {
+            return new EmailValidator(this);
+        }
+    }
+}
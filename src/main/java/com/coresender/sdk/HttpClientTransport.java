@@ -0,0 +1,341 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.Config;
+import kong.unirest.Headers;
+import kong.unirest.HttpResponse;
+import kong.unirest.RawResponseBase;
+import kong.unirest.UnirestException;
+import kong.unirest.jackson.JacksonObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Transport based on {@link HttpClient}. Negotiates HTTP/2 when the server supports it, so concurrent requests
+ * are multiplexed over a single connection instead of opening one connection each.
+ * Accepts gzip and deflate compressed responses. Responses of asynchronous requests are streamed and parsed while
+ * they arrive, on the client's executor or the common pool if the client has none, instead of being buffered first.
+ */
+public class HttpClientTransport implements Transport {
+
+    private final HttpClient client;
+
+    private final Duration requestTimeout;
+
+    private final ExecutorService ownedExecutor;
+
+    private final Executor readExecutor;
+
+    private final Config config = new Config().setObjectMapper(new CodecObjectMapper(new JacksonObjectMapper(Coresender.mapper)));
+
+    /**
+     * Creates transport preferring HTTP/2, with 10 seconds connect timeout and 60 seconds request timeout.
+     */
+    public HttpClientTransport() {
+        this(HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).connectTimeout(Duration.ofSeconds(10)).build(), Duration.ofSeconds(60));
+    }
+
+    /**
+     * @param client         client used to send requests
+     * @param requestTimeout maximum time to wait for a response, or null for no limit
+     */
+    public HttpClientTransport(final HttpClient client, final Duration requestTimeout) {
+        this(client, requestTimeout, null, null);
+    }
+
+    /**
+     * @param client         client used to send requests
+     * @param requestTimeout maximum time to wait for a response, or null for no limit
+     * @param ownedExecutor  executor the client was built with, shut down on close, may be null
+     * @param readExecutor   executor reading responses of asynchronous requests, null for the client's one
+     */
+    HttpClientTransport(final HttpClient client, final Duration requestTimeout, final ExecutorService ownedExecutor, final Executor readExecutor) {
+        if (client == null) {
+            throw new IllegalArgumentException("client is marked non-null but is null");
+        }
+        this.client = client;
+        this.requestTimeout = requestTimeout;
+        this.ownedExecutor = ownedExecutor;
+        this.readExecutor = readExecutor != null ? readExecutor : client.executor().orElse(ForkJoinPool.commonPool());
+    }
+
+    @Override
+    public HttpResponse<SendEmailResponse> send(TransportRequest request) {
+        java.net.http.HttpResponse<InputStream> response;
+        try {
+            response = client.send(request(request), BodyHandlers.ofInputStream());
+        } catch (IOException exception) {
+            throw new UnirestException(exception);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new UnirestException(exception);
+        }
+        try (InputStream content = response.body()) {
+            return request.getReader().toResponse(new Raw(response, content, config));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<SendEmailResponse>> sendAsync(TransportRequest request) {
+        HttpRequest httpRequest;
+        try {
+            httpRequest = request(request);
+        } catch (RuntimeException exception) {
+            return CompletableFuture.failedFuture(exception);
+        }
+        // reading the stream blocks until the body arrives, so it's parsed off the client's completion thread
+        return client.sendAsync(httpRequest, BodyHandlers.ofInputStream())
+                     .thenApplyAsync(response -> {
+                         try (InputStream content = response.body()) {
+                             return request.getReader().toResponse(new Raw(response, content, config));
+                         } catch (IOException exception) {
+                             throw new UncheckedIOException(exception);
+                         }
+                     }, readExecutor);
+    }
+
+    private HttpRequest request(TransportRequest request) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getUrl()));
+        request.getHeaders().forEach(builder::header);
+        if (!request.getHeaders().containsKey("Accept-Encoding")) {
+            builder.header("Accept-Encoding", "gzip, deflate");
+        }
+        if (requestTimeout != null) {
+            builder.timeout(requestTimeout);
+        }
+        // buffers are handed to the client as they are, so the body is never copied into a single array
+        BufferPublisher publisher = new BufferPublisher(request.getBody());
+        long length = request.getBody().getContentLength();
+        return builder.POST(length < 0 ? HttpRequest.BodyPublishers.fromPublisher(publisher)
+                                       : HttpRequest.BodyPublishers.fromPublisher(publisher, length)).build();
+    }
+
+    /**
+     * Shuts down the executor owned by the transport, if any. {@link HttpClient} frees its other resources once
+     * it is no longer referenced.
+     */
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    private static String reasonPhrase(int status) {
+        switch (status) {
+            case 200:
+                return "OK";
+            case 400:
+                return "Bad Request";
+            case 401:
+                return "Unauthorized";
+            case 403:
+                return "Forbidden";
+            case 404:
+                return "Not Found";
+            case 413:
+                return "Payload Too Large";
+            case 422:
+                return "Unprocessable Entity";
+            case 429:
+                return "Too Many Requests";
+            case 500:
+                return "Internal Server Error";
+            case 502:
+                return "Bad Gateway";
+            case 503:
+                return "Service Unavailable";
+            case 504:
+                return "Gateway Timeout";
+            default:
+                return "";
+        }
+    }
+
+    /**
+     * Publishes the buffers of a request body, from the start for every subscription, as the client
+     * subscribes again when it repeats a request.
+     */
+    private static class BufferPublisher implements Flow.Publisher<ByteBuffer> {
+
+        private final RequestBody body;
+
+        BufferPublisher(final RequestBody body) {
+            this.body = body;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            ByteBuffer[] buffers;
+            try {
+                buffers = body.toByteBuffers();
+            } catch (IOException | RuntimeException exception) {
+                BufferSubscription failed = new BufferSubscription(subscriber, new ByteBuffer[0]);
+                failed.cancel();
+                subscriber.onSubscribe(failed);
+                subscriber.onError(exception);
+                return;
+            }
+            subscriber.onSubscribe(new BufferSubscription(subscriber, buffers));
+        }
+    }
+
+    private static class BufferSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+
+        private final ByteBuffer[] buffers;
+
+        private final AtomicLong demand = new AtomicLong();
+
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private int index;
+
+        private volatile boolean done;
+
+        BufferSubscription(final Flow.Subscriber<? super ByteBuffer> subscriber, final ByteBuffer[] buffers) {
+            this.subscriber = subscriber;
+            this.buffers = buffers;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                done = true;
+                subscriber.onError(new IllegalArgumentException("Requested " + n + " buffers, must be positive"));
+                return;
+            }
+            demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            done = true;
+        }
+
+        /**
+         * Emits on the calling thread; requests made by the subscriber from onNext are picked up by the loop
+         * instead of recursing.
+         */
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                while (!done && index < buffers.length && demand.get() > 0) {
+                    ByteBuffer buffer = buffers[index];
+                    buffers[index++] = null;
+                    demand.decrementAndGet();
+                    subscriber.onNext(buffer);
+                }
+                if (!done && index == buffers.length) {
+                    done = true;
+                    subscriber.onComplete();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+    }
+
+    /**
+     * Raw response view over a {@link java.net.http.HttpResponse}.
+     */
+    private static class Raw extends RawResponseBase {
+
+        private final java.net.http.HttpResponse<?> response;
+
+        private final InputStream content;
+
+        private final Headers headers = new Headers();
+
+        Raw(final java.net.http.HttpResponse<?> response, final InputStream content, final Config config) {
+            super(config);
+            this.response = response;
+            this.content = content;
+            response.headers().map().forEach((name, values) -> values.forEach(value -> headers.add(name, value)));
+        }
+
+        @Override
+        public int getStatus() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getStatusText() {
+            // HTTP/2 has no reason phrase
+            return reasonPhrase(response.statusCode());
+        }
+
+        @Override
+        public Headers getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public InputStream getContent() {
+            return content;
+        }
+
+        @Override
+        public byte[] getContentAsBytes() {
+            try {
+                return content.readAllBytes();
+            } catch (IOException exception) {
+                throw new UncheckedIOException(exception);
+            }
+        }
+
+        @Override
+        public String getContentAsString() {
+            return new String(getContentAsBytes(), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String getContentAsString(String charset) {
+            return new String(getContentAsBytes(), Charset.forName(charset));
+        }
+
+        @Override
+        public InputStreamReader getContentReader() {
+            return new InputStreamReader(content, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public boolean hasContent() {
+            return true;
+        }
+
+        @Override
+        public String getContentType() {
+            return response.headers().firstValue("Content-Type").orElse("");
+        }
+
+        @Override
+        public String getEncoding() {
+            return response.headers().firstValue("Content-Encoding").orElse("");
+        }
+    }
+}
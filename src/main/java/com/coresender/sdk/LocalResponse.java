@@ -0,0 +1,88 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.BasicResponse;
+import kong.unirest.Config;
+import kong.unirest.Headers;
+import kong.unirest.HttpResponse;
+import kong.unirest.RawResponseBase;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Successful response made up on the client, for emails settled without sending a request.
+ */
+final class LocalResponse extends RawResponseBase {
+
+    private static final LocalResponse INSTANCE = new LocalResponse();
+
+    private LocalResponse() {
+        super(new Config());
+    }
+
+    /**
+     * @param body response body
+     * @return response with status 200, no headers and the given body
+     */
+    static HttpResponse<SendEmailResponse> of(SendEmailResponse body) {
+        return new BasicResponse<>(INSTANCE, body);
+    }
+
+    @Override
+    public int getStatus() {
+        return 200;
+    }
+
+    @Override
+    public String getStatusText() {
+        return "OK";
+    }
+
+    @Override
+    public Headers getHeaders() {
+        return new Headers();
+    }
+
+    @Override
+    public InputStream getContent() {
+        return new ByteArrayInputStream(new byte[0]);
+    }
+
+    @Override
+    public byte[] getContentAsBytes() {
+        return new byte[0];
+    }
+
+    @Override
+    public String getContentAsString() {
+        return "";
+    }
+
+    @Override
+    public String getContentAsString(String charset) {
+        return "";
+    }
+
+    @Override
+    public InputStreamReader getContentReader() {
+        return new InputStreamReader(getContent(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean hasContent() {
+        return false;
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/json";
+    }
+
+    @Override
+    public String getEncoding() {
+        return "";
+    }
+}
@@ -0,0 +1,205 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Emails of a batch split into those answered locally, rejected by an {@link EmailValidator} or suppressed by
+ * a {@link DuplicateFilter}, and those to be sent. Processing information of the local ones is put back at their
+ * positions once the sent ones are processed, and the custom ids reserved in the duplicate filter are settled.
+ */
+final class LocalResults {
+
+    static final String DUPLICATE_CODE = "409";
+
+    private final SendEmailResponse.Data[] local;
+
+    private final List<Email> remaining;
+
+    private final DuplicateFilter duplicateFilter;
+
+    private final List<String> claimed;
+
+    private final Set<String> accepted = ConcurrentHashMap.newKeySet();
+
+    private int next;
+
+    private LocalResults(final SendEmailResponse.Data[] local, final List<Email> remaining, final DuplicateFilter duplicateFilter, final List<String> claimed) {
+        this.local = local;
+        this.remaining = remaining;
+        this.duplicateFilter = duplicateFilter;
+        this.claimed = claimed;
+    }
+
+    /**
+     * @param validator       validator, may be null
+     * @param duplicateFilter duplicate filter, may be null
+     * @param emails          emails to be checked
+     * @return split batch, or null if every email is to be sent and no custom id needs settling
+     */
+    static LocalResults of(EmailValidator validator, DuplicateFilter duplicateFilter, Collection<Email> emails) {
+        if (validator == null && duplicateFilter == null || emails.isEmpty()) {
+            return null;
+        }
+        List<Email> list = emails instanceof List && emails instanceof RandomAccess ? (List<Email>) emails : new ArrayList<>(emails);
+        SendEmailResponse.Data[] local = validator == null ? null : validator.reject(list);
+        List<String> claimed = null;
+        if (duplicateFilter != null) {
+            for (int i = 0; i < list.size(); i++) {
+                Email email = list.get(i);
+                if (local != null && local[i] != null || email.getCustomId() == null || !email.isCustomIdUnique()) {
+                    continue;
+                }
+                if (duplicateFilter.claim(email.getCustomId())) {
+                    if (claimed == null) {
+                        claimed = new ArrayList<>();
+                    }
+                    claimed.add(email.getCustomId());
+                } else {
+                    if (local == null) {
+                        local = new SendEmailResponse.Data[list.size()];
+                    }
+                    local[i] = duplicate(email.getCustomId());
+                }
+            }
+        }
+        if (local == null && claimed == null) {
+            return null;
+        }
+        List<Email> remaining = list;
+        if (local != null) {
+            remaining = new ArrayList<>(list.size());
+            for (int i = 0; i < local.length; i++) {
+                if (local[i] == null) {
+                    remaining.add(list.get(i));
+                }
+            }
+        }
+        return new LocalResults(local, remaining, duplicateFilter, claimed == null ? List.of() : claimed);
+    }
+
+    /**
+     * @param customId custom id sent before
+     * @return processing information of an email suppressed as a duplicate
+     */
+    static SendEmailResponse.Data duplicate(String customId) {
+        return SendEmailResponse.Data.rejected(customId, DUPLICATE_CODE,
+                                               List.of(SendEmailResponse.Error.of("duplicate", "Custom id was already sent", "custom_id", customId)));
+    }
+
+    /**
+     * @return emails to be sent, possibly none
+     */
+    List<Email> getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Wraps a consumer of the sent emails' processing information, so it receives local ones in between,
+     * in the order of the whole batch. The consumer must be called sequentially.
+     *
+     * @param consumer consumer of processing information, may be null
+     * @return consumer to be passed with the remaining emails, null if the given one is null
+     */
+    Consumer<SendEmailResponse.Data> consumer(Consumer<SendEmailResponse.Data> consumer) {
+        if (consumer == null) {
+            return null;
+        }
+        return data -> {
+            observe(data);
+            flush(consumer, false);
+            next++;
+            consumer.accept(data);
+        };
+    }
+
+    /**
+     * Completes the response of the sent emails with the local ones.
+     *
+     * @param response response of the remaining emails, null if none were sent
+     * @param consumer consumer given to {@link #consumer(Consumer)}, may be null
+     * @return response with processing information of all emails in their order
+     */
+    HttpResponse<SendEmailResponse> merge(HttpResponse<SendEmailResponse> response, Consumer<SendEmailResponse.Data> consumer) {
+        if (consumer != null) {
+            flush(consumer, true);
+            return response != null ? response : LocalResponse.of(SendEmailResponse.of(null, null));
+        }
+        if (response == null) {
+            return LocalResponse.of(SendEmailResponse.of(merge(List.of(), 200), null));
+        }
+        SendEmailResponse body = response.getBody();
+        if (body == null || body.getData() == null) {
+            // failed request, the status tells what happened
+            return response;
+        }
+        body.getData().forEach(this::observe);
+        if (local == null) {
+            return response;
+        }
+        List<SendEmailResponse.Data> merged = merge(body.getData(), response.getStatus());
+        return response.map(ignored -> SendEmailResponse.of(merged, body.getMeta()));
+    }
+
+    /**
+     * Remembers the reserved custom ids of emails reported as accepted and releases the others, so an email of
+     * a failed request of a split batch can be sent again while those of the successful requests stay suppressed.
+     *
+     * @param response  merged response, null if sending failed
+     * @param throwable failure cause, null if a response was received
+     */
+    void settle(HttpResponse<SendEmailResponse> response, Throwable throwable) {
+        for (String id : claimed) {
+            if (throwable == null && accepted.contains(id)) {
+                duplicateFilter.confirm(id);
+            } else {
+                duplicateFilter.forget(id);
+            }
+        }
+    }
+
+    private void observe(SendEmailResponse.Data data) {
+        if (!claimed.isEmpty() && data.getCustomId() != null && "accepted".equals(data.getStatus())) {
+            accepted.add(data.getCustomId());
+        }
+    }
+
+    private List<SendEmailResponse.Data> merge(List<SendEmailResponse.Data> data, int status) {
+        if (data.size() != remaining.size()) {
+            // results can't be told apart, none of the sent emails is reported on
+            data = BatchSplitter.failed(remaining, status);
+        }
+        List<SendEmailResponse.Data> merged = new ArrayList<>(local.length);
+        Iterator<SendEmailResponse.Data> sent = data.iterator();
+        for (SendEmailResponse.Data result : local) {
+            if (result != null) {
+                merged.add(result);
+            } else {
+                merged.add(sent.next());
+            }
+        }
+        return merged;
+    }
+
+    private void flush(Consumer<SendEmailResponse.Data> consumer, boolean all) {
+        if (local == null) {
+            return;
+        }
+        while (next < local.length && (local[next] != null || all)) {
+            if (local[next] != null) {
+                consumer.accept(local[next]);
+            }
+            next++;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+import org.slf4j.Logger;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Logs requests and responses on debug level. Recipient addresses are masked and message content is truncated.
+ * Nothing is formatted unless debug logging is enabled for this class.
+ */
+public class LoggingInterceptor implements SendInterceptor {
+
+    private static final Logger log = getLogger(LoggingInterceptor.class);
+
+    private final int maxContentLength;
+
+    private final int maxEmails;
+
+    /**
+     * Creates interceptor logging up to 10 emails per request with content truncated to 64 characters.
+     */
+    public LoggingInterceptor() {
+        this(64, 10);
+    }
+
+    /**
+     * @param maxContentLength number of message content characters to be logged
+     * @param maxEmails        number of emails and results to be logged per request
+     */
+    public LoggingInterceptor(final int maxContentLength, final int maxEmails) {
+        this.maxContentLength = maxContentLength;
+        this.maxEmails = maxEmails;
+    }
+
+    @Override
+    public void onRequest(Collection<Email> emails) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("Sending ").append(emails.size()).append(" email(s):");
+        int count = 0;
+        for (Email email : emails) {
+            if (count++ == maxEmails) {
+                message.append("\n  ...");
+                break;
+            }
+            message.append("\n  from=");
+            appendAddress(message, email.getFrom());
+            message.append(", to=");
+            appendAddresses(message, email.getTo());
+            message.append(", subject=");
+            appendTruncated(message, email.getSubject());
+            message.append(", customId=").append(email.getCustomId());
+            if (email.getBody() != null) {
+                message.append(", text=");
+                appendTruncated(message, email.getBody().getText());
+                message.append(", html=");
+                appendTruncated(message, email.getBody().getHtml());
+            }
+        }
+        log.debug(message.toString());
+    }
+
+    @Override
+    public void onResponse(Collection<Email> emails, HttpResponse<SendEmailResponse> response) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        StringBuilder message = new StringBuilder("Got response ").append(response.getStatus()).append(' ').append(response.getStatusText());
+        SendEmailResponse body = response.getBody();
+        if (body == null) {
+            response.getParsingError().ifPresent(error -> message.append(", parsing error: ").append(error.getMessage()));
+        } else {
+            if (body.getMeta() != null) {
+                message.append(", rqTime=").append(body.getMeta().getRqTime());
+            }
+            if (body.getData() != null) {
+                int count = 0;
+                for (SendEmailResponse.Data data : body.getData()) {
+                    if (count++ == maxEmails) {
+                        message.append("\n  ...");
+                        break;
+                    }
+                    message.append("\n  ").append(data);
+                }
+            }
+        }
+        log.debug(message.toString());
+    }
+
+    @Override
+    public void onFailure(Collection<Email> emails, Throwable throwable) {
+        log.debug("Sending {} email(s) failed", emails.size(), throwable);
+    }
+
+    private void appendTruncated(StringBuilder message, String value) {
+        if (value == null || value.length() <= maxContentLength) {
+            message.append(value);
+        } else {
+            message.append(value, 0, maxContentLength).append("...(").append(value.length()).append(" chars)");
+        }
+    }
+
+    private static void appendAddresses(StringBuilder message, List<Email.Address> addresses) {
+        message.append('[');
+        for (int i = 0; i < addresses.size(); i++) {
+            if (i > 0) {
+                message.append(", ");
+            }
+            appendAddress(message, addresses.get(i));
+        }
+        message.append(']');
+    }
+
+    private static void appendAddress(StringBuilder message, Email.Address address) {
+        String email = address.getEmail();
+        int at = email == null ? -1 : email.indexOf('@');
+        if (at < 1) {
+            message.append("***");
+        } else {
+            message.append(email.charAt(0)).append("***").append(email, at, email.length());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.coresender.sdk;
+
+import org.slf4j.Logger;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Releases memory-mapped buffers right away instead of when they are garbage collected, which may be never for
+ * buffers that live long enough to be promoted, and which keeps their files from being deleted on Windows.
+ * <p>
+ * Java 11 has no public API for it, so {@code sun.misc.Unsafe.invokeCleaner} is used when available.
+ * A buffer must not be accessed once it is unmapped, doing so crashes the JVM.
+ */
+final class MappedBuffers {
+
+    private static final Logger log = getLogger(MappedBuffers.class);
+
+    private static final Object UNSAFE;
+
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> type = Class.forName("sun.misc.Unsafe");
+            Field field = type.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = field.get(null);
+            invokeCleaner = type.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException exception) {
+            log.debug("Mapped buffers can't be unmapped explicitly, they are released by garbage collection", exception);
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private MappedBuffers() {
+    }
+
+    /**
+     * Unmaps the buffer, or leaves it to garbage collection if that's not possible.
+     *
+     * @param buffer buffer not to be accessed anymore, may be null
+     */
+    static void unmap(MappedByteBuffer buffer) {
+        if (buffer == null || INVOKE_CLEANER == null) {
+            return;
+        }
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (ReflectiveOperationException | RuntimeException exception) {
+            log.debug("Cannot unmap buffer, leaving it to garbage collection", exception);
+        }
+    }
+}
@@ -0,0 +1,542 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.JsonCodec;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Durable queue of emails waiting to be sent, backed by an append-only journal of memory-mapped segment files.
+ * <p>
+ * Appended emails are written to the mapped journal right away, so they survive a crash or restart of the JVM.
+ * The journal is flushed to disk (fsync) by a background thread every commit interval, for all emails appended in
+ * the meantime at once; {@link #append(Email)} returns a future completed by that flush for callers that need to
+ * survive a crash of the machine too.
+ * <p>
+ * Emails confirmed by the API are marked as acknowledged in the journal, and segments whose emails were all
+ * acknowledged are unmapped and deleted by the flushing thread. Emails not acknowledged are read back when the outbox
+ * is opened again. Every segment starts with the next email id, so ids are never reused, even when all segments
+ * but the last one were deleted.
+ */
+public class Outbox implements AutoCloseable {
+
+    private static final Logger log = getLogger(Outbox.class);
+
+    private static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    private static final Duration DEFAULT_COMMIT_INTERVAL = Duration.ofMillis(10);
+
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    /**
+     * Record header: payload length, type, id and checksum.
+     */
+    private static final int HEADER_SIZE = 4 + 1 + 8 + 4;
+
+    private static final byte ENTRY = 1;
+
+    private static final byte ACK = 2;
+
+    private static final byte MARK = 3;
+
+    /**
+     * Size of the record starting every segment with the next email id.
+     */
+    private static final int MARK_SIZE = HEADER_SIZE + Long.BYTES;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final long commitIntervalNanos;
+
+    private final ConcurrentLinkedDeque<Entry> pending = new ConcurrentLinkedDeque<>();
+
+    private final AtomicInteger pendingEmails = new AtomicInteger();
+
+    private final Deque<Segment> segments = new ArrayDeque<>();
+
+    /**
+     * Segments to be unmapped and deleted by the next commit.
+     */
+    private final List<Segment> retired = new ArrayList<>();
+
+    /**
+     * Held while buffers are forced or unmapped, taken before the outbox lock.
+     */
+    private final Object forceLock = new Object();
+
+    private final Thread committer;
+
+    private Segment active;
+
+    private long nextId;
+
+    private CompletableFuture<Void> commit = new CompletableFuture<>();
+
+    private boolean dirty;
+
+    private volatile boolean closed;
+
+    private Outbox(final Path directory, final int segmentSize, final Duration commitInterval) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.commitIntervalNanos = commitInterval.toNanos();
+        this.committer = Coresender.daemonThreadFactory("coresender-outbox-").newThread(this::commitPeriodically);
+    }
+
+    /**
+     * Opens outbox in the given directory with 64 MiB segments flushed every 10 milliseconds.
+     *
+     * @param directory journal directory, created if it doesn't exist
+     * @return outbox with emails not acknowledged before pending
+     * @throws IOException if the journal can't be read or created
+     */
+    public static Outbox open(Path directory) throws IOException {
+        return open(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_COMMIT_INTERVAL);
+    }
+
+    /**
+     * Opens outbox in the given directory.
+     *
+     * @param directory      journal directory, created if it doesn't exist
+     * @param segmentSize    size of a journal segment file in bytes, limits the size of a single email
+     * @param commitInterval how often appended emails are flushed to disk
+     * @return outbox with emails not acknowledged before pending
+     * @throws IOException if the journal can't be read or created
+     */
+    public static Outbox open(Path directory, int segmentSize, Duration commitInterval) throws IOException {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory is marked non-null but is null");
+        }
+        if (commitInterval == null) {
+            throw new IllegalArgumentException("commitInterval is marked non-null but is null");
+        }
+        if (segmentSize < 4096) {
+            throw new IllegalArgumentException("segmentSize must be at least 4096");
+        }
+        Files.createDirectories(directory);
+        Outbox outbox = new Outbox(directory, segmentSize, commitInterval);
+        outbox.replay();
+        outbox.committer.start();
+        return outbox;
+    }
+
+    /**
+     * Appends email to the journal and the pending emails.
+     *
+     * @param email to be sent
+     * @return future completed once the email is flushed to disk
+     * @throws UncheckedIOException if the email can't be written
+     */
+    public CompletableFuture<Void> append(Email email) {
+        if (email == null) {
+            throw new IllegalArgumentException("email is marked non-null but is null");
+        }
+        byte[] payload;
+        try {
+            payload = JsonCodec.writeEmailAsBytes(email);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        if (MARK_SIZE + HEADER_SIZE + payload.length > segmentSize) {
+            throw new IllegalArgumentException("Email of " + payload.length + " bytes doesn't fit into a journal segment");
+        }
+        Entry entry;
+        CompletableFuture<Void> committed;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Outbox is closed");
+            }
+            long id = nextId++;
+            Segment segment = write(ENTRY, id, payload);
+            segment.live++;
+            entry = new Entry(id, email, segment);
+            committed = commit;
+        }
+        pending.add(entry);
+        pendingEmails.incrementAndGet();
+        return committed;
+    }
+
+    /**
+     * @return number of emails waiting to be sent
+     */
+    public int getPendingEmails() {
+        return pendingEmails.get();
+    }
+
+    /**
+     * Flushes appended emails and acknowledgements to disk now.
+     *
+     * @return future completed once flushed
+     */
+    public CompletableFuture<Void> sync() {
+        CompletableFuture<Void> committed;
+        synchronized (this) {
+            if (!dirty) {
+                return CompletableFuture.completedFuture(null);
+            }
+            committed = commit;
+        }
+        commitNow();
+        return committed;
+    }
+
+    /**
+     * Takes all pending emails.
+     *
+     * @return pending entries in the order they were appended
+     */
+    List<Entry> drain() {
+        List<Entry> entries = new ArrayList<>();
+        Entry entry;
+        while ((entry = pending.poll()) != null) {
+            entries.add(entry);
+            pendingEmails.decrementAndGet();
+        }
+        return entries;
+    }
+
+    /**
+     * Returns entries that were not confirmed to the front of the pending emails.
+     *
+     * @param entries entries to be sent again, in their original order
+     */
+    void requeue(List<Entry> entries) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            pending.addFirst(entries.get(i));
+            pendingEmails.incrementAndGet();
+        }
+    }
+
+    /**
+     * Marks entries as sent, so they won't be replayed, and deletes segments with no pending entries left.
+     *
+     * @param entries entries confirmed by the API
+     */
+    void acknowledge(Collection<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        int perRecord = (segmentSize - MARK_SIZE - HEADER_SIZE) / Long.BYTES;
+        List<byte[]> records = new ArrayList<>();
+        ByteBuffer ids = null;
+        for (Entry entry : entries) {
+            if (ids == null || !ids.hasRemaining()) {
+                ids = ByteBuffer.allocate(Math.min(perRecord, entries.size() - records.size() * perRecord) * Long.BYTES);
+                records.add(ids.array());
+            }
+            ids.putLong(entry.id);
+        }
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("Outbox is closed");
+            }
+            for (byte[] record : records) {
+                write(ACK, 0, record);
+            }
+            for (Entry entry : entries) {
+                entry.segment.live--;
+            }
+            compact();
+        }
+    }
+
+    private Segment write(byte type, long id, byte[] payload) {
+        int size = HEADER_SIZE + payload.length;
+        if (active == null || active.buffer.remaining() < size) {
+            roll();
+        }
+        CRC32C checksum = new CRC32C();
+        checksum.update(type);
+        checksum.update(ByteBuffer.allocate(Long.BYTES).putLong(0, id));
+        checksum.update(payload);
+        // the length goes last, so a record torn by a crash reads as the end of the segment
+        MappedByteBuffer buffer = active.buffer;
+        int start = buffer.position();
+        buffer.position(start + 4);
+        buffer.put(type).putLong(id).putInt((int) checksum.getValue()).put(payload);
+        buffer.putInt(start, payload.length);
+        active.dirty = true;
+        dirty = true;
+        return active;
+    }
+
+    private void roll() {
+        long number = active == null ? (segments.isEmpty() ? 0 : segments.peekLast().number + 1) : active.number + 1;
+        Path path = directory.resolve(String.format("%020d%s", number, SEGMENT_SUFFIX));
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(segmentSize);
+            MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            // a full segment is never written to again, so flush its tail before moving on
+            if (active != null && active.dirty) {
+                active.buffer.force();
+                active.dirty = false;
+            }
+            active = new Segment(number, path, buffer);
+            segments.addLast(active);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        write(MARK, 0, ByteBuffer.allocate(Long.BYTES).putLong(0, nextId).array());
+    }
+
+    private void compact() {
+        while (!segments.isEmpty() && segments.peekFirst() != active && segments.peekFirst().live == 0) {
+            // a commit may be forcing the buffer right now, so it's unmapped by the next one
+            retired.add(segments.pollFirst());
+        }
+    }
+
+    private static void delete(Segment segment) {
+        MappedBuffers.unmap(segment.buffer);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException exception) {
+            log.warn("Cannot delete journal segment {}", segment.path, exception);
+        }
+    }
+
+    private void replay() throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().collect(Collectors.toList());
+        }
+        Map<Long, Replayed> entries = new LinkedHashMap<>();
+        for (Path path : files) {
+            String name = path.getFileName().toString();
+            Segment segment = new Segment(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), path, null);
+            segments.addLast(segment);
+            try (FileChannel channel = FileChannel.open(path)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                try {
+                    readSegment(segment, buffer, entries);
+                } finally {
+                    MappedBuffers.unmap(buffer);
+                }
+            }
+        }
+        for (Map.Entry<Long, Replayed> replayed : entries.entrySet()) {
+            Segment segment = replayed.getValue().segment;
+            try {
+                pending.add(new Entry(replayed.getKey(), JsonCodec.readEmail(replayed.getValue().payload), segment));
+                pendingEmails.incrementAndGet();
+            } catch (IOException exception) {
+                log.warn("Dropping unreadable email {} from journal segment {}", replayed.getKey(), segment.path, exception);
+                segment.live--;
+            }
+        }
+        if (pendingEmails.get() > 0) {
+            log.info("Replayed {} email(s) not acknowledged from {}", pendingEmails.get(), directory);
+        }
+        synchronized (this) {
+            roll();
+            compact();
+        }
+    }
+
+    private void readSegment(Segment segment, ByteBuffer buffer, Map<Long, Replayed> entries) {
+        CRC32C checksum = new CRC32C();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            byte type = buffer.get();
+            long id = buffer.getLong();
+            int expected = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining() || (type != ENTRY && type != ACK && type != MARK)) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            checksum.reset();
+            checksum.update(type);
+            checksum.update(ByteBuffer.allocate(Long.BYTES).putLong(0, id));
+            checksum.update(payload);
+            if ((int) checksum.getValue() != expected) {
+                log.warn("Journal segment {} is damaged at offset {}, ignoring the rest of it", segment.path, start);
+                break;
+            }
+            if (type == ENTRY) {
+                entries.put(id, new Replayed(segment, payload));
+                segment.live++;
+                nextId = Math.max(nextId, id + 1);
+            } else if (type == MARK) {
+                nextId = Math.max(nextId, ByteBuffer.wrap(payload).getLong());
+            } else {
+                ByteBuffer ids = ByteBuffer.wrap(payload);
+                while (ids.remaining() >= Long.BYTES) {
+                    Replayed acknowledged = entries.remove(ids.getLong());
+                    if (acknowledged != null) {
+                        acknowledged.segment.live--;
+                    }
+                }
+            }
+        }
+    }
+
+    private void commitPeriodically() {
+        while (!closed) {
+            LockSupport.parkNanos(this, commitIntervalNanos);
+            commitNow();
+        }
+    }
+
+    private void commitNow() {
+        synchronized (forceLock) {
+            List<MappedByteBuffer> buffers = new ArrayList<>();
+            List<Segment> deleted;
+            CompletableFuture<Void> committed = null;
+            synchronized (this) {
+                deleted = new ArrayList<>(retired);
+                retired.clear();
+                if (dirty) {
+                    dirty = false;
+                    committed = commit;
+                    commit = new CompletableFuture<>();
+                    for (Segment segment : segments) {
+                        if (segment.dirty) {
+                            segment.dirty = false;
+                            buffers.add(segment.buffer);
+                        }
+                    }
+                }
+            }
+            // forcing outside of the outbox lock lets appends continue into the next commit meanwhile
+            if (committed != null) {
+                try {
+                    for (MappedByteBuffer buffer : buffers) {
+                        buffer.force();
+                    }
+                    committed.complete(null);
+                } catch (RuntimeException exception) {
+                    log.error("Cannot flush outbox journal in {}", directory, exception);
+                    committed.completeExceptionally(exception);
+                }
+            }
+            deleted.forEach(Outbox::delete);
+        }
+    }
+
+    /**
+     * Flushes the journal, stops the flushing thread and unmaps the segments. Pending emails stay in the journal.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        LockSupport.unpark(committer);
+        try {
+            committer.join(TimeUnit.NANOSECONDS.toMillis(commitIntervalNanos) + 1000);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        commitNow();
+        synchronized (forceLock) {
+            List<Segment> unmapped;
+            synchronized (this) {
+                unmapped = new ArrayList<>(segments);
+                segments.clear();
+                active = null;
+            }
+            for (Segment segment : unmapped) {
+                MappedBuffers.unmap(segment.buffer);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Outbox(directory=" + this.directory + ", pendingEmails=" + this.pendingEmails.get() + ")";
+    }
+
+    /**
+     * Email in the journal.
+     */
+    static final class Entry {
+
+        private final long id;
+
+        private final Email email;
+
+        private final Segment segment;
+
+        Entry(final long id, final Email email, final Segment segment) {
+            this.id = id;
+            this.email = email;
+            this.segment = segment;
+        }
+
+        long getId() {
+            return this.id;
+        }
+
+        Email getEmail() {
+            return this.email;
+        }
+    }
+
+    private static final class Segment {
+
+        private final long number;
+
+        private final Path path;
+
+        private final MappedByteBuffer buffer;
+
+        /**
+         * Number of entries not acknowledged yet.
+         */
+        private int live;
+
+        private boolean dirty;
+
+        Segment(final long number, final Path path, final MappedByteBuffer buffer) {
+            this.number = number;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+
+    private static final class Replayed {
+
+        private final Segment segment;
+
+        private final byte[] payload;
+
+        Replayed(final Segment segment, final byte[] payload) {
+            this.segment = segment;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.coresender.sdk;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Request content held in a chain of buffers borrowed from a {@link BufferPool}, returned to it once the request
+ * is finished.
+ */
+class PooledRequestBody implements RequestBody {
+
+    private final BufferPool pool;
+
+    private final List<ByteBuffer> buffers;
+
+    private final long contentLength;
+
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private volatile boolean abandoned;
+
+    PooledRequestBody(final BufferPool pool, final List<ByteBuffer> buffers) {
+        this.pool = pool;
+        this.buffers = buffers;
+        long length = 0;
+        for (ByteBuffer buffer : buffers) {
+            length += buffer.remaining();
+        }
+        this.contentLength = length;
+    }
+
+    @Override
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(OutputStream output) throws IOException {
+        byte[] chunk = null;
+        for (ByteBuffer buffer : toByteBuffers()) {
+            if (buffer.hasArray()) {
+                output.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                continue;
+            }
+            if (chunk == null) {
+                chunk = new byte[8192];
+            }
+            while (buffer.hasRemaining()) {
+                int count = Math.min(chunk.length, buffer.remaining());
+                buffer.get(chunk, 0, count);
+                output.write(chunk, 0, count);
+            }
+        }
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[Math.toIntExact(contentLength)];
+        int offset = 0;
+        for (ByteBuffer buffer : toByteBuffers()) {
+            int count = buffer.remaining();
+            buffer.get(bytes, offset, count);
+            offset += count;
+        }
+        return bytes;
+    }
+
+    @Override
+    public ByteBuffer[] toByteBuffers() {
+        if (released.get()) {
+            throw new IllegalStateException("Request body is already released");
+        }
+        ByteBuffer[] views = new ByteBuffer[buffers.size()];
+        for (int i = 0; i < views.length; i++) {
+            ByteBuffer buffer = buffers.get(i);
+            // heap views stay writable, so the transport can reach the backing array instead of copying
+            views[i] = buffer.isDirect() ? buffer.asReadOnlyBuffer() : buffer.duplicate();
+        }
+        return views;
+    }
+
+    /**
+     * Keeps the buffers out of the pool on release, as a failed attempt may still be reading them.
+     */
+    void abandon() {
+        abandoned = true;
+    }
+
+    /**
+     * Returns the buffers to the pool, only the first call has an effect.
+     */
+    void release() {
+        if (released.compareAndSet(false, true)) {
+            pool.release(buffers, !abandoned);
+        }
+    }
+}
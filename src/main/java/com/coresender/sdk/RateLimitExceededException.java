@@ -0,0 +1,18 @@
+package com.coresender.sdk;
+
+/**
+ * Thrown (or used to complete a future exceptionally) when emails can't be sent without exceeding the configured
+ * rate limit and the limiter is set to fail fast.
+ */
+public class RateLimitExceededException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public RateLimitExceededException(final String message) {
+        super(message);
+    }
+
+    public RateLimitExceededException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
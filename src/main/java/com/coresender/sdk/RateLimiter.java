@@ -0,0 +1,104 @@
+package com.coresender.sdk;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token bucket metering emails per second, with a burst capacity. A batch takes as many tokens as it has emails.
+ * <p>
+ * Implemented as a generic cell rate algorithm: the whole state is a single timestamp updated with compare-and-set,
+ * so threads never block each other. One limiter can be shared by several {@link Coresender} instances
+ * sending from the same account.
+ */
+public class RateLimiter {
+
+    private final long nanosPerEmail;
+
+    private final long burstNanos;
+
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param emailsPerSecond sustained number of emails per second
+     * @param burst           number of emails that may be sent at once after the limiter was idle
+     * @throws IllegalArgumentException if a rate or burst is not positive, or the burst spans more nanoseconds
+     *                                  than fit in a long
+     */
+    public RateLimiter(final double emailsPerSecond, final int burst) {
+        if (!(emailsPerSecond > 0)) {
+            throw new IllegalArgumentException("emailsPerSecond must be positive");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be positive");
+        }
+        this.nanosPerEmail = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / emailsPerSecond));
+        try {
+            this.burstNanos = Math.multiplyExact(nanosPerEmail, burst);
+        } catch (ArithmeticException exception) {
+            throw new IllegalArgumentException("burst is too large for emailsPerSecond");
+        }
+        this.theoreticalArrival = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Takes tokens for the emails if they are available now.
+     *
+     * @param emails number of emails
+     * @return true if the emails may be sent now, false if nothing was taken
+     */
+    public boolean tryAcquire(int emails) {
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + emails * nanosPerEmail;
+            if (next - burstNanos - now > 0) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Takes tokens for the emails, going into debt if they are not available yet.
+     * Batches larger than the burst capacity are admitted once the debt is paid off.
+     *
+     * @param emails number of emails
+     * @return nanoseconds to wait before the emails may be sent, zero if they may be sent now
+     */
+    public long reserve(int emails) {
+        while (true) {
+            long now = System.nanoTime();
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + emails * nanosPerEmail;
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return Math.max(0, next - burstNanos - now);
+            }
+        }
+    }
+
+    /**
+     * Takes tokens for the emails, blocking the calling thread until they are available.
+     *
+     * @param emails number of emails
+     * @throws InterruptedException if interrupted while waiting; the tokens are not returned then
+     */
+    public void acquire(int emails) throws InterruptedException {
+        long deadline = System.nanoTime() + reserve(emails);
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RateLimiter(emailsPerSecond=" + (double) TimeUnit.SECONDS.toNanos(1) / nanosPerEmail
+                + ", burst=" + burstNanos / nanosPerEmail + ")";
+    }
+}
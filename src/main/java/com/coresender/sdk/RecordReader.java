@@ -0,0 +1,295 @@
+package com.coresender.sdk;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads CSV records or lines of a file through a memory-mapped window moved along the file, so only the window and
+ * the record being read take memory, however large the file is.
+ * <p>
+ * A record is parsed straight from the window. When it runs past the end of the window, the window is mapped again
+ * from the start of the record, twice as large if the record alone is longer than the window. The previous window
+ * is unmapped right away, so the mapped memory stays constant however many times the window moves.
+ */
+final class RecordReader implements AutoCloseable {
+
+    private static final int MORE = -1;
+
+    private static final int MALFORMED = -2;
+
+    private final FileChannel channel;
+
+    private final long size;
+
+    private final int windowSize;
+
+    private MappedByteBuffer window;
+
+    private long windowStart;
+
+    private int position;
+
+    private byte[] record = new byte[256];
+
+    private int length;
+
+    private String malformed;
+
+    private long malformedAt;
+
+    RecordReader(final FileChannel channel, final int windowSize) throws IOException {
+        this.channel = channel;
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        map(0, windowSize);
+    }
+
+    /**
+     * @return offset of the next record in the file
+     */
+    long position() {
+        return windowStart + position;
+    }
+
+    /**
+     * Moves to a record boundary, e.g. one returned by {@link #position()} before.
+     *
+     * @param offset offset of a record in the file
+     * @throws IOException if the offset is past the end of the file
+     */
+    void seek(long offset) throws IOException {
+        if (offset < 0 || offset > size) {
+            throw new IOException("Offset " + offset + " is outside of the file of " + size + " bytes");
+        }
+        map(offset, windowSize);
+    }
+
+    /**
+     * Skips the UTF-8 byte order mark at the start of the file, if any.
+     */
+    void skipByteOrderMark() {
+        if (position() == 0 && window.limit() >= 3
+                && window.get(0) == (byte) 0xEF && window.get(1) == (byte) 0xBB && window.get(2) == (byte) 0xBF) {
+            position = 3;
+        }
+    }
+
+    /**
+     * Reads an RFC 4180 record: fields may be quoted, with quotes doubled and line breaks kept inside. Blank lines
+     * are skipped. A record with a malformed quoted field is read up to the line break following the problem,
+     * with no fields and {@link #getMalformed()} telling what's wrong, so reading can go on with the next record.
+     *
+     * @param delimiter field delimiter
+     * @param fields    cleared and filled with the fields of the record
+     * @return false at the end of the file
+     */
+    boolean readCsv(byte delimiter, List<String> fields) throws IOException {
+        malformed = null;
+        while (position() < size) {
+            int end = parseCsv(delimiter, fields);
+            if (end == MORE) {
+                remap();
+                continue;
+            }
+            if (end == MALFORMED) {
+                fields.clear();
+                skipLine(malformedAt);
+                return true;
+            }
+            position = end;
+            if (fields.size() > 1 || !fields.get(0).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads a line without its line break into {@link #getRecord()}. Blank lines are skipped.
+     *
+     * @return false at the end of the file
+     */
+    boolean readLine() throws IOException {
+        while (position() < size) {
+            int limit = window.limit();
+            int i = position;
+            while (i < limit && window.get(i) != '\n') {
+                i++;
+            }
+            if (i == limit && !isLast()) {
+                remap();
+                continue;
+            }
+            length = 0;
+            int end = i > position && window.get(i - 1) == '\r' ? i - 1 : i;
+            for (int j = position; j < end; j++) {
+                append(window.get(j));
+            }
+            position = i < limit ? i + 1 : i;
+            if (length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return problem of the last record read by {@link #readCsv(byte, List)}, or null if it is well formed
+     */
+    String getMalformed() {
+        return malformed;
+    }
+
+    /**
+     * @return bytes of the last line read, valid up to {@link #getLength()}
+     */
+    byte[] getRecord() {
+        return record;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    /**
+     * @return index just past the record in the window, {@link #MORE} if the record goes on past the window,
+     * or {@link #MALFORMED} with the problem and its offset set
+     */
+    private int parseCsv(byte delimiter, List<String> fields) {
+        fields.clear();
+        MappedByteBuffer buffer = window;
+        int limit = buffer.limit();
+        boolean last = isLast();
+        int i = position;
+        while (true) {
+            length = 0;
+            if (i < limit && buffer.get(i) == '"') {
+                int quote = i++;
+                while (true) {
+                    if (i >= limit) {
+                        if (last) {
+                            // everything after the quote was taken for its content, so reading resumes on its line
+                            return malformed("Unterminated quoted field", windowStart + quote);
+                        }
+                        return MORE;
+                    }
+                    byte b = buffer.get(i++);
+                    if (b == '"') {
+                        if (i < limit && buffer.get(i) == '"') {
+                            append(b);
+                            i++;
+                            continue;
+                        }
+                        if (i >= limit && !last) {
+                            return MORE;
+                        }
+                        break;
+                    }
+                    append(b);
+                }
+            } else {
+                while (i < limit) {
+                    byte b = buffer.get(i);
+                    if (b == delimiter || b == '\n') {
+                        break;
+                    }
+                    append(b);
+                    i++;
+                }
+                if (i >= limit && !last) {
+                    return MORE;
+                }
+                if (length > 0 && record[length - 1] == '\r' && (i >= limit || buffer.get(i) == '\n')) {
+                    length--;
+                }
+            }
+            fields.add(new String(record, 0, length, StandardCharsets.UTF_8));
+            if (i >= limit) {
+                return i;
+            }
+            byte b = buffer.get(i++);
+            if (b == delimiter) {
+                continue;
+            }
+            if (b == '\r') {
+                if (i >= limit) {
+                    return last ? i : MORE;
+                }
+                b = buffer.get(i++);
+            }
+            if (b == '\n') {
+                return i;
+            }
+            return malformed("Unexpected character after quoted field", windowStart + i - 1);
+        }
+    }
+
+    private int malformed(String problem, long offset) {
+        malformed = problem + " at offset " + offset;
+        malformedAt = offset;
+        return MALFORMED;
+    }
+
+    /**
+     * Moves just past the first line break at or after the offset, or to the end of the file.
+     */
+    private void skipLine(long offset) throws IOException {
+        position = (int) (offset - windowStart);
+        while (true) {
+            int limit = window.limit();
+            int i = position;
+            while (i < limit && window.get(i) != '\n') {
+                i++;
+            }
+            if (i < limit) {
+                position = i + 1;
+                return;
+            }
+            position = limit;
+            if (isLast()) {
+                return;
+            }
+            remap();
+        }
+    }
+
+    private boolean isLast() {
+        return windowStart + window.limit() == size;
+    }
+
+    private void remap() throws IOException {
+        long length = position == 0 ? 2L * window.limit() : windowSize;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Record at offset " + position() + " is longer than " + Integer.MAX_VALUE + " bytes");
+        }
+        map(position(), Math.max(length, windowSize));
+    }
+
+    private void map(long offset, long length) throws IOException {
+        MappedByteBuffer previous = window;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(length, size - offset));
+        windowStart = offset;
+        position = 0;
+        MappedBuffers.unmap(previous);
+    }
+
+    /**
+     * Unmaps the window. The reader must not be used afterwards.
+     */
+    @Override
+    public void close() {
+        MappedBuffers.unmap(window);
+        window = null;
+    }
+
+    private void append(byte b) {
+        if (length == record.length) {
+            record = Arrays.copyOf(record, length * 2);
+        }
+        record[length++] = b;
+    }
+}
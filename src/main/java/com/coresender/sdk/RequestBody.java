@@ -0,0 +1,74 @@
+package com.coresender.sdk;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Serialized request content.
+ * <p>
+ * Content may be held in pooled buffers reused for later requests, so it must be read, or copied, before
+ * the transport completes the request.
+ */
+public interface RequestBody {
+
+    /**
+     * Creates body backed by the given bytes.
+     *
+     * @param bytes content
+     * @return request body
+     */
+    static RequestBody of(byte[] bytes) {
+        return new RequestBody() {
+            @Override
+            public long getContentLength() {
+                return bytes.length;
+            }
+
+            @Override
+            public void writeTo(OutputStream output) throws IOException {
+                output.write(bytes);
+            }
+
+            @Override
+            public byte[] toByteArray() {
+                return bytes;
+            }
+        };
+    }
+
+    /**
+     * @return number of bytes, or -1 if not known before writing
+     */
+    long getContentLength();
+
+    /**
+     * Writes the content. May be called more than once, e.g. when a request is repeated.
+     *
+     * @param output target stream
+     * @throws IOException if writing fails
+     */
+    void writeTo(OutputStream output) throws IOException;
+
+    /**
+     * @return the content as a byte array
+     * @throws IOException if writing fails
+     */
+    default byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(getContentLength() > 0 ? (int) getContentLength() : 8192);
+        writeTo(output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Returns the content as buffers to be written in order, without copying it into a single array where possible.
+     * Each call returns new buffer views positioned at the start of the content.
+     *
+     * @return the content as buffers
+     * @throws IOException if writing fails
+     */
+    default ByteBuffer[] toByteBuffers() throws IOException {
+        return new ByteBuffer[]{ByteBuffer.wrap(toByteArray())};
+    }
+}
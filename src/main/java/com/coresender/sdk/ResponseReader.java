@@ -0,0 +1,68 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.BasicResponse;
+import kong.unirest.HttpResponse;
+import kong.unirest.RawResponse;
+import kong.unirest.UnirestParsingException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Turns response content into a send response.
+ */
+@FunctionalInterface
+public interface ResponseReader {
+
+    /**
+     * Reads the response content.
+     *
+     * @param content response content
+     * @return parsed response, or null if there is no content
+     * @throws IOException              if the content can't be read or parsed
+     * @throws UnirestParsingException if the content can't be parsed, carrying the original content
+     */
+    SendEmailResponse read(InputStream content) throws IOException;
+
+    /**
+     * Reads the raw response into a response object, decompressing gzip or deflate encoded content.
+     * Parsing failures are reported as the response's parsing error, the same way as Unirest does.
+     *
+     * @param raw raw HTTP response
+     * @return response with parsed body or parsing error
+     */
+    default HttpResponse<SendEmailResponse> toResponse(RawResponse raw) {
+        if (!raw.hasContent()) {
+            return new BasicResponse<>(raw, null);
+        }
+        try {
+            return new BasicResponse<>(raw, read(decode(raw.getEncoding(), raw.getContent())));
+        } catch (UnirestParsingException exception) {
+            return new BasicResponse<>(raw, exception.getOriginalBody(), exception);
+        } catch (IOException exception) {
+            return new BasicResponse<>(raw, "", new UncheckedIOException(exception));
+        } catch (RuntimeException exception) {
+            return new BasicResponse<>(raw, "", exception);
+        }
+    }
+
+    private static InputStream decode(String encoding, InputStream content) throws IOException {
+        boolean gzip = "gzip".equalsIgnoreCase(encoding);
+        if (!gzip && !"deflate".equalsIgnoreCase(encoding)) {
+            return content;
+        }
+        // an empty body has no compression header to read
+        PushbackInputStream pushback = new PushbackInputStream(content);
+        int first = pushback.read();
+        if (first == -1) {
+            return pushback;
+        }
+        pushback.unread(first);
+        return gzip ? new GZIPInputStream(pushback) : new InflaterInputStream(pushback);
+    }
+}
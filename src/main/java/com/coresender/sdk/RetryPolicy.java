@@ -0,0 +1,263 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+import org.apache.http.conn.ConnectTimeoutException;
+
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when a failed request is repeated.
+ * <p>
+ * Requests failing with 429, 500, 502, 503 or 504 status or without any response are retried with exponential
+ * backoff and decorrelated jitter, so clients failing at the same moment don't retry at the same moment.
+ * A {@code Retry-After} header takes precedence over the backoff, up to the maximum delay.
+ * <p>
+ * Repeating a request which may have reached the API could send the emails twice. Unless
+ * {@link RetryPolicyBuilder#retryNonIdempotent(boolean)} is set, a request is retried only if that can't happen:
+ * every email has a unique custom id, the API rejected the request with 429, or the connection was never established.
+ */
+public final class RetryPolicy {
+
+    private static final RetryPolicy NONE = builder().maxAttempts(1).build();
+
+    private final int maxAttempts;
+
+    private final Duration baseDelay;
+
+    private final Duration maxDelay;
+
+    private final boolean retryNonIdempotent;
+
+    private RetryPolicy(final RetryPolicyBuilder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.baseDelay = builder.baseDelay;
+        this.maxDelay = builder.maxDelay;
+        this.retryNonIdempotent = builder.retryNonIdempotent;
+    }
+
+    /**
+     * @return policy making a single attempt
+     */
+    public static RetryPolicy none() {
+        return NONE;
+    }
+
+    public static RetryPolicyBuilder builder() {
+        return new RetryPolicyBuilder();
+    }
+
+    /**
+     * @return maximum number of attempts, including the first one
+     */
+    public int getMaxAttempts() {
+        return this.maxAttempts;
+    }
+
+    /**
+     * @return delay before the first retry
+     */
+    public Duration getBaseDelay() {
+        return this.baseDelay;
+    }
+
+    /**
+     * @return maximum delay between attempts computed by backoff
+     */
+    public Duration getMaxDelay() {
+        return this.maxDelay;
+    }
+
+    /**
+     * @return if requests are retried even when the emails might be sent twice
+     */
+    public boolean isRetryNonIdempotent() {
+        return this.retryNonIdempotent;
+    }
+
+    /**
+     * Decides whether the request should be repeated after the given attempt.
+     *
+     * @param attempt   number of the attempt that just finished, starting at 1
+     * @param emails    emails sent in the request
+     * @param response  received response, null if the request failed
+     * @param throwable failure cause, null if a response was received
+     * @return true if the request should be repeated
+     */
+    boolean shouldRetry(int attempt, Collection<Email> emails, HttpResponse<SendEmailResponse> response, Throwable throwable) {
+        if (attempt >= maxAttempts) {
+            return false;
+        }
+        if (throwable != null) {
+            return retryNonIdempotent || isIdempotent(emails) || isNotConnected(throwable);
+        }
+        switch (response.getStatus()) {
+            case 429:
+                return true;
+            case 500:
+            case 502:
+            case 503:
+            case 504:
+                return retryNonIdempotent || isIdempotent(emails);
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Computes the delay before the next attempt.
+     *
+     * @param previousDelay delay before the previous attempt, zero before the first retry
+     * @param response      received response, null if the request failed
+     * @return delay in milliseconds
+     */
+    long delayMillis(long previousDelay, HttpResponse<SendEmailResponse> response) {
+        if (response != null && response.getHeaders() != null) {
+            long retryAfter = retryAfterMillis(response.getHeaders().getFirst("Retry-After"));
+            if (retryAfter >= 0) {
+                return Math.min(retryAfter, maxDelay.toMillis());
+            }
+        }
+        // decorrelated jitter: random between the base delay and three times the previous delay
+        long base = baseDelay.toMillis();
+        long upper = Math.max(base, Math.min(maxDelay.toMillis(), previousDelay * 3));
+        return upper > base ? ThreadLocalRandom.current().nextLong(base, upper + 1) : base;
+    }
+
+    static long retryAfterMillis(String retryAfter) {
+        if (retryAfter == null || retryAfter.isEmpty()) {
+            return -1;
+        }
+        try {
+            long seconds = Long.parseLong(retryAfter.trim());
+            return seconds > Long.MAX_VALUE / 1000 ? Long.MAX_VALUE : Math.max(0, seconds * 1000);
+        } catch (NumberFormatException exception) {
+            // not delta seconds, so it should be HTTP date
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, Duration.between(ZonedDateTime.now(date.getZone()), date).toMillis());
+        } catch (DateTimeParseException exception) {
+            return -1;
+        }
+    }
+
+    private static boolean isIdempotent(Collection<Email> emails) {
+        for (Email email : emails) {
+            if (email.getCustomId() == null || !email.isCustomIdUnique()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isNotConnected(Throwable throwable) {
+        Throwable cause = throwable;
+        for (int depth = 0; cause != null && depth < 10; depth++) {
+            if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException || cause instanceof ConnectTimeoutException) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy(maxAttempts=" + this.maxAttempts + ", baseDelay=" + this.baseDelay + ", maxDelay=" + this.maxDelay
+                + ", retryNonIdempotent=" + this.retryNonIdempotent + ")";
+    }
+
+    /**
+     * RetryPolicy builder for convenient setup.
+     */
+    public static class RetryPolicyBuilder {
+
+        private int maxAttempts = 3;
+
+        private Duration baseDelay = Duration.ofMillis(100);
+
+        private Duration maxDelay = Duration.ofSeconds(10);
+
+        private boolean retryNonIdempotent;
+
+        RetryPolicyBuilder() {
+        }
+
+        /**
+         * Sets the maximum number of attempts, including the first one. Defaults to 3.
+         *
+         * @param maxAttempts maximum number of attempts
+         * @return builder object
+         */
+        public RetryPolicyBuilder maxAttempts(final int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be positive");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * Sets the delay before the first retry. Defaults to 100 milliseconds.
+         *
+         * @param baseDelay base delay
+         * @return builder object
+         */
+        public RetryPolicyBuilder baseDelay(final Duration baseDelay) {
+            if (baseDelay == null) {
+                throw new IllegalArgumentException("baseDelay is marked non-null but is null");
+            }
+            this.baseDelay = baseDelay;
+            return this;
+        }
+
+        /**
+         * Sets the maximum delay between attempts, whether computed by backoff or requested by the API with
+         * {@code Retry-After}. Defaults to 10 seconds.
+         *
+         * @param maxDelay maximum delay
+         * @return builder object
+         */
+        public RetryPolicyBuilder maxDelay(final Duration maxDelay) {
+            if (maxDelay == null) {
+                throw new IllegalArgumentException("maxDelay is marked non-null but is null");
+            }
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * Sets whether requests are retried even when the API might have already accepted the emails,
+         * which may send them twice. Defaults to false.
+         *
+         * @param retryNonIdempotent if requests should be retried regardless of idempotency
+         * @return builder object
+         */
+        public RetryPolicyBuilder retryNonIdempotent(final boolean retryNonIdempotent) {
+            this.retryNonIdempotent = retryNonIdempotent;
+            return this;
+        }
+
+        /**
+         * Creates RetryPolicy instance.
+         *
+         * @return RetryPolicy object
+         * @throws IllegalArgumentException if maxDelay is shorter than baseDelay
+         */
+        public RetryPolicy build() {
+            if (maxDelay.compareTo(baseDelay) < 0) {
+                throw new IllegalArgumentException("maxDelay must not be shorter than baseDelay");
+            }
+            return new RetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+
+/**
+ * Thrown (or used to complete a future exceptionally) when a message processing information is not available
+ * for an email, e.g. because the response could not be parsed.
+ */
+public class SendEmailException extends RuntimeException {
+
+    private final transient HttpResponse<SendEmailResponse> response;
+
+    public SendEmailException(final String message, final HttpResponse<SendEmailResponse> response) {
+        super(message, response == null ? null : response.getParsingError().orElse(null));
+        this.response = response;
+    }
+
+    /**
+     * @return response the email was sent with, or null if no response was received
+     */
+    public HttpResponse<SendEmailResponse> getResponse() {
+        return this.response;
+    }
+}
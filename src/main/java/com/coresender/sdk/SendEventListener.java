@@ -0,0 +1,67 @@
+package com.coresender.sdk;
+
+/**
+ * Receives the phases of every request sent to the Coresender API with their timings in nanoseconds, e.g. to feed
+ * metrics. {@link SendMetrics} is a ready to use implementation.
+ * <p>
+ * Listeners are called on the sending threads, so they should be cheap and must not block. The time spent on the
+ * network, including connecting and TLS handshakes, is {@code requestNanos - serverNanos - parseNanos}; the
+ * transports don't report connection phases separately.
+ */
+public interface SendEventListener {
+
+    /**
+     * Called once emails are serialized into a request body.
+     *
+     * @param emails     number of emails
+     * @param bytes      size of the request body, after compression
+     * @param compressed whether the body is gzip compressed
+     * @param nanos      time spent serializing and compressing
+     */
+    default void onSerialize(int emails, long bytes, boolean compressed, long nanos) {
+    }
+
+    /**
+     * Called when a request attempt is handed to the transport.
+     *
+     * @param emails    number of emails
+     * @param attempt   attempt number, starting with 1
+     * @param waitNanos time spent waiting for the rate limiter and a concurrency slot
+     */
+    default void onSend(int emails, int attempt, long waitNanos) {
+    }
+
+    /**
+     * Called after a response was received.
+     *
+     * @param emails       number of emails
+     * @param attempt      attempt number, starting with 1
+     * @param status       HTTP status
+     * @param requestNanos time from handing the request to the transport until the response was parsed
+     * @param serverNanos  processing time reported by the API, or -1 if not reported
+     * @param parseNanos   time spent reading and parsing the response content, part of requestNanos
+     */
+    default void onResponse(int emails, int attempt, int status, long requestNanos, long serverNanos, long parseNanos) {
+    }
+
+    /**
+     * Called when no response was received.
+     *
+     * @param emails       number of emails
+     * @param attempt      attempt number, starting with 1
+     * @param throwable    failure cause
+     * @param requestNanos time from handing the request to the transport until it failed
+     */
+    default void onFailure(int emails, int attempt, Throwable throwable, long requestNanos) {
+    }
+
+    /**
+     * Called when a request is going to be repeated.
+     *
+     * @param emails      number of emails
+     * @param attempt     number of the attempt that failed
+     * @param delayMillis delay before the next attempt
+     */
+    default void onRetry(int emails, int attempt, long delayMillis) {
+    }
+}
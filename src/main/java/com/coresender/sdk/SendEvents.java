@@ -0,0 +1,179 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Reports the phases of requests to {@link SendEventListener}s and as Flight Recorder events.
+ */
+final class SendEvents {
+
+    private static final Logger log = getLogger(SendEvents.class);
+
+    /**
+     * Runtimes linked without the jdk.jfr module can't load the event class.
+     */
+    private static final boolean FLIGHT_RECORDER = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private final SendEventListener[] listeners;
+
+    SendEvents(final List<SendEventListener> listeners) {
+        this.listeners = listeners == null ? new SendEventListener[0] : listeners.toArray(new SendEventListener[0]);
+    }
+
+    void serialized(int emails, long bytes, boolean compressed, long nanos) {
+        for (SendEventListener listener : listeners) {
+            try {
+                listener.onSerialize(emails, bytes, compressed, nanos);
+            } catch (RuntimeException exception) {
+                log.warn("Event listener {} failed", listener, exception);
+            }
+        }
+    }
+
+    /**
+     * Reports a request attempt handed to the transport.
+     *
+     * @param request   request about to be sent
+     * @param emails    number of emails
+     * @param attempt   attempt number, starting with 1
+     * @param waitNanos time spent waiting for the rate limiter and a concurrency slot
+     * @return attempt to be completed once it has finished
+     */
+    Attempt send(TransportRequest request, int emails, int attempt, long waitNanos) {
+        for (SendEventListener listener : listeners) {
+            try {
+                listener.onSend(emails, attempt, waitNanos);
+            } catch (RuntimeException exception) {
+                log.warn("Event listener {} failed", listener, exception);
+            }
+        }
+        return new Attempt(request, emails, attempt, waitNanos);
+    }
+
+    void retry(int emails, int attempt, long delayMillis) {
+        for (SendEventListener listener : listeners) {
+            try {
+                listener.onRetry(emails, attempt, delayMillis);
+            } catch (RuntimeException exception) {
+                log.warn("Event listener {} failed", listener, exception);
+            }
+        }
+    }
+
+    private static long serverNanos(HttpResponse<SendEmailResponse> response) {
+        if (response == null || response.getBody() == null || response.getBody().getMeta() == null) {
+            return -1;
+        }
+        return Coresender.serverTime(response.getBody().getMeta().getRqTime(), -1);
+    }
+
+    /**
+     * Request attempt in progress.
+     */
+    final class Attempt {
+
+        private final TransportRequest request;
+
+        private final int emails;
+
+        private final int attempt;
+
+        private final long waitNanos;
+
+        private final long start = System.nanoTime();
+
+        private final SendFlightEvent flightEvent;
+
+        private Attempt(final TransportRequest request, final int emails, final int attempt, final long waitNanos) {
+            this.request = request;
+            this.emails = emails;
+            this.attempt = attempt;
+            this.waitNanos = waitNanos;
+            if (request.getReader() instanceof TimedReader) {
+                ((TimedReader) request.getReader()).parseNanos = 0;
+            }
+            if (FLIGHT_RECORDER) {
+                this.flightEvent = new SendFlightEvent();
+                this.flightEvent.begin();
+            } else {
+                this.flightEvent = null;
+            }
+        }
+
+        /**
+         * @param response  received response, or null if the attempt failed
+         * @param throwable failure cause, or null if a response was received
+         */
+        void complete(HttpResponse<SendEmailResponse> response, Throwable throwable) {
+            long requestNanos = System.nanoTime() - start;
+            TimedReader reader = request.getReader() instanceof TimedReader ? (TimedReader) request.getReader() : null;
+            long parseNanos = reader == null ? 0 : reader.parseNanos;
+            long serverNanos = serverNanos(response);
+            // custom transports may complete without a response object
+            int status = throwable == null && response != null ? response.getStatus() : 0;
+            for (SendEventListener listener : listeners) {
+                try {
+                    if (throwable == null) {
+                        listener.onResponse(emails, attempt, status, requestNanos, serverNanos, parseNanos);
+                    } else {
+                        listener.onFailure(emails, attempt, throwable, requestNanos);
+                    }
+                } catch (RuntimeException exception) {
+                    log.warn("Event listener {} failed", listener, exception);
+                }
+            }
+            if (flightEvent != null) {
+                flightEvent.end();
+                if (flightEvent.shouldCommit()) {
+                    flightEvent.emails = emails;
+                    flightEvent.attempt = attempt;
+                    flightEvent.requestSize = request.getBody().getContentLength();
+                    flightEvent.compressed = request.getHeaders().containsKey("Content-Encoding");
+                    flightEvent.serializeTime = reader == null ? 0 : reader.serializeNanos;
+                    flightEvent.waitTime = waitNanos;
+                    flightEvent.serverTime = serverNanos;
+                    flightEvent.parseTime = parseNanos;
+                    flightEvent.status = status;
+                    flightEvent.failure = throwable == null ? null : throwable.toString();
+                    flightEvent.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * Reader measuring how long reading and parsing response content takes. Attempts of a request are never
+     * concurrent, so the time of the last one is kept.
+     */
+    static final class TimedReader implements ResponseReader {
+
+        private final ResponseReader reader;
+
+        private final long serializeNanos;
+
+        private volatile long parseNanos;
+
+        TimedReader(final ResponseReader reader, final long serializeNanos) {
+            this.reader = reader;
+            this.serializeNanos = serializeNanos;
+        }
+
+        @Override
+        public SendEmailResponse read(InputStream content) throws IOException {
+            long start = System.nanoTime();
+            try {
+                return reader.read(content);
+            } finally {
+                parseNanos = System.nanoTime() - start;
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.coresender.sdk;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event of a request attempt, lasting from handing the request to the transport until the response
+ * was parsed or the attempt failed.
+ */
+@Name("com.coresender.Send")
+@Label("Coresender Send")
+@Category("Coresender")
+@Description("Request attempt sent to the Coresender API")
+@StackTrace(false)
+class SendFlightEvent extends Event {
+
+    @Label("Emails")
+    int emails;
+
+    @Label("Attempt")
+    int attempt;
+
+    @Label("Request Size")
+    @DataAmount
+    long requestSize;
+
+    @Label("Compressed")
+    boolean compressed;
+
+    @Label("Serialize Time")
+    @Timespan
+    long serializeTime;
+
+    @Label("Wait Time")
+    @Description("Time spent waiting for the rate limiter and a concurrency slot")
+    @Timespan
+    long waitTime;
+
+    @Label("Server Time")
+    @Description("Processing time reported by the API, -1 if not reported")
+    @Timespan
+    long serverTime;
+
+    @Label("Parse Time")
+    @Timespan
+    long parseTime;
+
+    @Label("Status")
+    @Description("HTTP status, 0 if no response was received")
+    int status;
+
+    @Label("Failure")
+    String failure;
+}
@@ -0,0 +1,40 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+
+import java.util.Collection;
+
+/**
+ * Hook invoked around every request sent to the Coresender API.
+ * Interceptors are called on the sending thread, so they should be cheap and must not block.
+ */
+public interface SendInterceptor {
+
+    /**
+     * Called before emails are sent.
+     *
+     * @param emails emails about to be sent
+     */
+    default void onRequest(Collection<Email> emails) {
+    }
+
+    /**
+     * Called after a response was received.
+     *
+     * @param emails   emails that were sent
+     * @param response response received from the API
+     */
+    default void onResponse(Collection<Email> emails, HttpResponse<SendEmailResponse> response) {
+    }
+
+    /**
+     * Called when no response was received.
+     *
+     * @param emails    emails that were sent
+     * @param throwable failure cause
+     */
+    default void onFailure(Collection<Email> emails, Throwable throwable) {
+    }
+}
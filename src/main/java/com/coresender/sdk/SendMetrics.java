@@ -0,0 +1,166 @@
+package com.coresender.sdk;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects counters and histograms of requests sent to the Coresender API without locking. Keep a reference to it
+ * and read or export the values, e.g. by binding them to gauges of a metrics library.
+ */
+public class SendMetrics implements SendEventListener {
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder emails = new LongAdder();
+
+    private final LongAdder bytes = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    private final Histogram batchSize = new Histogram();
+
+    private final Histogram requestSize = new Histogram();
+
+    private final Histogram serializeTime = new Histogram();
+
+    private final Histogram waitTime = new Histogram();
+
+    private final Histogram requestTime = new Histogram();
+
+    private final Histogram serverTime = new Histogram();
+
+    private final Histogram parseTime = new Histogram();
+
+    @Override
+    public void onSerialize(int emails, long bytes, boolean compressed, long nanos) {
+        batchSize.record(emails);
+        requestSize.record(bytes);
+        serializeTime.record(nanos);
+    }
+
+    @Override
+    public void onSend(int emails, int attempt, long waitNanos) {
+        requests.increment();
+        this.emails.add(emails);
+        waitTime.record(waitNanos);
+    }
+
+    @Override
+    public void onResponse(int emails, int attempt, int status, long requestNanos, long serverNanos, long parseNanos) {
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        requestTime.record(requestNanos);
+        if (serverNanos >= 0) {
+            serverTime.record(serverNanos);
+        }
+        parseTime.record(parseNanos);
+    }
+
+    @Override
+    public void onFailure(int emails, int attempt, Throwable throwable, long requestNanos) {
+        failures.increment();
+        requestTime.record(requestNanos);
+    }
+
+    @Override
+    public void onRetry(int emails, int attempt, long delayMillis) {
+        retries.increment();
+    }
+
+    /**
+     * @return number of request attempts, including retries
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return number of emails sent, counted once per attempt
+     */
+    public long getEmails() {
+        return emails.sum();
+    }
+
+    /**
+     * @return number of attempts which got no response
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * @return number of repeated attempts
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return number of responses by HTTP status
+     */
+    public Map<Integer, Long> getStatusCounts() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    /**
+     * @return emails per request
+     */
+    public Histogram getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * @return request body sizes in bytes, after compression
+     */
+    public Histogram getRequestSize() {
+        return requestSize;
+    }
+
+    /**
+     * @return serialization times in nanoseconds
+     */
+    public Histogram getSerializeTime() {
+        return serializeTime;
+    }
+
+    /**
+     * @return times spent waiting for the rate limiter and a concurrency slot in nanoseconds
+     */
+    public Histogram getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * @return request times in nanoseconds, from handing the request to the transport until the response was parsed
+     */
+    public Histogram getRequestTime() {
+        return requestTime;
+    }
+
+    /**
+     * @return processing times reported by the API in nanoseconds
+     */
+    public Histogram getServerTime() {
+        return serverTime;
+    }
+
+    /**
+     * @return response reading and parsing times in nanoseconds
+     */
+    public Histogram getParseTime() {
+        return parseTime;
+    }
+
+    @Override
+    public String toString() {
+        return "SendMetrics(requests=" + getRequests() + ", emails=" + getEmails() + ", failures=" + getFailures()
+                + ", retries=" + getRetries() + ", statuses=" + getStatusCounts() + ", requestTime=" + requestTime + ")";
+    }
+}
@@ -0,0 +1,299 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Sends emails received from an upstream publisher in batches and publishes their processing information,
+ * in the order of emails, to a single subscriber.
+ * <p>
+ * At most {@code capacity} emails are requested from upstream and not yet delivered downstream, so a slow API
+ * or a slow subscriber slows down the publisher instead of filling memory. A batch is sent once it reaches the
+ * number of emails or estimated payload size limit, once all requested emails arrived, after the linger time or
+ * when upstream completes. A failed request terminates the stream with its error and cancels upstream.
+ */
+class SendProcessor implements Flow.Processor<Email, SendEmailResponse.Data> {
+
+    private final int maxEmails;
+
+    private final long maxBytes;
+
+    private final long capacity;
+
+    private final long lingerNanos;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final Function<List<Email>, CompletableFuture<HttpResponse<SendEmailResponse>>> sender;
+
+    private final AtomicReference<Flow.Subscription> upstream = new AtomicReference<>();
+
+    private final AtomicReference<Flow.Subscriber<? super SendEmailResponse.Data>> downstream = new AtomicReference<>();
+
+    private final ConcurrentLinkedQueue<Batch> batches = new ConcurrentLinkedQueue<>();
+
+    private final AtomicLong demand = new AtomicLong();
+
+    private final AtomicLong outstanding = new AtomicLong();
+
+    private final AtomicLong credit = new AtomicLong();
+
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private List<Email> buffer = new ArrayList<>();
+
+    private long bufferBytes;
+
+    private ScheduledFuture<?> linger;
+
+    private volatile boolean done;
+
+    private volatile boolean cancelled;
+
+    private volatile Throwable error;
+
+    private boolean terminated;
+
+    SendProcessor(final int maxEmails, final long maxBytes, final int parallelism, final Duration linger, final ScheduledExecutorService scheduler,
+                  final Function<List<Email>, CompletableFuture<HttpResponse<SendEmailResponse>>> sender) {
+        this.maxEmails = maxEmails;
+        this.maxBytes = maxBytes;
+        this.capacity = (long) maxEmails * parallelism;
+        this.lingerNanos = linger.toNanos();
+        this.scheduler = scheduler;
+        this.sender = sender;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super SendEmailResponse.Data> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber is marked non-null but is null");
+        }
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    fail(new IllegalArgumentException("Requested " + n + " items, must be positive"));
+                    return;
+                }
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                drain();
+            }
+        });
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (subscription == null) {
+            throw new NullPointerException("subscription is marked non-null but is null");
+        }
+        if (!upstream.compareAndSet(null, subscription)) {
+            subscription.cancel();
+            return;
+        }
+        credit.set(capacity);
+        drain();
+    }
+
+    @Override
+    public void onNext(Email email) {
+        if (email == null) {
+            throw new NullPointerException("email is marked non-null but is null");
+        }
+        if (done || cancelled) {
+            return;
+        }
+        boolean full;
+        synchronized (this) {
+            if (buffer.isEmpty()) {
+                linger = scheduler.schedule(this::dispatch, lingerNanos, TimeUnit.NANOSECONDS);
+            }
+            buffer.add(email);
+            bufferBytes += BatchAccumulator.estimateSize(email);
+            full = buffer.size() >= maxEmails || bufferBytes >= maxBytes;
+        }
+        // nothing more arrives until results are delivered, so waiting for a fuller batch would stall the stream
+        if (outstanding.decrementAndGet() == 0 || full) {
+            dispatch();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        if (throwable == null) {
+            throw new NullPointerException("throwable is marked non-null but is null");
+        }
+        dispatch();
+        error = throwable;
+        done = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        dispatch();
+        done = true;
+        drain();
+    }
+
+    private void dispatch() {
+        Batch batch;
+        synchronized (this) {
+            if (buffer.isEmpty() || cancelled) {
+                return;
+            }
+            if (linger != null) {
+                linger.cancel(false);
+                linger = null;
+            }
+            List<Email> emails = buffer;
+            buffer = new ArrayList<>();
+            bufferBytes = 0;
+            CompletableFuture<HttpResponse<SendEmailResponse>> response;
+            try {
+                response = sender.apply(emails);
+            } catch (RuntimeException exception) {
+                response = CompletableFuture.failedFuture(exception);
+            }
+            batch = new Batch(emails.size(), response);
+            // added under the lock, so results are published in the order batches were taken
+            batches.add(batch);
+        }
+        batch.response.whenComplete((response, throwable) -> drain());
+    }
+
+    private void fail(Throwable throwable) {
+        error = throwable;
+        cancelled = true;
+        drain();
+    }
+
+    /**
+     * Publishes completed results and requests more emails. Runs on one thread at a time, so the subscriber
+     * and the upstream subscription are always called serially.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            if (!terminated) {
+                emit();
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emit() {
+        Flow.Subscriber<? super SendEmailResponse.Data> subscriber = downstream.get();
+        Flow.Subscription subscription = upstream.get();
+        if (cancelled) {
+            terminated = true;
+            batches.clear();
+            if (subscription != null) {
+                subscription.cancel();
+            }
+            if (error != null && subscriber != null) {
+                subscriber.onError(error);
+            }
+            return;
+        }
+        if (subscriber == null) {
+            return;
+        }
+        Batch batch;
+        while ((batch = batches.peek()) != null && batch.response.isDone()) {
+            if (batch.results == null) {
+                try {
+                    HttpResponse<SendEmailResponse> response = batch.response.join();
+                    List<SendEmailResponse.Data> data = response == null || response.getBody() == null ? null : response.getBody().getData();
+                    if (data == null || data.size() < batch.emails) {
+                        throw new SendEmailException("No processing information for email at index " + (data == null ? 0 : data.size()), response);
+                    }
+                    batch.results = data.iterator();
+                } catch (RuntimeException exception) {
+                    fail(exception instanceof CompletionException && exception.getCause() != null ? exception.getCause() : exception);
+                    emit();
+                    return;
+                }
+            }
+            while (batch.results.hasNext() && demand.get() > 0) {
+                subscriber.onNext(batch.results.next());
+                demand.getAndUpdate(current -> current == Long.MAX_VALUE ? current : current - 1);
+            }
+            if (batch.results.hasNext()) {
+                return;
+            }
+            batches.poll();
+            credit.addAndGet(batch.emails);
+        }
+        if (done) {
+            if (batches.isEmpty()) {
+                terminated = true;
+                if (error != null) {
+                    subscriber.onError(error);
+                } else {
+                    subscriber.onComplete();
+                }
+            }
+            return;
+        }
+        long requested = credit.getAndSet(0);
+        if (requested > 0 && subscription != null) {
+            outstanding.addAndGet(requested);
+            subscription.request(requested);
+        }
+    }
+
+    private static class Batch {
+
+        private final int emails;
+
+        private final CompletableFuture<HttpResponse<SendEmailResponse>> response;
+
+        private Iterator<SendEmailResponse.Data> results;
+
+        Batch(final int emails, final CompletableFuture<HttpResponse<SendEmailResponse>> response) {
+            this.emails = emails;
+            this.response = response;
+        }
+    }
+}
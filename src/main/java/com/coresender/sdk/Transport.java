@@ -0,0 +1,38 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Sends serialized email batches to the Coresender API.
+ * Implementations must be safe to use from many threads.
+ *
+ * @see UnirestTransport
+ * @see HttpClientTransport
+ */
+public interface Transport extends AutoCloseable {
+
+    /**
+     * Sends the request and waits for the response.
+     *
+     * @param request request to be sent
+     * @return response read with the request's {@link ResponseReader}
+     */
+    HttpResponse<SendEmailResponse> send(TransportRequest request);
+
+    /**
+     * Sends the request without blocking the calling thread.
+     *
+     * @param request request to be sent
+     * @return future completed with the response read with the request's {@link ResponseReader}
+     */
+    CompletableFuture<HttpResponse<SendEmailResponse>> sendAsync(TransportRequest request);
+
+    /**
+     * Releases connections and threads held by the transport.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,69 @@
+package com.coresender.sdk;
+
+import java.util.Map;
+
+/**
+ * Request to the Coresender API ready to be sent by a {@link Transport}.
+ */
+public final class TransportRequest {
+
+    private final String url;
+
+    private final Map<String, String> headers;
+
+    private final RequestBody body;
+
+    private final ResponseReader reader;
+
+    public TransportRequest(final String url, final Map<String, String> headers, final RequestBody body, final ResponseReader reader) {
+        if (url == null) {
+            throw new IllegalArgumentException("url is marked non-null but is null");
+        }
+        if (headers == null) {
+            throw new IllegalArgumentException("headers is marked non-null but is null");
+        }
+        if (body == null) {
+            throw new IllegalArgumentException("body is marked non-null but is null");
+        }
+        if (reader == null) {
+            throw new IllegalArgumentException("reader is marked non-null but is null");
+        }
+        this.url = url;
+        this.headers = Map.copyOf(headers);
+        this.body = body;
+        this.reader = reader;
+    }
+
+    /**
+     * @return endpoint URL
+     */
+    public String getUrl() {
+        return this.url;
+    }
+
+    /**
+     * @return request headers, including authorization and content type
+     */
+    public Map<String, String> getHeaders() {
+        return this.headers;
+    }
+
+    /**
+     * @return serialized emails
+     */
+    public RequestBody getBody() {
+        return this.body;
+    }
+
+    /**
+     * @return reader turning response content into a send response
+     */
+    public ResponseReader getReader() {
+        return this.reader;
+    }
+
+    @Override
+    public String toString() {
+        return "TransportRequest(url=" + this.url + ", contentLength=" + this.body.getContentLength() + ")";
+    }
+}
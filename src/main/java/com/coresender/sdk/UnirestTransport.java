@@ -0,0 +1,55 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.Config;
+import kong.unirest.HttpResponse;
+import kong.unirest.RequestBodyEntity;
+import kong.unirest.UnirestException;
+import kong.unirest.UnirestInstance;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Transport based on a dedicated Unirest instance (Apache HttpClient, HTTP/1.1 with connection pooling).
+ */
+public class UnirestTransport implements Transport {
+
+    private final UnirestInstance unirest;
+
+    /**
+     * @param config configuration of the Unirest instance owned by this transport
+     */
+    public UnirestTransport(final Config config) {
+        if (config == null) {
+            throw new IllegalArgumentException("config is marked non-null but is null");
+        }
+        this.unirest = new UnirestInstance(config);
+    }
+
+    @Override
+    public HttpResponse<SendEmailResponse> send(TransportRequest request) {
+        return unirest.config().getClient().request(request(request), raw -> request.getReader().toResponse(raw));
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<SendEmailResponse>> sendAsync(TransportRequest request) {
+        return unirest.config().getAsyncClient().request(request(request), raw -> request.getReader().toResponse(raw), new CompletableFuture<>());
+    }
+
+    private RequestBodyEntity request(TransportRequest request) {
+        try {
+            // Unirest accepts no streaming body, a pooled body is copied once into an array of the exact size
+            return unirest.post(request.getUrl())
+                          .headers(request.getHeaders())
+                          .body(request.getBody().toByteArray());
+        } catch (IOException exception) {
+            throw new UnirestException(exception);
+        }
+    }
+
+    @Override
+    public void close() {
+        unirest.shutDown(false);
+    }
+}
@@ -0,0 +1,31 @@
+package com.coresender.sdk;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads. This variant is used on Java 11 to 20, which have none; on Java 21 and newer
+ * the multi-release JAR replaces it with the one in {@code src/main/java21}.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if virtual threads are available
+     */
+    static boolean isSupported() {
+        return false;
+    }
+
+    /**
+     * Creates executor running each task on a cached daemon platform thread, as there are no virtual ones.
+     *
+     * @param prefix thread name prefix
+     * @return executor, to be shut down by the caller
+     */
+    static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        return Executors.newCachedThreadPool(Coresender.daemonThreadFactory(prefix));
+    }
+}
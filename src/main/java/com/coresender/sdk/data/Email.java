@@ -1,6 +1,7 @@
 package com.coresender.sdk.data;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Email message to be sent.
@@ -29,14 +30,24 @@ public class Email {
 
     private final List<Address> replyTo;
 
-    private Email(final Body body, final Address from, final List<Address> to, final String subject, final String customId, final boolean customIdUnique, final boolean trackOpens, final boolean trackClicks, final String listId, final String listUnsubscribe, final List<Address> replyTo) {
+    private final EmailTemplate template;
+
+    private final String[] templateValues;
+
+    // rendered from the template on first use, the JSON codec writes the template without them
+    private volatile String renderedSubject;
+
+    private volatile Body renderedBody;
+
+    private Email(final Body body, final Address from, final List<Address> to, final String subject, final String customId, final boolean customIdUnique, final boolean trackOpens, final boolean trackClicks, final String listId, final String listUnsubscribe, final List<Address> replyTo,
+                  final EmailTemplate template, final String[] templateValues) {
         if (from == null) {
             throw new IllegalArgumentException("from is marked non-null but is null");
         }
         if (to == null) {
             throw new IllegalArgumentException("to is marked non-null but is null");
         }
-        if (subject == null) {
+        if (subject == null && template == null) {
             throw new IllegalArgumentException("subject is marked non-null but is null");
         }
         this.body = body;
@@ -50,6 +61,8 @@ public class Email {
         this.listId = listId;
         this.listUnsubscribe = listUnsubscribe;
         this.replyTo = replyTo;
+        this.template = template;
+        this.templateValues = templateValues;
     }
 
     /**
@@ -83,10 +96,51 @@ public class Email {
     }
 
     /**
-     * @return message subject
+     * @return message subject, rendered from the template if the email was created from one
      */
     public String getSubject() {
-        return this.subject;
+        if (this.template == null) {
+            return this.subject;
+        }
+        String rendered = this.renderedSubject;
+        if (rendered == null) {
+            rendered = this.template.getSubject().render(this.templateValues);
+            this.renderedSubject = rendered;
+        }
+        return rendered;
+    }
+
+    // the measures below aren't named like getters, so data binding doesn't write them into requests
+
+    /**
+     * @return true if the subject is missing or whitespace only, checked without rendering the template
+     */
+    public boolean hasBlankSubject() {
+        if (this.template == null) {
+            return this.subject == null || this.subject.isBlank();
+        }
+        return this.template.getSubject().isBlank(this.templateValues);
+    }
+
+    /**
+     * @return number of characters of the subject, computed without rendering the template
+     */
+    public long subjectLength() {
+        if (this.template == null) {
+            return this.subject == null ? 0 : this.subject.length();
+        }
+        return this.template.getSubject().length(this.templateValues);
+    }
+
+    /**
+     * @return number of characters of the text and html content together, computed without rendering the template
+     */
+    public long bodyLength() {
+        if (this.template == null) {
+            return this.body == null ? 0 : length(this.body.text) + length(this.body.html);
+        }
+        return (this.template.getText() == null ? 0 : this.template.getText().length(this.templateValues))
+                + (this.template.getHtml() == null ? 0 : this.template.getHtml().length(this.templateValues));
     }
 
     /**
@@ -139,24 +193,52 @@ public class Email {
     }
 
     /**
-     * @return message content
+     * @return message content, rendered from the template if the email was created from one
      */
     public Body getBody() {
-        return this.body;
+        if (this.template == null || this.template.getText() == null && this.template.getHtml() == null) {
+            return this.body;
+        }
+        Body rendered = this.renderedBody;
+        if (rendered == null) {
+            rendered = new Body();
+            rendered.text = this.template.getText() == null ? null : this.template.getText().render(this.templateValues);
+            rendered.html = this.template.getHtml() == null ? null : this.template.getHtml().render(this.templateValues);
+            this.renderedBody = rendered;
+        }
+        return rendered;
+    }
+
+    /**
+     * @return template the email was created from, or null
+     */
+    EmailTemplate getTemplate() {
+        return this.template;
+    }
+
+    /**
+     * @return values of the template's merge variables, in the order of {@link EmailTemplate#getVariables()}
+     */
+    String[] getTemplateValues() {
+        return this.templateValues;
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
     }
 
     /**
      * @return text version of message content
      */
     private String getBodyText() {
-        return this.body.text;
+        return this.getBody().text;
     }
 
     /**
      * @return html version of message content
      */
     private String getBodyHtml() {
-        return this.body.html;
+        return this.getBody().html;
     }
 
     /**
@@ -198,7 +280,7 @@ public class Email {
     /**
      * Email body
      */
-    private static class Body {
+    public static class Body {
 
         private String text;
 
@@ -254,6 +336,10 @@ public class Email {
 
         private List<Address> replyTo;
 
+        private EmailTemplate template;
+
+        private String[] templateValues;
+
         EmailBuilder() {
         }
 
@@ -401,14 +487,39 @@ public class Email {
             return this;
         }
 
+        /**
+         * Takes subject and content from a template. The email keeps only the variable values, the template
+         * is rendered when the email is sent.
+         *
+         * @param template  compiled template
+         * @param variables values of all the template's merge variables
+         * @return builder object
+         * @throws IllegalArgumentException if a variable value is missing
+         */
+        public EmailBuilder template(final EmailTemplate template, final Map<String, String> variables) {
+            if (template == null) {
+                throw new IllegalArgumentException("template is marked non-null but is null");
+            }
+            if (variables == null) {
+                throw new IllegalArgumentException("variables is marked non-null but is null");
+            }
+            this.templateValues = template.bind(variables);
+            this.template = template;
+            return this;
+        }
+
         /**
          * Creates Email instance.
          *
          * @return email object
+         * @throws IllegalStateException if both a template and subject or content are set
          */
         public Email build() {
+            if (this.template != null && (this.subject != null || this.body.text != null || this.body.html != null)) {
+                throw new IllegalStateException("Subject and content are taken from the template, they can't be set too");
+            }
             return new Email(this.body, this.from, this.to, this.subject, this.customId, this.customIdUnique, this.trackOpens, this.trackClicks, this.listId,
-                             this.listUnsubscribe, this.replyTo);
+                             this.listUnsubscribe, this.replyTo, this.template, this.templateValues);
         }
 
         @Override
@@ -0,0 +1,400 @@
+package com.coresender.sdk.data;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Subject and content parsed once and shared by many personalized emails.
+ * <p>
+ * Merge variables are written as {@code {{name}}}. In the html version their values are HTML escaped, use
+ * {@code {{{name}}}} to insert a value as is. Emails created with
+ * {@link Email.EmailBuilder#template(EmailTemplate, Map)} keep only the values of the variables and are rendered
+ * straight into the request while it's serialized.
+ */
+public class EmailTemplate {
+
+    private final List<String> variables;
+
+    private final Text subject;
+
+    private final Text text;
+
+    private final Text html;
+
+    private EmailTemplate(final String subject, final String text, final String html) {
+        Map<String, Integer> indexes = new LinkedHashMap<>();
+        this.subject = Text.compile(subject, false, indexes);
+        this.text = text == null ? null : Text.compile(text, false, indexes);
+        this.html = html == null ? null : Text.compile(html, true, indexes);
+        this.variables = List.copyOf(indexes.keySet());
+    }
+
+    /**
+     * Creates EmailTemplateBuilder instance.
+     *
+     * @return EmailTemplateBuilder object
+     */
+    public static EmailTemplateBuilder builder() {
+        return new EmailTemplateBuilder();
+    }
+
+    /**
+     * @return names of merge variables, in the order of their first use
+     */
+    public List<String> getVariables() {
+        return this.variables;
+    }
+
+    /**
+     * Resolves values of all merge variables.
+     *
+     * @param values merge variable values by name
+     * @return values in the order of {@link #getVariables()}
+     * @throws IllegalArgumentException if a value is missing
+     */
+    String[] bind(Map<String, String> values) {
+        String[] bound = new String[variables.size()];
+        for (int i = 0; i < bound.length; i++) {
+            String value = values.get(variables.get(i));
+            if (value == null) {
+                throw new IllegalArgumentException("Missing value of merge variable " + variables.get(i));
+            }
+            bound[i] = value;
+        }
+        return bound;
+    }
+
+    Text getSubject() {
+        return this.subject;
+    }
+
+    Text getText() {
+        return this.text;
+    }
+
+    Text getHtml() {
+        return this.html;
+    }
+
+    @Override
+    public String toString() {
+        return "EmailTemplate(subject=" + this.subject + ", variables=" + this.variables + ")";
+    }
+
+    /**
+     * Compiled text: literal segments with merge variables between them.
+     */
+    static final class Text {
+
+        private final String[] literals;
+
+        private final int[] variables;
+
+        private final boolean[] escape;
+
+        private final int literalLength;
+
+        private Text(final String[] literals, final int[] variables, final boolean[] escape) {
+            this.literals = literals;
+            this.variables = variables;
+            this.escape = escape;
+            int length = 0;
+            for (String literal : literals) {
+                length += literal.length();
+            }
+            this.literalLength = length;
+        }
+
+        static Text compile(String source, boolean html, Map<String, Integer> indexes) {
+            List<String> literals = new ArrayList<>();
+            List<Integer> variables = new ArrayList<>();
+            List<Boolean> escape = new ArrayList<>();
+            int position = 0;
+            int start;
+            while ((start = source.indexOf("{{", position)) >= 0) {
+                boolean raw = source.startsWith("{{{", start);
+                String close = raw ? "}}}" : "}}";
+                int nameStart = start + close.length();
+                int end = source.indexOf(close, nameStart);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed merge variable at index " + start);
+                }
+                String name = source.substring(nameStart, end).trim();
+                if (name.isEmpty()) {
+                    throw new IllegalArgumentException("Empty merge variable name at index " + start);
+                }
+                literals.add(source.substring(position, start));
+                Integer index = indexes.get(name);
+                if (index == null) {
+                    index = indexes.size();
+                    indexes.put(name, index);
+                }
+                variables.add(index);
+                escape.add(html && !raw);
+                position = end + close.length();
+            }
+            literals.add(source.substring(position));
+            int[] variableArray = new int[variables.size()];
+            boolean[] escapeArray = new boolean[escape.size()];
+            for (int i = 0; i < variableArray.length; i++) {
+                variableArray[i] = variables.get(i);
+                escapeArray[i] = escape.get(i);
+            }
+            return new Text(literals.toArray(new String[0]), variableArray, escapeArray);
+        }
+
+        /**
+         * Estimates the rendered length without rendering.
+         *
+         * @param values bound variable values
+         * @return approximate number of characters
+         */
+        long estimateLength(String[] values) {
+            long length = literalLength;
+            for (int variable : variables) {
+                length += values[variable].length();
+            }
+            return length;
+        }
+
+        /**
+         * Computes the rendered length without rendering.
+         *
+         * @param values bound variable values
+         * @return number of characters
+         */
+        long length(String[] values) {
+            long length = literalLength;
+            for (int i = 0; i < variables.length; i++) {
+                String value = values[variables[i]];
+                if (escape[i]) {
+                    for (int j = 0; j < value.length(); j++) {
+                        String entity = entity(value.charAt(j));
+                        length += entity != null ? entity.length() : 1;
+                    }
+                } else {
+                    length += value.length();
+                }
+            }
+            return length;
+        }
+
+        /**
+         * @param values bound variable values
+         * @return true if the rendered text would be empty or whitespace only, escaping never produces whitespace
+         */
+        boolean isBlank(String[] values) {
+            for (String literal : literals) {
+                if (!literal.isBlank()) {
+                    return false;
+                }
+            }
+            for (int variable : variables) {
+                if (!values[variable].isBlank()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String render(String[] values) {
+            StringBuilder builder = new StringBuilder((int) Math.min(Integer.MAX_VALUE, estimateLength(values) + 16));
+            for (int i = 0; i < variables.length; i++) {
+                builder.append(literals[i]);
+                String value = values[variables[i]];
+                if (escape[i]) {
+                    for (int j = 0; j < value.length(); j++) {
+                        char c = value.charAt(j);
+                        String entity = entity(c);
+                        if (entity != null) {
+                            builder.append(entity);
+                        } else {
+                            builder.append(c);
+                        }
+                    }
+                } else {
+                    builder.append(value);
+                }
+            }
+            return builder.append(literals[literals.length - 1]).toString();
+        }
+
+        /**
+         * @param values bound variable values
+         * @return reader of the rendered text, which copies literals and values without building the whole text
+         */
+        Reader reader(String[] values) {
+            return new TextReader(this, values);
+        }
+
+        @Override
+        public String toString() {
+            return String.join("{{...}}", literals);
+        }
+    }
+
+    private static String entity(char c) {
+        switch (c) {
+            case '&':
+                return "&amp;";
+            case '<':
+                return "&lt;";
+            case '>':
+                return "&gt;";
+            case '"':
+                return "&quot;";
+            case '\'':
+                return "&#39;";
+            default:
+                return null;
+        }
+    }
+
+    private static final class TextReader extends Reader {
+
+        private final Text text;
+
+        private final String[] values;
+
+        /**
+         * Even segments are literals, odd ones are variables.
+         */
+        private int segment;
+
+        private int offset;
+
+        private String entity;
+
+        private int entityOffset;
+
+        TextReader(final Text text, final String[] values) {
+            this.text = text;
+            this.values = values;
+        }
+
+        @Override
+        public int read(char[] buffer, int off, int len) {
+            int start = off;
+            int end = off + len;
+            while (off < end) {
+                if (entity != null) {
+                    int count = Math.min(end - off, entity.length() - entityOffset);
+                    entity.getChars(entityOffset, entityOffset + count, buffer, off);
+                    off += count;
+                    entityOffset += count;
+                    if (entityOffset == entity.length()) {
+                        entity = null;
+                    }
+                    continue;
+                }
+                if (segment >= text.literals.length + text.variables.length) {
+                    break;
+                }
+                boolean literal = (segment & 1) == 0;
+                String current = literal ? text.literals[segment >> 1] : values[text.variables[segment >> 1]];
+                if (offset == current.length()) {
+                    segment++;
+                    offset = 0;
+                    continue;
+                }
+                if (!literal && text.escape[segment >> 1]) {
+                    char c = current.charAt(offset++);
+                    String replacement = entity(c);
+                    if (replacement != null) {
+                        entity = replacement;
+                        entityOffset = 0;
+                    } else {
+                        buffer[off++] = c;
+                    }
+                    continue;
+                }
+                int count = Math.min(end - off, current.length() - offset);
+                current.getChars(offset, offset + count, buffer, off);
+                off += count;
+                offset += count;
+            }
+            // a surrogate pair split between two reads would be encoded as two invalid characters
+            if (off - start > 1 && Character.isHighSurrogate(buffer[off - 1]) && entity == null && offset > 0) {
+                off--;
+                offset--;
+            }
+            return off == start ? -1 : off - start;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Email template builder.
+     */
+    public static class EmailTemplateBuilder {
+
+        private String subject;
+
+        private String text;
+
+        private String html;
+
+        EmailTemplateBuilder() {
+        }
+
+        /**
+         * Sets subject.
+         *
+         * @param subject message subject with merge variables
+         * @return builder object
+         */
+        public EmailTemplateBuilder subject(final String subject) {
+            if (subject == null) {
+                throw new IllegalArgumentException("subject is marked non-null but is null");
+            }
+            this.subject = subject;
+            return this;
+        }
+
+        /**
+         * Sets text version of message content.
+         *
+         * @param text content with merge variables
+         * @return builder object
+         */
+        public EmailTemplateBuilder bodyText(final String text) {
+            this.text = text;
+            return this;
+        }
+
+        /**
+         * Sets html version of message content.
+         *
+         * @param html content with merge variables
+         * @return builder object
+         */
+        public EmailTemplateBuilder bodyHtml(final String html) {
+            this.html = html;
+            return this;
+        }
+
+        /**
+         * Parses subject and content.
+         *
+         * @return template object
+         * @throws IllegalArgumentException if a merge variable is not closed or has no name
+         */
+        public EmailTemplate build() {
+            if (subject == null) {
+                throw new IllegalArgumentException("subject is marked non-null but is null");
+            }
+            return new EmailTemplate(subject, text, html);
+        }
+
+        @Override
+        public String toString() {
+            return "EmailTemplate.EmailTemplateBuilder(subject=" + this.subject + ", bodyText=" + this.text + ", bodyHtml=" + this.html + ")";
+        }
+    }
+}
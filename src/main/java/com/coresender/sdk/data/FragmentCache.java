@@ -0,0 +1,146 @@
+package com.coresender.sdk.data;
+
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache of string values shared by many emails, e.g. sender, reply to, list headers and content of a campaign,
+ * kept JSON escaped and UTF-8 encoded, so they are copied into requests as bytes instead of being encoded again.
+ * <p>
+ * Bounded by the total length of cached values, evicting the least recently used ones. Split into segments
+ * locked independently, so concurrent serializations rarely wait for each other. Use {@link #getHitRate()} to see
+ * whether the cache pays off.
+ */
+public class FragmentCache {
+
+    private static final int SEGMENTS = 8;
+
+    /**
+     * Shorter values are written directly, looking them up would cost about as much as encoding them.
+     */
+    private static final int MIN_LENGTH = 16;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    private final long maxSegmentLength;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Creates cache of up to 16 Mi characters of values.
+     */
+    public FragmentCache() {
+        this(16 * 1024 * 1024);
+    }
+
+    /**
+     * @param maxLength maximum total length of cached values in characters; a single value longer than
+     *                  an eighth of it is never cached
+     */
+    public FragmentCache(final long maxLength) {
+        if (maxLength < SEGMENTS) {
+            throw new IllegalArgumentException("maxLength must be at least " + SEGMENTS);
+        }
+        this.maxSegmentLength = maxLength / SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    /**
+     * Looks up an encoded value, adding it if missing.
+     *
+     * @param value string value
+     * @return encoded value, or null if the value is not worth caching
+     */
+    SerializableString get(String value) {
+        int length = value.length();
+        if (length < MIN_LENGTH || length > maxSegmentLength) {
+            return null;
+        }
+        int hash = value.hashCode();
+        Segment segment = segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+        synchronized (segment) {
+            SerializedString fragment = segment.fragments.get(value);
+            if (fragment != null) {
+                hits.increment();
+                return fragment;
+            }
+            misses.increment();
+            fragment = new SerializedString(value);
+            segment.fragments.put(value, fragment);
+            segment.length += length;
+            Iterator<Map.Entry<String, SerializedString>> eldest = segment.fragments.entrySet().iterator();
+            while (segment.length > maxSegmentLength) {
+                segment.length -= eldest.next().getKey().length();
+                eldest.remove();
+                evictions.increment();
+            }
+            return fragment;
+        }
+    }
+
+    /**
+     * @return number of values written from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return number of values encoded and added to the cache
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return number of values evicted to stay within the size limit
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return share of cacheable values written from the cache, between 0 and 1
+     */
+    public double getHitRate() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * @return number of cached values
+     */
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.fragments.size();
+            }
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "FragmentCache(size=" + size() + ", hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions() + ")";
+    }
+
+    private static final class Segment {
+
+        private final LinkedHashMap<String, SerializedString> fragments = new LinkedHashMap<>(16, 0.75f, true);
+
+        private long length;
+    }
+}
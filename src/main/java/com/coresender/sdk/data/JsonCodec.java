@@ -0,0 +1,668 @@
+package com.coresender.sdk.data;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streaming JSON codec for the fixed wire types of the send_email API.
+ * Produces the same JSON as Jackson data binding with snake case naming and non-null inclusion,
+ * without bean introspection and with field names encoded once.
+ */
+public final class JsonCodec {
+
+    private static final JsonFactory factory = new JsonFactory();
+
+    private static final SerializableString FROM = new SerializedString("from");
+
+    private static final SerializableString TO = new SerializedString("to");
+
+    private static final SerializableString SUBJECT = new SerializedString("subject");
+
+    private static final SerializableString CUSTOM_ID = new SerializedString("custom_id");
+
+    private static final SerializableString CUSTOM_ID_UNIQUE = new SerializedString("custom_id_unique");
+
+    private static final SerializableString TRACK_OPENS = new SerializedString("track_opens");
+
+    private static final SerializableString TRACK_CLICKS = new SerializedString("track_clicks");
+
+    private static final SerializableString LIST_ID = new SerializedString("list_id");
+
+    private static final SerializableString LIST_UNSUBSCRIBE = new SerializedString("list_unsubscribe");
+
+    private static final SerializableString BODY = new SerializedString("body");
+
+    private static final SerializableString TEXT = new SerializedString("text");
+
+    private static final SerializableString HTML = new SerializedString("html");
+
+    private static final SerializableString REPLY_TO = new SerializedString("reply_to");
+
+    private static final SerializableString EMAIL = new SerializedString("email");
+
+    private static final SerializableString NAME = new SerializedString("name");
+
+    private JsonCodec() {
+    }
+
+    /**
+     * @return factory used to create generators and parsers for the codec
+     */
+    public static JsonFactory getFactory() {
+        return factory;
+    }
+
+    /**
+     * Serializes emails to a JSON array string.
+     *
+     * @param emails emails to be serialized
+     * @return JSON array
+     * @throws IOException if writing fails
+     */
+    public static String writeEmails(Collection<Email> emails) throws IOException {
+        SegmentedStringWriter writer = new SegmentedStringWriter(factory._getBufferRecycler());
+        try (JsonGenerator generator = factory.createGenerator(writer)) {
+            writeEmails(generator, emails);
+        }
+        return writer.getAndClear();
+    }
+
+    /**
+     * Serializes emails to UTF-8 encoded JSON array.
+     *
+     * @param emails emails to be serialized
+     * @return JSON array bytes
+     * @throws IOException if writing fails
+     */
+    public static byte[] writeEmailsAsBytes(Collection<Email> emails) throws IOException {
+        return writeEmailsAsBytes(emails, null);
+    }
+
+    /**
+     * Serializes emails to UTF-8 encoded JSON array, taking shared values from the cache.
+     *
+     * @param emails emails to be serialized
+     * @param cache  cache of encoded values, or null
+     * @return JSON array bytes
+     * @throws IOException if writing fails
+     */
+    public static byte[] writeEmailsAsBytes(Collection<Email> emails, FragmentCache cache) throws IOException {
+        try (ByteArrayBuilder bytes = new ByteArrayBuilder(factory._getBufferRecycler())) {
+            try (JsonGenerator generator = factory.createGenerator(bytes, JsonEncoding.UTF8)) {
+                writeEmails(generator, emails, cache);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Serializes a single email to UTF-8 encoded JSON object.
+     *
+     * @param email email to be serialized
+     * @return JSON object bytes
+     * @throws IOException if writing fails
+     */
+    public static byte[] writeEmailAsBytes(Email email) throws IOException {
+        try (ByteArrayBuilder bytes = new ByteArrayBuilder(factory._getBufferRecycler())) {
+            try (JsonGenerator generator = factory.createGenerator(bytes, JsonEncoding.UTF8)) {
+                writeEmail(generator, email);
+            }
+            return bytes.toByteArray();
+        }
+    }
+
+    /**
+     * Writes emails to the stream as UTF-8 encoded JSON array. The stream is not closed.
+     *
+     * @param output target stream
+     * @param emails emails to be written
+     * @throws IOException if writing fails
+     */
+    public static void writeEmails(OutputStream output, Collection<Email> emails) throws IOException {
+        writeEmails(output, emails, null);
+    }
+
+    /**
+     * Writes emails to the stream as UTF-8 encoded JSON array, taking shared values from the cache.
+     * The stream is not closed.
+     *
+     * @param output target stream
+     * @param emails emails to be written
+     * @param cache  cache of encoded values, or null
+     * @throws IOException if writing fails
+     */
+    public static void writeEmails(OutputStream output, Collection<Email> emails, FragmentCache cache) throws IOException {
+        try (JsonGenerator generator = factory.createGenerator(output, JsonEncoding.UTF8)
+                                              .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            writeEmails(generator, emails, cache);
+        }
+    }
+
+    /**
+     * Writes emails as a JSON array.
+     *
+     * @param generator target generator
+     * @param emails    emails to be written
+     * @throws IOException if writing fails
+     */
+    public static void writeEmails(JsonGenerator generator, Collection<Email> emails) throws IOException {
+        writeEmails(generator, emails, null);
+    }
+
+    /**
+     * Writes emails as a JSON array, taking shared values from the cache.
+     *
+     * @param generator target generator
+     * @param emails    emails to be written
+     * @param cache     cache of encoded values, or null
+     * @throws IOException if writing fails
+     */
+    public static void writeEmails(JsonGenerator generator, Collection<Email> emails, FragmentCache cache) throws IOException {
+        generator.writeStartArray();
+        for (Email email : emails) {
+            writeEmail(generator, email, cache);
+        }
+        generator.writeEndArray();
+    }
+
+    /**
+     * Writes a single email as a JSON object.
+     *
+     * @param generator target generator
+     * @param email     email to be written
+     * @throws IOException if writing fails
+     */
+    public static void writeEmail(JsonGenerator generator, Email email) throws IOException {
+        writeEmail(generator, email, null);
+    }
+
+    /**
+     * Writes a single email as a JSON object. Sender, reply to addresses, subject, list headers and content are
+     * taken from the cache; recipients and custom id are unique to the email and always encoded.
+     *
+     * @param generator target generator
+     * @param email     email to be written
+     * @param cache     cache of encoded values, or null
+     * @throws IOException if writing fails
+     */
+    public static void writeEmail(JsonGenerator generator, Email email, FragmentCache cache) throws IOException {
+        generator.writeStartObject();
+        generator.writeFieldName(FROM);
+        writeAddress(generator, email.getFrom(), cache);
+        generator.writeFieldName(TO);
+        writeAddresses(generator, email.getTo(), null);
+        EmailTemplate template = email.getTemplate();
+        if (template != null) {
+            writeTemplate(generator, SUBJECT, template.getSubject(), email.getTemplateValues());
+        } else {
+            writeString(generator, SUBJECT, email.getSubject(), cache);
+        }
+        writeString(generator, CUSTOM_ID, email.getCustomId());
+        generator.writeFieldName(CUSTOM_ID_UNIQUE);
+        generator.writeBoolean(email.isCustomIdUnique());
+        generator.writeFieldName(TRACK_OPENS);
+        generator.writeBoolean(email.isTrackOpens());
+        generator.writeFieldName(TRACK_CLICKS);
+        generator.writeBoolean(email.isTrackClicks());
+        writeString(generator, LIST_ID, email.getListId(), cache);
+        writeString(generator, LIST_UNSUBSCRIBE, email.getListUnsubscribe(), cache);
+        if (template != null && (template.getText() != null || template.getHtml() != null)) {
+            generator.writeFieldName(BODY);
+            generator.writeStartObject();
+            writeTemplate(generator, TEXT, template.getText(), email.getTemplateValues());
+            writeTemplate(generator, HTML, template.getHtml(), email.getTemplateValues());
+            generator.writeEndObject();
+        }
+        Email.Body body = template == null ? email.getBody() : null;
+        if (body != null) {
+            generator.writeFieldName(BODY);
+            generator.writeStartObject();
+            writeString(generator, TEXT, body.getText(), cache);
+            writeString(generator, HTML, body.getHtml(), cache);
+            generator.writeEndObject();
+        }
+        if (email.getReplyTo() != null) {
+            generator.writeFieldName(REPLY_TO);
+            writeAddresses(generator, email.getReplyTo(), cache);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeAddresses(JsonGenerator generator, List<Email.Address> addresses, FragmentCache cache) throws IOException {
+        generator.writeStartArray();
+        for (Email.Address address : addresses) {
+            writeAddress(generator, address, cache);
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeAddress(JsonGenerator generator, Email.Address address, FragmentCache cache) throws IOException {
+        if (address == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        writeString(generator, EMAIL, address.getEmail(), cache);
+        writeString(generator, NAME, address.getName(), cache);
+        generator.writeEndObject();
+    }
+
+    private static void writeString(JsonGenerator generator, SerializableString name, String value) throws IOException {
+        if (value != null) {
+            generator.writeFieldName(name);
+            generator.writeString(value);
+        }
+    }
+
+    private static void writeString(JsonGenerator generator, SerializableString name, String value, FragmentCache cache) throws IOException {
+        if (value != null) {
+            generator.writeFieldName(name);
+            SerializableString fragment = cache == null ? null : cache.get(value);
+            if (fragment != null) {
+                generator.writeString(fragment);
+            } else {
+                generator.writeString(value);
+            }
+        }
+    }
+
+    private static void writeTemplate(JsonGenerator generator, SerializableString name, EmailTemplate.Text text, String[] values) throws IOException {
+        if (text != null) {
+            generator.writeFieldName(name);
+            // rendered into the generator's buffer piece by piece, the whole text never exists as a String
+            generator.writeString(text.reader(values), -1);
+        }
+    }
+
+    /**
+     * Estimates the serialized size of an email without serializing it.
+     *
+     * @param email email to be measured
+     * @return approximate number of bytes the email takes in a request
+     */
+    public static long estimateSize(Email email) {
+        long size = 128;
+        size += length(email.getCustomId()) + length(email.getListId()) + length(email.getListUnsubscribe());
+        size += estimateSize(email.getFrom());
+        for (Email.Address address : email.getTo()) {
+            size += estimateSize(address);
+        }
+        if (email.getReplyTo() != null) {
+            for (Email.Address address : email.getReplyTo()) {
+                size += estimateSize(address);
+            }
+        }
+        EmailTemplate template = email.getTemplate();
+        if (template != null) {
+            size += estimateLength(template.getSubject(), email.getTemplateValues()) + estimateLength(template.getText(), email.getTemplateValues())
+                    + estimateLength(template.getHtml(), email.getTemplateValues());
+        } else {
+            size += length(email.getSubject());
+            if (email.getBody() != null) {
+                size += length(email.getBody().getText()) + length(email.getBody().getHtml());
+            }
+        }
+        return size;
+    }
+
+    private static long estimateSize(Email.Address address) {
+        return 32 + length(address.getEmail()) + length(address.getName());
+    }
+
+    private static long estimateLength(EmailTemplate.Text text, String[] values) {
+        return text == null ? 0 : text.estimateLength(values);
+    }
+
+    private static long length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    /**
+     * Parses an email written by {@link #writeEmailAsBytes(Email)}. Unknown fields are skipped.
+     *
+     * @param content UTF-8 encoded JSON object
+     * @return parsed email
+     * @throws IOException if content is not a valid email
+     */
+    public static Email readEmail(byte[] content) throws IOException {
+        try (JsonParser parser = factory.createParser(content)) {
+            startObject(parser);
+            return readEmail(parser);
+        }
+    }
+
+    /**
+     * Parses a request body written by {@link #writeEmails(OutputStream, Collection)}. Unknown fields are skipped.
+     * The stream is not closed.
+     *
+     * @param input UTF-8 encoded JSON array
+     * @return parsed emails
+     * @throws IOException if content is not a valid array of emails
+     */
+    public static List<Email> readEmails(InputStream input) throws IOException {
+        try (JsonParser parser = factory.createParser(input).disable(JsonParser.Feature.AUTO_CLOSE_SOURCE)) {
+            expect(parser, parser.nextToken(), JsonToken.START_ARRAY);
+            List<Email> emails = new ArrayList<>();
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                expect(parser, token, JsonToken.START_OBJECT);
+                emails.add(readEmail(parser));
+            }
+            return emails;
+        }
+    }
+
+    private static Email readEmail(JsonParser parser) throws IOException {
+        Email.EmailBuilder email = Email.builder();
+        String field;
+        try {
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "from":
+                        email.from(readAddress(parser, token));
+                        break;
+                    case "to":
+                        email.to(readAddresses(parser, token));
+                        break;
+                    case "subject":
+                        email.subject(readString(parser, token));
+                        break;
+                    case "custom_id":
+                        email.customId(readString(parser, token));
+                        break;
+                    case "custom_id_unique":
+                        email.customIdUnique(token == JsonToken.VALUE_TRUE);
+                        break;
+                    case "track_opens":
+                        email.trackOpens(token == JsonToken.VALUE_TRUE);
+                        break;
+                    case "track_clicks":
+                        email.trackClicks(token == JsonToken.VALUE_TRUE);
+                        break;
+                    case "list_id":
+                        email.listId(readString(parser, token));
+                        break;
+                    case "list_unsubscribe":
+                        email.listUnsubscribe(readString(parser, token));
+                        break;
+                    case "body":
+                        readBody(parser, token, email);
+                        break;
+                    case "reply_to":
+                        if (token != JsonToken.VALUE_NULL) {
+                            email.replyTo(readAddresses(parser, token));
+                        }
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            return email.build();
+        } catch (IllegalArgumentException exception) {
+            throw new JsonParseException(parser, exception.getMessage(), exception);
+        }
+    }
+
+    private static void readBody(JsonParser parser, JsonToken token, Email.EmailBuilder email) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        expect(parser, token, JsonToken.START_OBJECT);
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            token = parser.nextToken();
+            if ("text".equals(field)) {
+                email.bodyText(readString(parser, token));
+            } else if ("html".equals(field)) {
+                email.bodyHtml(readString(parser, token));
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static List<Email.Address> readAddresses(JsonParser parser, JsonToken token) throws IOException {
+        expect(parser, token, JsonToken.START_ARRAY);
+        List<Email.Address> addresses = new ArrayList<>();
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            addresses.add(readAddress(parser, token));
+        }
+        return addresses;
+    }
+
+    private static Email.Address readAddress(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        expect(parser, token, JsonToken.START_OBJECT);
+        String email = null;
+        String name = null;
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            token = parser.nextToken();
+            if ("email".equals(field)) {
+                email = readString(parser, token);
+            } else if ("name".equals(field)) {
+                name = readString(parser, token);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return Email.Address.of(email, name);
+    }
+
+    /**
+     * Parses a send_email response.
+     *
+     * @param content JSON content
+     * @return parsed response
+     * @throws IOException if content is not a valid response
+     */
+    public static SendEmailResponse readResponse(String content) throws IOException {
+        try (JsonParser parser = factory.createParser(content)) {
+            return readResponse(parser);
+        }
+    }
+
+    /**
+     * Parses a UTF-8 encoded send_email response.
+     *
+     * @param content JSON content
+     * @return parsed response
+     * @throws IOException if content is not a valid response
+     */
+    public static SendEmailResponse readResponse(byte[] content) throws IOException {
+        try (JsonParser parser = factory.createParser(content)) {
+            return readResponse(parser);
+        }
+    }
+
+    /**
+     * Parses a send_email response. Unknown fields are skipped.
+     *
+     * @param parser source parser
+     * @return parsed response
+     * @throws IOException if content is not a valid response
+     */
+    public static SendEmailResponse readResponse(JsonParser parser) throws IOException {
+        return readResponse(parser, null);
+    }
+
+    /**
+     * Parses a send_email response, passing every message processing information to the consumer as soon as
+     * it is parsed instead of collecting them. The returned response has no data then.
+     *
+     * @param parser   source parser
+     * @param consumer receives processing information in the order the emails were sent, may be null to collect them
+     * @return parsed response
+     * @throws IOException if content is not a valid response
+     */
+    public static SendEmailResponse readResponse(JsonParser parser, Consumer<SendEmailResponse.Data> consumer) throws IOException {
+        SendEmailResponse response = new SendEmailResponse();
+        startObject(parser);
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "data":
+                    if (consumer == null) {
+                        List<SendEmailResponse.Data> data = token == JsonToken.VALUE_NULL ? null : new ArrayList<>();
+                        readData(parser, token, data == null ? item -> { } : data::add);
+                        response.data = data;
+                    } else {
+                        readData(parser, token, consumer);
+                    }
+                    break;
+                case "meta":
+                    response.meta = token == JsonToken.VALUE_NULL ? null : readMeta(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return response;
+    }
+
+    private static void readData(JsonParser parser, JsonToken token, Consumer<SendEmailResponse.Data> consumer) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (token == JsonToken.START_OBJECT) {
+            consumer.accept(readDataItem(parser));
+            return;
+        }
+        expect(parser, token, JsonToken.START_ARRAY);
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            expect(parser, token, JsonToken.START_OBJECT);
+            consumer.accept(readDataItem(parser));
+        }
+    }
+
+    private static SendEmailResponse.Data readDataItem(JsonParser parser) throws IOException {
+        SendEmailResponse.Data data = new SendEmailResponse.Data();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "message_id":
+                    data.messageId = readString(parser, token);
+                    break;
+                case "custom_id":
+                    data.customId = readString(parser, token);
+                    break;
+                case "status":
+                    data.status = readString(parser, token);
+                    break;
+                case "code":
+                    data.code = readString(parser, token);
+                    break;
+                case "errors":
+                    data.errors = readErrors(parser, token);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return data;
+    }
+
+    private static List<SendEmailResponse.Error> readErrors(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        List<SendEmailResponse.Error> errors = new ArrayList<>();
+        if (token == JsonToken.START_OBJECT) {
+            errors.add(readError(parser));
+            return errors;
+        }
+        expect(parser, token, JsonToken.START_ARRAY);
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            expect(parser, token, JsonToken.START_OBJECT);
+            errors.add(readError(parser));
+        }
+        return errors;
+    }
+
+    private static SendEmailResponse.Error readError(JsonParser parser) throws IOException {
+        SendEmailResponse.Error error = new SendEmailResponse.Error();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "code":
+                    error.code = readString(parser, token);
+                    break;
+                case "description":
+                    error.description = readString(parser, token);
+                    break;
+                case "field":
+                    error.field = readString(parser, token);
+                    break;
+                case "value":
+                    error.value = readString(parser, token);
+                    break;
+                case "errors":
+                    error.errors = readErrors(parser, token);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return error;
+    }
+
+    private static SendEmailResponse.Meta readMeta(JsonParser parser) throws IOException {
+        expect(parser, parser.currentToken(), JsonToken.START_OBJECT);
+        SendEmailResponse.Meta meta = new SendEmailResponse.Meta();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            if ("rq_time".equals(field)) {
+                meta.rqTime = readString(parser, token);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return meta;
+    }
+
+    private static String readString(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            // data binding coerces only scalars, structured values are not expected here
+            parser.skipChildren();
+            return null;
+        }
+        return parser.getText();
+    }
+
+    private static void startObject(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken() == null ? parser.nextToken() : parser.currentToken();
+        expect(parser, token, JsonToken.START_OBJECT);
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new JsonParseException(parser, "Expected " + expected + " but got " + actual);
+        }
+    }
+}
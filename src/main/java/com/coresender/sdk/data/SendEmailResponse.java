@@ -1,6 +1,6 @@
 package com.coresender.sdk.data;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -8,14 +8,15 @@ import java.util.List;
  */
 public class SendEmailResponse {
 
-    private LinkedList<Data> data;
+    List<Data> data;
 
-    private Meta meta;
+    Meta meta;
 
     /**
-     * @return detailed messages processing information
+     * @return detailed messages processing information, in the order the emails were sent;
+     * null when the response was read with a per-result callback
      */
-    public LinkedList<Data> getData() {
+    public List<Data> getData() {
         return this.data;
     }
 
@@ -26,6 +27,42 @@ public class SendEmailResponse {
         return this.meta;
     }
 
+    /**
+     * Merges responses of a batch sent in several requests.
+     *
+     * @param responses responses in the order the requests' emails were added
+     * @return response with processing information of all requests, in order, and metadata of the first one
+     */
+    public static SendEmailResponse merge(List<SendEmailResponse> responses) {
+        SendEmailResponse merged = new SendEmailResponse();
+        for (SendEmailResponse response : responses) {
+            if (response.data != null) {
+                if (merged.data == null) {
+                    merged.data = new ArrayList<>();
+                }
+                merged.data.addAll(response.data);
+            }
+            if (merged.meta == null) {
+                merged.meta = response.meta;
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Creates a response assembled on the client, e.g. of emails rejected without sending them.
+     *
+     * @param data messages processing information, may be null
+     * @param meta metadata information, may be null
+     * @return response object
+     */
+    public static SendEmailResponse of(List<Data> data, Meta meta) {
+        SendEmailResponse response = new SendEmailResponse();
+        response.data = data;
+        response.meta = meta;
+        return response;
+    }
+
     @Override
     public String toString() {
         return "SendEmailResponse(data=" + this.getData() + ", meta=" + this.getMeta() + ")";
@@ -36,15 +73,48 @@ public class SendEmailResponse {
      */
     public static class Data {
 
-        private String messageId;
+        String messageId;
 
-        private String customId;
+        String customId;
 
-        private String status;
+        String status;
 
-        private List<Error> errors;
+        List<Error> errors;
 
-        private String code;
+        String code;
+
+        /**
+         * Creates processing information of an email rejected on the client.
+         *
+         * @param customId message custom id
+         * @param code     rejection code
+         * @param errors   reasons of the rejection
+         * @return rejected message processing information
+         */
+        public static Data rejected(String customId, String code, List<Error> errors) {
+            Data data = new Data();
+            data.customId = customId;
+            data.status = "rejected";
+            data.code = code;
+            data.errors = errors;
+            return data;
+        }
+
+        /**
+         * Creates processing information of an email whose request failed, so the API did not report on it.
+         *
+         * @param customId message custom id
+         * @param code     HTTP status of the failed request, null if no response was received
+         * @return failed message processing information
+         */
+        public static Data failed(String customId, String code) {
+            Data data = new Data();
+            data.customId = customId;
+            data.status = "failed";
+            data.code = code;
+            data.errors = List.of(Error.of("request_failed", code == null ? "Request failed" : "Request failed with status " + code, null, null));
+            return data;
+        }
 
         /**
          * @return message id
@@ -103,6 +173,24 @@ public class SendEmailResponse {
 
         List<Error> errors;
 
+        /**
+         * Creates error information.
+         *
+         * @param code        error code
+         * @param description error description
+         * @param field       field name
+         * @param value       field error description
+         * @return error object
+         */
+        public static Error of(String code, String description, String field, String value) {
+            Error error = new Error();
+            error.code = code;
+            error.description = description;
+            error.field = field;
+            error.value = value;
+            return error;
+        }
+
         /**
          * @return error code
          */
@@ -150,7 +238,7 @@ public class SendEmailResponse {
      */
     public static class Meta {
 
-        private String rqTime;
+        String rqTime;
 
         /**
          * @return request processing time
@@ -0,0 +1,30 @@
+package com.coresender.sdk;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to virtual threads, Java 21 variant.
+ */
+final class VirtualThreads {
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return true if virtual threads are available
+     */
+    static boolean isSupported() {
+        return true;
+    }
+
+    /**
+     * Creates executor starting a new virtual thread for each task.
+     *
+     * @param prefix thread name prefix
+     * @return executor, to be shut down by the caller
+     */
+    static ExecutorService newThreadPerTaskExecutor(String prefix) {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(prefix, 1).factory());
+    }
+}
@@ -0,0 +1,156 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.coresender.sdk.TestEmails.email;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchAccumulatorTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final ConcurrentLinkedQueue<List<Email>> sentBatches = new ConcurrentLinkedQueue<>();
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @DisplayName("Every email enqueued from many threads gets its own result")
+    @Test
+    public void testConcurrentProducers() throws Exception {
+        BatchAccumulator accumulator = new BatchAccumulator(10, Long.MAX_VALUE, Duration.ofMillis(20), scheduler, this::echo);
+        int threads = 8;
+        int perThread = 250;
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        List<List<CompletableFuture<SendEmailResponse.Data>>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            List<CompletableFuture<SendEmailResponse.Data>> own = new ArrayList<>();
+            results.add(own);
+            int thread = t;
+            Thread producer = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < perThread; i++) {
+                    own.add(accumulator.add(email(thread + "-" + i)));
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        start.countDown();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        for (int t = 0; t < threads; t++) {
+            for (int i = 0; i < perThread; i++) {
+                assertEquals(t + "-" + i, results.get(t).get(i).get(5, TimeUnit.SECONDS).getCustomId());
+            }
+        }
+        assertEquals(threads * perThread, sentBatches.stream().mapToInt(List::size).sum());
+        assertTrue(sentBatches.stream().allMatch(batch -> batch.size() <= 10));
+    }
+
+    @DisplayName("Batch is sent before exceeding the estimated payload size")
+    @Test
+    public void testByteLimit() {
+        long size = BatchAccumulator.estimateSize(email("0"));
+        BatchAccumulator accumulator = new BatchAccumulator(100, size * 3, Duration.ofHours(1), scheduler, this::echo);
+        for (int i = 0; i < 7; i++) {
+            accumulator.add(email(String.valueOf(i)));
+        }
+
+        assertEquals(List.of(3, 3), sentBatches.stream().map(List::size).collect(Collectors.toList()));
+        assertEquals(1, accumulator.getPendingEmails());
+    }
+
+    @DisplayName("Pending emails are sent after the linger time")
+    @Test
+    public void testLinger() throws Exception {
+        BatchAccumulator accumulator = new BatchAccumulator(100, Long.MAX_VALUE, Duration.ofMillis(10), scheduler, this::echo);
+
+        SendEmailResponse.Data data = accumulator.add(email("lonely")).get(5, TimeUnit.SECONDS);
+
+        assertEquals("lonely", data.getCustomId());
+        assertEquals(0, accumulator.getPendingEmails());
+    }
+
+    @DisplayName("Pending emails are sent right away once the scheduler rejects the linger timer")
+    @Test
+    public void testLingerRejected() throws Exception {
+        scheduler.shutdown();
+        BatchAccumulator accumulator = new BatchAccumulator(100, Long.MAX_VALUE, Duration.ofHours(1), scheduler, this::echo);
+
+        CompletableFuture<SendEmailResponse.Data> first = accumulator.add(email("1"));
+        CompletableFuture<SendEmailResponse.Data> second = accumulator.add(email("2"));
+
+        assertEquals("1", first.get(5, TimeUnit.SECONDS).getCustomId());
+        assertEquals("2", second.get(5, TimeUnit.SECONDS).getCustomId());
+        assertEquals(2, sentBatches.size());
+        assertEquals(0, accumulator.getPendingEmails());
+    }
+
+    @DisplayName("Every email added while closing is either rejected or sent")
+    @Test
+    public void testCloseWhileAdding() throws Exception {
+        BatchAccumulator accumulator = new BatchAccumulator(7, Long.MAX_VALUE, Duration.ofHours(1), scheduler, this::echo);
+        ConcurrentLinkedQueue<CompletableFuture<SendEmailResponse.Data>> results = new ConcurrentLinkedQueue<>();
+        CountDownLatch added = new CountDownLatch(4);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread producer = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 100_000; i++) {
+                        results.add(accumulator.add(email(String.valueOf(i))));
+                        if (i == 100) {
+                            added.countDown();
+                        }
+                    }
+                } catch (IllegalStateException exception) {
+                    // closed
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        added.await();
+
+        accumulator.close().get(5, TimeUnit.SECONDS);
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        for (CompletableFuture<SendEmailResponse.Data> result : results) {
+            assertTrue(result.isDone());
+        }
+        assertEquals(results.size(), sentBatches.stream().mapToInt(List::size).sum());
+        assertEquals(0, accumulator.getPendingEmails());
+    }
+
+    private synchronized CompletableFuture<HttpResponse<SendEmailResponse>> echo(List<Email> emails) {
+        sentBatches.add(emails);
+        return CompletableFuture.completedFuture(TestResponses.response(200, TestResponses.accepted(emails)));
+    }
+}
@@ -0,0 +1,96 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.SendEmailResponse;
+import com.coresender.sdk.testing.ApiSimulator;
+import kong.unirest.HttpResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchSplitterTest {
+
+    @DisplayName("Batch is split by number of emails and estimated payload size")
+    @Test
+    public void testSplit() {
+        List<Email> emails = IntStream.range(0, 7).mapToObj(i -> email(String.valueOf(i), "")).collect(Collectors.toList());
+        long size = BatchAccumulator.estimateSize(emails.get(0));
+
+        assertEquals(List.of(3, 3, 1), sizes(BatchSplitter.split(emails, 3, Long.MAX_VALUE)));
+        assertEquals(List.of(2, 2, 2, 1), sizes(BatchSplitter.split(emails, 100, size * 2)));
+
+        List<Email> withLarge = List.of(email("0", ""), email("1", "x".repeat(1000)), email("2", ""));
+        assertEquals(List.of(1, 1, 1), sizes(BatchSplitter.split(withLarge, 100, size + 10)));
+    }
+
+    @DisplayName("Chunks are sent with bounded parallelism and merged in the original order")
+    @Test
+    public void testOrderedMerge() {
+        List<Email> emails = IntStream.range(0, 10).mapToObj(i -> email(String.valueOf(i), "")).collect(Collectors.toList());
+        List<List<Email>> chunks = BatchSplitter.split(emails, 2, Long.MAX_VALUE);
+        List<Map.Entry<List<Email>, CompletableFuture<HttpResponse<SendEmailResponse>>>> inFlight = new ArrayList<>();
+        AtomicInteger maxInFlight = new AtomicInteger();
+
+        CompletableFuture<HttpResponse<SendEmailResponse>> merged = BatchSplitter.sendAll(chunks, 3, chunk -> {
+            CompletableFuture<HttpResponse<SendEmailResponse>> response = new CompletableFuture<>();
+            inFlight.add(Map.entry(chunk, response));
+            maxInFlight.accumulateAndGet(inFlight.size(), Math::max);
+            return response;
+        });
+        while (!inFlight.isEmpty()) {
+            // complete the most recent request first
+            Map.Entry<List<Email>, CompletableFuture<HttpResponse<SendEmailResponse>>> request = inFlight.remove(inFlight.size() - 1);
+            request.getValue().complete(TestResponses.response(200, TestResponses.accepted(request.getKey())));
+        }
+
+        assertTrue(merged.isDone());
+        assertEquals(3, maxInFlight.get());
+        assertEquals(emails.stream().map(Email::getCustomId).collect(Collectors.toList()),
+                     merged.join().getBody().getData().stream().map(SendEmailResponse.Data::getCustomId).collect(Collectors.toList()));
+    }
+
+    @DisplayName("Emails of a failed chunk get failed results, so later results stay at their emails")
+    @Test
+    public void testFailedChunk() throws Exception {
+        List<Email> emails = IntStream.range(0, 6).mapToObj(i -> email(String.valueOf(i), "")).collect(Collectors.toList());
+        List<List<Email>> chunks = BatchSplitter.split(emails, 2, Long.MAX_VALUE);
+
+        HttpResponse<SendEmailResponse> merged = BatchSplitter.sendAll(chunks, 3, chunk -> CompletableFuture.completedFuture(
+                chunk == chunks.get(1) ? TestResponses.response(500, null) : TestResponses.response(200, TestResponses.accepted(chunk)))).join();
+
+        assertEquals(500, merged.getStatus());
+        assertEquals(List.of("0 accepted", "1 accepted", "2 failed", "3 failed", "4 accepted", "5 accepted"), results(merged.getBody().getData()));
+        assertEquals("500", merged.getBody().getData().get(2).getCode());
+
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").start();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl()).batchMaxEmails(2).build()) {
+            simulator.enqueue(200, 500, 200);
+            List<SendEmailResponse.Data> streamed = new ArrayList<>();
+            coresender.sendBatchAsync(emails, streamed::add).join();
+
+            assertEquals(List.of("0 accepted", "1 accepted", "2 failed", "3 failed", "4 accepted", "5 accepted"), results(streamed));
+        }
+    }
+
+    private static List<String> results(List<SendEmailResponse.Data> data) {
+        return data.stream().map(result -> result.getCustomId() + " " + result.getStatus()).collect(Collectors.toList());
+    }
+
+    private static List<Integer> sizes(List<List<Email>> chunks) {
+        return chunks.stream().map(List::size).collect(Collectors.toList());
+    }
+
+    private static Email email(String customId, String text) {
+        return TestEmails.builder().bodyText(TestEmails.BODY_TEXT + text).customId(customId).build();
+    }
+}
@@ -0,0 +1,104 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.JsonCodec;
+import com.coresender.sdk.data.SendEmailResponse;
+import com.sun.net.httpserver.HttpServer;
+import kong.unirest.HttpResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+
+import static com.coresender.sdk.TestEmails.emails;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BufferPoolTest {
+
+    @DisplayName("Requests are written into pooled buffers, returned to the pool once sent")
+    @Test
+    public void testReuse() throws Exception {
+        BufferPool pool = new BufferPool();
+        List<byte[]> bodies = new ArrayList<>();
+        Transport transport = new Transport() {
+            @Override
+            public HttpResponse<SendEmailResponse> send(TransportRequest request) {
+                try {
+                    bodies.add(request.getBody().toByteArray());
+                } catch (Exception exception) {
+                    throw new IllegalStateException(exception);
+                }
+                return null;
+            }
+
+            @Override
+            public CompletableFuture<HttpResponse<SendEmailResponse>> sendAsync(TransportRequest request) {
+                return CompletableFuture.completedFuture(send(request));
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Coresender coresender = Coresender.builder().accountId("id").apiKey("key").transport(transport)
+                                          .compression(true).compressionThreshold(1024 * 1024).bufferPool(pool).build();
+        List<Email> small = emails(10);
+        List<Email> large = emails(2000);
+
+        coresender.sendEmailBatch(small);
+        coresender.sendEmailBatch(large);
+        long allocated = pool.getAllocatedBytes();
+        coresender.sendEmailBatch(large);
+
+        assertArrayEquals(JsonCodec.writeEmailsAsBytes(small), bodies.get(0));
+        try (GZIPInputStream content = new GZIPInputStream(new ByteArrayInputStream(bodies.get(2)))) {
+            assertArrayEquals(JsonCodec.writeEmailsAsBytes(large), content.readAllBytes());
+        }
+        assertEquals(allocated, pool.getAllocatedBytes());
+        assertTrue(pool.getReused() > 0);
+        assertEquals(0, pool.getInUseBytes());
+    }
+
+    @DisplayName("HttpClient transport streams the pooled buffers")
+    @Test
+    public void testHttpClientTransport() throws Exception {
+        List<byte[]> bodies = new ArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            bodies.add(exchange.getRequestBody().readAllBytes());
+            byte[] response = "{\"data\":[]}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(response);
+            }
+        });
+        server.start();
+        BufferPool pool = new BufferPool();
+        // large enough to span several buffers, but sent asynchronously as a single request
+        List<Email> large = emails(500);
+        List<Email> emails = emails(100);
+        try (Coresender coresender = Coresender.builder().accountId("id").apiKey("key")
+                                               .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                                               .transport(new HttpClientTransport()).bufferPool(pool).build()) {
+            assertEquals(200, coresender.sendEmailBatch(large).getStatus());
+            assertEquals(200, coresender.sendBatchAsync(emails).get().getStatus());
+        } finally {
+            server.stop(0);
+        }
+
+        assertArrayEquals(JsonCodec.writeEmailsAsBytes(large), bodies.get(0));
+        assertArrayEquals(JsonCodec.writeEmailsAsBytes(emails), bodies.get(1));
+        assertTrue(pool.getAcquired() > 2);
+        assertEquals(0, pool.getInUseBytes());
+    }
+}
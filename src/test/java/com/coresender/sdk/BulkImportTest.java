@@ -0,0 +1,174 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.Email.Address;
+import com.coresender.sdk.data.EmailTemplate;
+import com.coresender.sdk.testing.ApiSimulator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkImportTest {
+
+    @TempDir
+    Path directory;
+
+    @DisplayName("CSV rows are mapped to emails across window boundaries, with quoted fields and skipped rows")
+    @Test
+    public void testCsv() throws Exception {
+        Path file = directory.resolve("crew.csv");
+        Files.write(file, ("\uFEFFid,email,name,rank\r\n"
+                + "1,geordi@example.com,Geordi La Forge,Lieutenant Commander\r\n"
+                + "2,data@example.com,\"Data, \"\"Android\"\"\",\"Lieutenant\r\nCommander\"\r\n"
+                + "\r\n"
+                + "3,,Nobody,Ensign\r\n"
+                + "4,worf@example.com,Worf,Lieutenant").getBytes(StandardCharsets.UTF_8));
+        EmailTemplate template = EmailTemplate.builder().subject("Report, {{rank}}").bodyText("Hello {{name}}").build();
+
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").recordEmails(true).start();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl()).build()) {
+            BulkImport.Result result = BulkImport.builder()
+                                                 .file(file)
+                                                 .column("id", BulkImport.Field.CUSTOM_ID)
+                                                 .column("email", BulkImport.Field.TO_EMAIL)
+                                                 .column("name", BulkImport.Field.TO_NAME)
+                                                 .variable("name", "name")
+                                                 .variable("rank", "rank")
+                                                 .template(template)
+                                                 .defaults(builder -> builder.from(Address.of("jean.luc@example.com", "Jean-Luc Picard")))
+                                                 .batchSize(2)
+                                                 .windowSize(8)
+                                                 .build()
+                                                 .run(coresender);
+
+            // batches are sent in parallel
+            List<Email> received = simulator.getReceivedEmails();
+            assertEquals(List.of("1", "2", "4"), received.stream().map(Email::getCustomId).sorted().collect(Collectors.toList()));
+            assertEquals(List.of("Data, \"Android\""), received.stream().filter(email -> email.getCustomId().equals("2"))
+                                                                  .map(email -> email.getTo().get(0).getName()).collect(Collectors.toList()));
+            assertEquals(4, result.getRows());
+            assertEquals(3, result.getEmails());
+            assertEquals(1, result.getSkipped());
+            assertEquals(Files.size(file), result.getOffset());
+        }
+    }
+
+    @DisplayName("CSV rows with malformed quoted fields are skipped up to the next line")
+    @Test
+    public void testMalformedCsv() throws Exception {
+        Path file = directory.resolve("crew.csv");
+        Files.write(file, ("id,email\n"
+                + "1,geordi@example.com\n"
+                + "2,\"data@example.com\"x\n"
+                + "3,worf@example.com\n"
+                + "4,\"troi@example.com\n"
+                + "5,riker@example.com\n").getBytes(StandardCharsets.UTF_8));
+
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").recordEmails(true).start();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl()).build()) {
+            BulkImport.Result result = BulkImport.builder()
+                                                 .file(file)
+                                                 .column("id", BulkImport.Field.CUSTOM_ID)
+                                                 .column("email", BulkImport.Field.TO_EMAIL)
+                                                 .defaults(builder -> builder.from(Address.of("jean.luc@example.com"))
+                                                                             .subject("I need engines")
+                                                                             .bodyText("Now!"))
+                                                 .windowSize(8)
+                                                 .build()
+                                                 .run(coresender);
+
+            assertEquals(List.of("1", "3", "5"), simulator.getReceivedEmails().stream().map(Email::getCustomId).sorted().collect(Collectors.toList()));
+            assertEquals(5, result.getRows());
+            assertEquals(2, result.getSkipped());
+            assertEquals(Files.size(file), result.getOffset());
+        }
+    }
+
+    @DisplayName("JSONL files starting with a byte order mark are read from their first line")
+    @Test
+    public void testJsonlByteOrderMark() throws Exception {
+        Path file = directory.resolve("crew.jsonl");
+        Path blank = directory.resolve("blank.jsonl");
+        Files.write(file, ("\uFEFF{\"id\":1,\"email\":\"geordi@example.com\"}\n"
+                + "{\"id\":2,\"email\":\"data@example.com\"}\n").getBytes(StandardCharsets.UTF_8));
+        Files.write(blank, "\uFEFF\r\n{\"id\":3,\"email\":\"worf@example.com\"}\n".getBytes(StandardCharsets.UTF_8));
+
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").recordEmails(true).start();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl()).build()) {
+            BulkImport.Result result = jsonlImport(file).run(coresender);
+            BulkImport.Result blankResult = jsonlImport(blank).run(coresender);
+
+            assertEquals(List.of("1", "2", "3"), simulator.getReceivedEmails().stream().map(Email::getCustomId).sorted().collect(Collectors.toList()));
+            assertEquals(2, result.getRows());
+            assertEquals(0, result.getSkipped());
+            assertEquals(1, blankResult.getRows());
+            assertEquals(0, blankResult.getSkipped());
+        }
+    }
+
+    @DisplayName("A failed import resumes from the checkpoint of the last sent batch")
+    @Test
+    public void testResume() throws Exception {
+        Path file = directory.resolve("crew.jsonl");
+        Path checkpoint = directory.resolve("crew.checkpoint");
+        Files.write(file, ("{\"id\":1,\"email\":\"geordi@example.com\"}\n"
+                + "{\"id\":2,\"email\":\"data@example.com\",\"tags\":[\"android\"]}\n"
+                + "{\"id\":3,\n"
+                + "{\"id\":3,\"email\":\"worf@example.com\",\"name\":null}\n"
+                + "\n"
+                + "{\"id\":4,\"email\":\"troi@example.com\",\"ship\":{\"name\":\"Enterprise\"}}\n"
+                + "{\"id\":5,\"email\":\"riker@example.com\"}\n").getBytes(StandardCharsets.UTF_8));
+        BulkImport bulkImport = BulkImport.builder()
+                                          .file(file)
+                                          .column("id", BulkImport.Field.CUSTOM_ID)
+                                          .column("email", BulkImport.Field.TO_EMAIL)
+                                          .column("name", BulkImport.Field.TO_NAME)
+                                          .defaults(builder -> builder.from(Address.of("jean.luc@example.com"))
+                                                                      .subject("I need engines")
+                                                                      .bodyText("Now!"))
+                                          .batchSize(2)
+                                          .maxInFlight(1)
+                                          .checkpoint(checkpoint)
+                                          .build();
+
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").recordEmails(true).start();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl()).build()) {
+            simulator.enqueue(200, 500);
+            SendEmailException exception = assertThrows(SendEmailException.class, () -> bulkImport.run(coresender));
+            assertEquals(500, exception.getResponse().getStatus());
+            String saved = Files.readString(checkpoint);
+
+            BulkImport.Result result = bulkImport.run(coresender);
+
+            assertTrue(saved.contains("rows=2"), saved);
+            assertEquals(List.of("1", "2", "3", "4", "5"), simulator.getReceivedEmails().stream().map(Email::getCustomId).collect(Collectors.toList()));
+            assertEquals(4, result.getRows());
+            assertEquals(3, result.getEmails());
+            assertEquals(1, result.getSkipped());
+            assertTrue(result.getResumedFrom() > 0);
+            assertEquals(Files.size(file), result.getOffset());
+            assertEquals(0, bulkImport.run(coresender).getEmails());
+        }
+    }
+
+    private static BulkImport jsonlImport(Path file) {
+        return BulkImport.builder()
+                         .file(file)
+                         .column("id", BulkImport.Field.CUSTOM_ID)
+                         .column("email", BulkImport.Field.TO_EMAIL)
+                         .defaults(builder -> builder.from(Address.of("jean.luc@example.com"))
+                                                     .subject("I need engines")
+                                                     .bodyText("Now!"))
+                         .build();
+    }
+}
@@ -0,0 +1,84 @@
+package com.coresender.sdk;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyLimiterTest {
+
+    private static final long LATENCY = TimeUnit.MILLISECONDS.toNanos(20);
+
+    @DisplayName("Requests over the limit wait in the queue until a slot is released")
+    @Test
+    public void testQueue() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+
+        CompletableFuture<Void> first = limiter.acquire();
+        CompletableFuture<Void> second = limiter.acquire();
+
+        assertTrue(first.isDone());
+        assertFalse(second.isDone());
+        assertEquals(1, limiter.getQueueDepth());
+
+        limiter.release(LATENCY, false);
+
+        assertTrue(second.isDone());
+        assertEquals(0, limiter.getQueueDepth());
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @DisplayName("Limit grows while latency is stable and shrinks when it rises or the API throttles")
+    @Test
+    public void testAdaptation() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 100);
+
+        for (int round = 0; round < 20; round++) {
+            roundTrip(limiter, LATENCY);
+        }
+        int grown = limiter.getLimit();
+        assertTrue(grown > 10, "limit " + grown);
+
+        for (int round = 0; round < 5; round++) {
+            roundTrip(limiter, LATENCY * 4);
+        }
+        int slowed = limiter.getLimit();
+        assertTrue(slowed < grown, "limit " + slowed);
+
+        limiter.acquire();
+        limiter.release(LATENCY, true);
+        assertEquals((int) (slowed * 0.75), limiter.getLimit());
+    }
+
+    @DisplayName("First overload shrinks the limit however long the minimum latency is")
+    @Test
+    public void testFirstBackoff() {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(10, 1, 100);
+        limiter.acquire();
+        limiter.release(Long.MAX_VALUE / 4, false);
+
+        limiter.acquire();
+        limiter.release(LATENCY, true);
+
+        assertEquals(7, limiter.getLimit());
+    }
+
+    private static void roundTrip(ConcurrencyLimiter limiter, long latency) {
+        List<CompletableFuture<Void>> slots = new ArrayList<>();
+        int limit = limiter.getLimit();
+        for (int i = 0; i < limit; i++) {
+            slots.add(limiter.acquire());
+        }
+        for (CompletableFuture<Void> slot : slots) {
+            assertTrue(slot.isDone());
+            limiter.release(latency, false);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.SendEmailResponse;
+import com.coresender.sdk.testing.ApiSimulator;
+import com.coresender.sdk.testing.ApiSimulator.Latency;
+import kong.unirest.HttpResponse;
+import kong.unirest.UnirestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.coresender.sdk.TestEmails.email;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConnectionSettingsTest {
+
+    @DisplayName("Concurrent requests wait for a connection of the sized pool of a slow server")
+    @Test
+    public void testPoolSize() throws Exception {
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").latency(Latency.fixed(Duration.ofMillis(200))).start();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl())
+                                               .maxConnections(2).maxConnectionsPerRoute(2).build()) {
+            long start = System.nanoTime();
+            List<CompletableFuture<HttpResponse<SendEmailResponse>>> responses = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                responses.add(coresender.sendAsync(email(String.valueOf(i))));
+            }
+            for (CompletableFuture<HttpResponse<SendEmailResponse>> response : responses) {
+                assertEquals(200, response.get(5, TimeUnit.SECONDS).getStatus());
+            }
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertTrue(simulator.getConnections() <= 2, "connections " + simulator.getConnections());
+            // three rounds of two requests
+            assertTrue(elapsed >= 600, "elapsed " + elapsed + " ms");
+        }
+    }
+
+    @DisplayName("Socket timeout fails a request the server doesn't answer in time, with either transport")
+    @Test
+    public void testSocketTimeout() throws Exception {
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").latency(Latency.fixed(Duration.ofSeconds(2))).start()) {
+            for (boolean http2 : new boolean[]{false, true}) {
+                try (Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl())
+                                                       .socketTimeout(Duration.ofMillis(200)).http2(http2).build()) {
+                    long start = System.nanoTime();
+
+                    assertThrows(UnirestException.class, () -> coresender.sendSimpleEmail(email("1")));
+                    long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    assertTrue(elapsed < 1500, "elapsed " + elapsed + " ms with http2 " + http2);
+                }
+            }
+        }
+    }
+}
@@ -1,9 +1,31 @@
 package com.coresender.sdk;
 
 import com.coresender.sdk.Coresender.CoresenderBuilder;
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.JsonCodec;
+import com.coresender.sdk.data.SendEmailResponse;
+import com.coresender.sdk.testing.ApiSimulator;
+import com.coresender.sdk.testing.ApiSimulator.Latency;
+import kong.unirest.HttpResponse;
+import kong.unirest.UnirestException;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
@@ -24,4 +46,132 @@ public class CoresenderTest {
     public void testApiSetupWithMissingEnvironmentVariables() {
         assertThrows(IllegalArgumentException.class, () -> Coresender.builder().build());
     }
+
+    @DisplayName("Batch above compression threshold is sent gzip compressed")
+    @Test
+    public void testCompressedRequest() throws Exception {
+        CapturingTransport transport = new CapturingTransport();
+        try (Coresender coresender = Coresender.builder().accountId("id").apiKey("key").transport(transport)
+                                              .compression(true).compressionThreshold(1000).build()) {
+            List<Email> emails = List.of(email("1"), email("2"), email("3"), email("4"), email("5"));
+
+            coresender.sendEmailBatch(emails);
+
+            TransportRequest request = transport.requests.get(0);
+            assertEquals("gzip", request.getHeaders().get("Content-Encoding"));
+            try (GZIPInputStream content = new GZIPInputStream(new ByteArrayInputStream(request.getBody().toByteArray()))) {
+                assertEquals(JsonCodec.writeEmails(emails), new String(content.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    @DisplayName("Email below compression threshold is sent uncompressed")
+    @Test
+    public void testUncompressedSmallRequest() throws Exception {
+        CapturingTransport transport = new CapturingTransport();
+        try (Coresender coresender = Coresender.builder().accountId("id").apiKey("key").transport(transport)
+                                              .compression(true).compressionThreshold(1000).build()) {
+            coresender.sendSimpleEmail(email("1"));
+
+            TransportRequest request = transport.requests.get(0);
+            assertFalse(request.getHeaders().containsKey("Content-Encoding"));
+            assertEquals(JsonCodec.writeEmails(List.of(email("1"))), new String(request.getBody().toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @DisplayName("Batch is put back when the transport fails")
+    @Test
+    public void testFailedTransport() throws Exception {
+        CapturingTransport transport = new CapturingTransport();
+        transport.failures = 2;
+        try (Coresender coresender = Coresender.builder().accountId("id").apiKey("key").transport(transport).build()) {
+            coresender.addToBatch(email("1"));
+            coresender.addToBatch(email("2"));
+
+            assertThrows(UnirestException.class, coresender::execute);
+            CompletionException exception = assertThrows(CompletionException.class, () -> coresender.executeAsync().join());
+            coresender.addToBatch(email("3"));
+            coresender.execute();
+
+            assertEquals(UnirestException.class, exception.getCause().getClass());
+            assertEquals(1, transport.requests.size());
+            assertEquals(JsonCodec.writeEmails(List.of(email("1"), email("2"), email("3"))),
+                         new String(transport.requests.get(0).getBody().toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @DisplayName("Asynchronous send completes with the processing information")
+    @Test
+    public void testSendAsync() throws Exception {
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").start();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl()).build()) {
+            HttpResponse<SendEmailResponse> response = coresender.sendAsync(email("1")).get(5, TimeUnit.SECONDS);
+
+            assertEquals(200, response.getStatus());
+            assertEquals("1", response.getBody().getData().get(0).getCustomId());
+            assertEquals("accepted", response.getBody().getData().get(0).getStatus());
+        }
+    }
+
+    @DisplayName("Asynchronous send completes exceptionally when the transport fails")
+    @Test
+    public void testSendAsyncFailure() {
+        CapturingTransport transport = new CapturingTransport();
+        transport.failures = 1;
+        try (Coresender coresender = Coresender.builder().accountId("id").apiKey("key").transport(transport).build()) {
+            CompletableFuture<HttpResponse<SendEmailResponse>> response = coresender.sendAsync(email("1"));
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> response.get(5, TimeUnit.SECONDS));
+            assertEquals(UnirestException.class, exception.getCause().getClass());
+        }
+    }
+
+    @DisplayName("Asynchronous send is completed on the configured executor")
+    @Test
+    public void testSendAsyncExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(Coresender.daemonThreadFactory("completion-"));
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").latency(Latency.fixed(Duration.ofMillis(50))).start();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl()).executor(executor).build()) {
+            // registered before the response arrives, so the stage runs on the thread completing the future
+            String thread = coresender.sendAsync(email("1")).thenApply(response -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+            assertEquals("completion-1", thread);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static Email email(String customId) {
+        return TestEmails.builder().bodyHtml("<html><body><p>Geordi, I need engines, now!</p></body></html>").customId(customId).build();
+    }
+
+    private static class CapturingTransport implements Transport {
+
+        private final List<TransportRequest> requests = new ArrayList<>();
+
+        private int failures;
+
+        @Override
+        public HttpResponse<SendEmailResponse> send(TransportRequest request) {
+            if (failures > 0) {
+                failures--;
+                throw new UnirestException("Connection refused");
+            }
+            requests.add(request);
+            return null;
+        }
+
+        @Override
+        public CompletableFuture<HttpResponse<SendEmailResponse>> sendAsync(TransportRequest request) {
+            try {
+                return CompletableFuture.completedFuture(send(request));
+            } catch (RuntimeException exception) {
+                return CompletableFuture.failedFuture(exception);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
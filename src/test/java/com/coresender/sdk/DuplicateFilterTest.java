@@ -0,0 +1,90 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.SendEmailResponse;
+import com.coresender.sdk.testing.ApiSimulator;
+import kong.unirest.HttpResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.coresender.sdk.TestEmails.email;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DuplicateFilterTest {
+
+    @DisplayName("Recent ids are exact, older ones are probable within the false positive rate")
+    @Test
+    public void testTiers() {
+        DuplicateFilter filter = DuplicateFilter.builder().expectedIds(100_000).falsePositiveRate(0.01).recentIds(1000).build();
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.claim("id-" + i));
+            filter.confirm("id-" + i);
+        }
+        long probable = filter.getProbableDuplicates();
+
+        assertFalse(filter.claim("id-99999"));
+        assertEquals(1, filter.getDuplicates());
+        // evicted from the exact tier, found in the previous Bloom filter generation and sent anyway
+        assertTrue(filter.claim("id-0"));
+        assertEquals(probable + 1, filter.getProbableDuplicates());
+        for (int i = 0; i < 100_000; i++) {
+            filter.claim("new-" + i);
+            filter.forget("new-" + i);
+        }
+        long falsePositives = filter.getProbableDuplicates() - probable - 1;
+        assertTrue(falsePositives < 100_000 * 0.02, String.valueOf(falsePositives));
+        assertTrue(filter.claim("new-1"));
+    }
+
+    @DisplayName("Ids are suppressed once accepted and released when the email wasn't accepted")
+    @Test
+    public void testSend() throws Exception {
+        DuplicateFilter filter = DuplicateFilter.builder().build();
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").recordEmails(true).rejectIf(email -> email.getCustomId().equals("3")).start();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl()).duplicateFilter(filter).build()) {
+            HttpResponse<SendEmailResponse> first = coresender.sendBatchAsync(List.of(email("1", true), email("2", true), email("3", true))).join();
+            simulator.enqueue(500);
+            coresender.sendSimpleEmail(email("4", true));
+            HttpResponse<SendEmailResponse> second = coresender.sendBatchAsync(List.of(email("1", true), email("2", false), email("3", true),
+                                                                                       email("4", true), email("5", true), email("5", true))).join();
+
+            assertEquals(List.of("accepted", "accepted", "rejected"), statuses(first));
+            assertEquals(List.of("rejected", "accepted", "rejected", "accepted", "accepted", "rejected"), statuses(second));
+            assertEquals("409", second.getBody().getData().get(0).getCode());
+            assertEquals("duplicate", second.getBody().getData().get(5).getErrors().get(0).getCode());
+            assertEquals("422", second.getBody().getData().get(2).getCode());
+            assertEquals("rejected", coresender.enqueue(email("4", true)).join().getStatus());
+            assertEquals(List.of("1", "2", "3", "2", "3", "4", "5"), simulator.getReceivedEmails().stream().map(Email::getCustomId).collect(Collectors.toList()));
+            assertEquals(3, filter.getDuplicates());
+        }
+    }
+
+    @DisplayName("Ids accepted in a request of a split batch stay suppressed when another request fails")
+    @Test
+    public void testSplitBatch() throws Exception {
+        DuplicateFilter filter = DuplicateFilter.builder().build();
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").recordEmails(true).start();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl())
+                                               .batchMaxEmails(2).batchParallelism(1).duplicateFilter(filter).build()) {
+            List<Email> emails = List.of(email("1", true), email("2", true), email("3", true), email("4", true));
+            simulator.enqueue(200, 500);
+            HttpResponse<SendEmailResponse> first = coresender.sendBatchAsync(emails).join();
+            HttpResponse<SendEmailResponse> second = coresender.sendBatchAsync(emails).join();
+
+            assertEquals(List.of("accepted", "accepted", "failed", "failed"), statuses(first));
+            assertEquals(List.of("rejected", "rejected", "accepted", "accepted"), statuses(second));
+            // the simulator doesn't record emails of requests it fails
+            assertEquals(List.of("1", "2", "3", "4"), simulator.getReceivedEmails().stream().map(Email::getCustomId).collect(Collectors.toList()));
+            assertEquals(2, filter.getDuplicates());
+        }
+    }
+
+    private static List<String> statuses(HttpResponse<SendEmailResponse> response) {
+        return response.getBody().getData().stream().map(SendEmailResponse.Data::getStatus).collect(Collectors.toList());
+    }
+}
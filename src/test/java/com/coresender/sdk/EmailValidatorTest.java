@@ -0,0 +1,147 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.Email.Address;
+import com.coresender.sdk.data.EmailTemplate;
+import com.coresender.sdk.data.SendEmailResponse;
+import com.coresender.sdk.testing.ApiSimulator;
+import kong.unirest.HttpResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EmailValidatorTest {
+
+    @DisplayName("Address parser accepts RFC 5321 addresses and rejects malformed ones")
+    @Test
+    public void testAddresses() {
+        for (String address : List.of("geordi@example.com", "jean.luc+enterprise@mail.example.co.uk", "\"jean luc\"@example.com",
+                                      "\"quoted\\\"escape\"@example.com", "o'brien@example.com", "data@[192.0.2.1]", "worf@xn--klingon-7ya.example",
+                                      "jürgen@müller.example", "a@b.c")) {
+            assertTrue(EmailValidator.isValidAddress(address), address);
+        }
+        for (String address : List.of("", "geordi", "geordi@", "@example.com", "geordi@example", ".geordi@example.com", "geordi.@example.com",
+                                      "geo..rdi@example.com", "geordi@@example.com", "geordi@example..com", "geordi@-example.com",
+                                      "geordi@example-.com", "geordi la forge@example.com", "\"unclosed@example.com", "geordi@exa mple.com",
+                                      "geordi@[192.0.2.1", "geordi@example.com.", "a".repeat(65) + "@example.com",
+                                      "geordi@" + "a".repeat(64) + ".com")) {
+            assertFalse(EmailValidator.isValidAddress(address), address);
+        }
+        // no backtracking, a long hostile address is refused in linear time
+        assertFalse(EmailValidator.isValidAddress("a.".repeat(100_000) + "@"));
+    }
+
+    @DisplayName("Every problem is reported with code, field and value")
+    @Test
+    public void testValidate() {
+        EmailValidator validator = EmailValidator.builder().maxRecipients(2).maxSubjectLength(10).build();
+        Email email = Email.builder()
+                           .from(Address.of("jean.luc@example.com", "Jean-Luc\r\nBcc: everyone@example.com"))
+                           .to(List.of(Address.of("geordi@example.com"), Address.of("data@enterprise"), Address.of("worf@example.com")))
+                           .subject("I need engines")
+                           .customId("1")
+                           .build();
+
+        List<SendEmailResponse.Error> errors = validator.validate(email);
+
+        assertEquals(List.of("from.name invalid", "to too_many", "to.1.email invalid", "subject too_long", "body required"),
+                     errors.stream().map(error -> error.getField() + " " + error.getCode()).collect(Collectors.toList()));
+        assertEquals("data@enterprise", errors.get(2).getValue());
+        assertTrue(EmailValidator.builder().build().validate(email("2", "geordi@example.com")).isEmpty());
+    }
+
+    @DisplayName("Templated email is checked by the lengths its template renders to")
+    @Test
+    public void testTemplate() {
+        EmailValidator validator = EmailValidator.builder().maxSubjectLength(10).maxBodyLength(20).build();
+        EmailTemplate template = EmailTemplate.builder().subject("{{ship}}").bodyHtml("<p>{{name}}</p>").build();
+
+        Email valid = templated(template, " ", "<&>");
+        Email invalid = templated(template, "Enterprise-D", "<&>!");
+
+        assertEquals(valid.getBody().getHtml().length(), valid.bodyLength());
+        assertEquals(List.of("subject required"), codes(validator.validate(valid)));
+        assertEquals(List.of("subject too_long", "body too_long"), codes(validator.validate(invalid)));
+        assertEquals("21", validator.validate(invalid).get(1).getValue());
+    }
+
+    private static Email templated(EmailTemplate template, String ship, String name) {
+        return Email.builder()
+                    .from(Address.of("jean.luc@example.com"))
+                    .to(List.of(Address.of("geordi@example.com")))
+                    .template(template, Map.of("ship", ship, "name", name))
+                    .build();
+    }
+
+    private static List<String> codes(List<SendEmailResponse.Error> errors) {
+        return errors.stream().map(error -> error.getField() + " " + error.getCode()).collect(Collectors.toList());
+    }
+
+    @DisplayName("Rejected emails are not sent and keep their positions in the results")
+    @Test
+    public void testSendValidOnly() throws Exception {
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").recordEmails(true).start();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl())
+                                               .validator(EmailValidator.builder().parallelThreshold(2).build())
+                                               .build()) {
+            List<Email> emails = List.of(email("1", "geordi@example.com"), email("2", "geordi@"), email("3", "data@example.com"), email("4", "worf@"));
+
+            HttpResponse<SendEmailResponse> response = coresender.sendBatchAsync(emails).join();
+            List<String> streamed = new ArrayList<>();
+            coresender.sendBatchAsync(emails, data -> streamed.add(data.getCustomId() + " " + data.getStatus())).join();
+            HttpResponse<SendEmailResponse> invalid = coresender.sendSimpleEmail(email("5", "geordi"));
+
+            assertEquals(200, response.getStatus());
+            assertEquals(List.of("1 accepted", "2 rejected", "3 accepted", "4 rejected"),
+                         response.getBody().getData().stream().map(data -> data.getCustomId() + " " + data.getStatus()).collect(Collectors.toList()));
+            assertEquals("to.0.email", response.getBody().getData().get(1).getErrors().get(0).getField());
+            assertEquals(List.of("1 accepted", "2 rejected", "3 accepted", "4 rejected"), streamed);
+            assertEquals(200, invalid.getStatus());
+            assertEquals("rejected", invalid.getBody().getData().get(0).getStatus());
+            assertEquals("rejected", coresender.enqueue(email("6", "geordi")).join().getStatus());
+            assertEquals(2, simulator.getRequests());
+            assertEquals(List.of("1", "3", "1", "3"), simulator.getReceivedEmails().stream().map(Email::getCustomId).collect(Collectors.toList()));
+        }
+    }
+
+    @DisplayName("Sent emails are reported as failed when the response doesn't report on each of them")
+    @Test
+    public void testIncompleteResponse() {
+        Transport transport = new Transport() {
+            @Override
+            public HttpResponse<SendEmailResponse> send(TransportRequest request) {
+                return TestResponses.response(200, TestResponses.accepted(List.of(email("1", "geordi@example.com"))));
+            }
+
+            @Override
+            public CompletableFuture<HttpResponse<SendEmailResponse>> sendAsync(TransportRequest request) {
+                return CompletableFuture.completedFuture(send(request));
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (Coresender coresender = Coresender.builder().accountId("id").apiKey("key").transport(transport).validator(EmailValidator.builder().build()).build()) {
+            List<Email> emails = List.of(email("1", "geordi@example.com"), email("2", "geordi@"), email("3", "data@example.com"));
+
+            HttpResponse<SendEmailResponse> response = coresender.sendBatchAsync(emails).join();
+
+            assertEquals(List.of("1 failed", "2 rejected", "3 failed"),
+                         response.getBody().getData().stream().map(data -> data.getCustomId() + " " + data.getStatus()).collect(Collectors.toList()));
+        }
+    }
+
+    private static Email email(String customId, String to) {
+        return TestEmails.builder().to(List.of(Address.of(to, "Geordi La Forge"))).bodyText(TestEmails.BODY_TEXT).customId(customId).build();
+    }
+}
@@ -0,0 +1,48 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.testing.ApiSimulator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.coresender.sdk.TestEmails.emails;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpClientTransportTest {
+
+    @DisplayName("Asynchronous responses are streamed to the reader on the completion executor")
+    @Test
+    public void testReadExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(Coresender.daemonThreadFactory("reader-"));
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").start();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl())
+                                               .http2(true).executor(executor).build()) {
+            List<String> threads = new CopyOnWriteArrayList<>();
+
+            coresender.sendBatchAsync(emails(3), data -> threads.add(Thread.currentThread().getName())).get(5, TimeUnit.SECONDS);
+
+            assertEquals(List.of("reader-1", "reader-1", "reader-1"), threads);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @DisplayName("Closing the transport shuts down the executor it owns")
+    @Test
+    public void testClose() {
+        ExecutorService executor = Executors.newCachedThreadPool();
+        HttpClientTransport transport = new HttpClientTransport(HttpClient.newBuilder().executor(executor).build(), Duration.ofSeconds(1), executor, null);
+
+        transport.close();
+
+        assertTrue(executor.isShutdown());
+    }
+}
@@ -0,0 +1,109 @@
+package com.coresender.sdk;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.classic.spi.ThrowableProxy;
+import ch.qos.logback.core.read.ListAppender;
+import com.coresender.sdk.data.Email;
+import kong.unirest.UnirestException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.coresender.sdk.TestEmails.email;
+import static com.coresender.sdk.TestEmails.emails;
+import static com.coresender.sdk.TestResponses.accepted;
+import static com.coresender.sdk.TestResponses.response;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LoggingInterceptorTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(LoggingInterceptor.class);
+
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    private Level level;
+
+    @BeforeEach
+    public void setUp() {
+        level = logger.getLevel();
+        logger.setLevel(Level.DEBUG);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        logger.detachAppender(appender);
+        logger.setLevel(level);
+    }
+
+    @DisplayName("Requests are logged with masked addresses and truncated content")
+    @Test
+    public void testRequest() {
+        new LoggingInterceptor(10, 10).onRequest(List.of(email("1")));
+
+        assertEquals(List.of("Sending 1 email(s):\n"
+                             + "  from=j***@example.com, to=[g***@example.com], subject=I need eng...(14 chars), customId=1, "
+                             + "text=Geordi, I ...(28 chars), html=null"),
+                     messages());
+    }
+
+    @DisplayName("Only the first emails and results are logged")
+    @Test
+    public void testMaxEmails() {
+        List<Email> emails = emails(3);
+        LoggingInterceptor interceptor = new LoggingInterceptor(64, 2);
+
+        interceptor.onRequest(emails);
+        interceptor.onResponse(emails, response(200, accepted(emails)));
+
+        List<String> messages = messages();
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(0).startsWith("Sending 3 email(s):\n  from="), messages.get(0));
+        assertTrue(messages.get(0).contains("to=[g***@example.com], "), messages.get(0));
+        assertTrue(messages.get(0).contains("customId=1,"), messages.get(0));
+        assertTrue(messages.get(0).endsWith("\n  ..."), messages.get(0));
+        assertEquals(3, messages.get(0).split("\n").length - 1);
+        assertEquals("Got response 200 null\n"
+                     + "  SendEmailResponse.Data(messageId=null, customId=0, status=accepted, errors=null, code=null)\n"
+                     + "  SendEmailResponse.Data(messageId=null, customId=1, status=accepted, errors=null, code=null)\n"
+                     + "  ...",
+                     messages.get(1));
+    }
+
+    @DisplayName("Failures are logged with their exception")
+    @Test
+    public void testFailure() {
+        UnirestException exception = new UnirestException("Connection refused");
+
+        new LoggingInterceptor().onFailure(emails(2), exception);
+
+        assertEquals(List.of("Sending 2 email(s) failed"), messages());
+        assertSame(exception, ((ThrowableProxy) appender.list.get(0).getThrowableProxy()).getThrowable());
+    }
+
+    @DisplayName("Nothing is logged unless debug logging is enabled")
+    @Test
+    public void testDisabled() {
+        logger.setLevel(Level.INFO);
+        LoggingInterceptor interceptor = new LoggingInterceptor();
+
+        interceptor.onRequest(List.of(email("1")));
+        interceptor.onResponse(List.of(email("1")), response(200, accepted(List.of(email("1")))));
+
+        assertEquals(List.of(), messages());
+    }
+
+    private List<String> messages() {
+        return appender.list.stream().map(ILoggingEvent::getFormattedMessage).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,174 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.coresender.sdk.TestEmails.email;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OutboxTest {
+
+    @TempDir
+    Path directory;
+
+    @DisplayName("Emails not acknowledged are replayed in order and acknowledged segments are deleted")
+    @Test
+    public void testReplay() throws Exception {
+        try (Outbox outbox = Outbox.open(directory, 4096, Duration.ofMillis(1))) {
+            for (int i = 0; i < 100; i++) {
+                outbox.append(email(String.valueOf(i)));
+            }
+            outbox.sync().get(5, TimeUnit.SECONDS);
+            List<Outbox.Entry> entries = outbox.drain();
+            outbox.acknowledge(entries.subList(0, 90));
+            outbox.requeue(entries.subList(90, 100));
+        }
+        assertTrue(segments() < 10, "segments " + segments());
+
+        try (Outbox outbox = Outbox.open(directory, 4096, Duration.ofMillis(1))) {
+            assertEquals(10, outbox.getPendingEmails());
+            assertEquals(List.of("90", "91", "92", "93", "94", "95", "96", "97", "98", "99"), customIds(outbox.drain()));
+        }
+    }
+
+    @DisplayName("Ids aren't reused after all segments with emails were deleted")
+    @Test
+    public void testIdsNotReused() throws Exception {
+        try (Outbox outbox = Outbox.open(directory, 4096, Duration.ofMillis(1))) {
+            for (int i = 0; i < 100; i++) {
+                outbox.append(email(String.valueOf(i)));
+            }
+            outbox.acknowledge(outbox.drain());
+        }
+
+        try (Outbox outbox = Outbox.open(directory, 4096, Duration.ofMillis(1))) {
+            outbox.append(email("100"));
+            List<Outbox.Entry> entries = outbox.drain();
+
+            assertEquals(List.of("100"), customIds(entries));
+            assertEquals(100, entries.get(0).getId());
+        }
+    }
+
+    @DisplayName("Record torn by a crash ends the replay of its segment")
+    @Test
+    public void testTornRecord() throws Exception {
+        try (Outbox outbox = Outbox.open(directory)) {
+            outbox.append(email("0"));
+            outbox.append(email("1"));
+        }
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.sorted().findFirst().orElseThrow();
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            // damage the last byte of the second email's payload, after the record with the next id
+            int mark = 17 + readInt(file, 0);
+            int first = 17 + readInt(file, mark);
+            int second = 17 + readInt(file, mark + first);
+            file.seek(mark + first + second - 1);
+            file.write(0);
+        }
+
+        try (Outbox outbox = Outbox.open(directory)) {
+            assertEquals(List.of("0"), customIds(outbox.drain()));
+        }
+    }
+
+    @DisplayName("Execution acknowledges confirmed emails and keeps failed ones for the next one")
+    @Test
+    public void testExecute() throws Exception {
+        HttpResponse<SendEmailResponse> accepted = TestResponses.response(200, TestResponses.accepted(List.of(email("0"), email("1"), email("2"))));
+        ConcurrentLinkedQueue<HttpResponse<SendEmailResponse>> responses = new ConcurrentLinkedQueue<>(List.of(TestResponses.response(503, "{\"data\":[]}"), accepted));
+        Transport transport = new Transport() {
+            @Override
+            public HttpResponse<SendEmailResponse> send(TransportRequest request) {
+                return responses.poll();
+            }
+
+            @Override
+            public CompletableFuture<HttpResponse<SendEmailResponse>> sendAsync(TransportRequest request) {
+                return CompletableFuture.completedFuture(send(request));
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (Outbox outbox = Outbox.open(directory);
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").transport(transport).outbox(outbox).build()) {
+            coresender.addToBatch(email("0"));
+            coresender.addToBatch(email("1"));
+            coresender.addToBatch(email("2"));
+
+            assertEquals(503, coresender.execute().getStatus());
+            assertEquals(3, outbox.getPendingEmails());
+            assertEquals(200, coresender.execute().getStatus());
+            assertEquals(0, outbox.getPendingEmails());
+        }
+        try (Outbox outbox = Outbox.open(directory)) {
+            assertEquals(0, outbox.getPendingEmails());
+        }
+    }
+
+    @DisplayName("Sent emails are kept pending when their acknowledgement fails")
+    @Test
+    public void testAcknowledgeFailure() throws Exception {
+        try (Outbox outbox = Outbox.open(directory)) {
+            Transport transport = new Transport() {
+                @Override
+                public HttpResponse<SendEmailResponse> send(TransportRequest request) {
+                    // the journal can't be written anymore
+                    outbox.close();
+                    return TestResponses.response(200, TestResponses.accepted(List.of(email("0"), email("1"))));
+                }
+
+                @Override
+                public CompletableFuture<HttpResponse<SendEmailResponse>> sendAsync(TransportRequest request) {
+                    return CompletableFuture.completedFuture(send(request));
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+            try (Coresender coresender = Coresender.builder().accountId("id").apiKey("key").transport(transport).outbox(outbox).build()) {
+                coresender.addToBatch(email("0"));
+                coresender.addToBatch(email("1"));
+
+                assertEquals(200, coresender.execute().getStatus());
+                assertEquals(List.of("0", "1"), customIds(outbox.drain()));
+            }
+        }
+    }
+
+    private long segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static int readInt(RandomAccessFile file, long position) throws Exception {
+        file.seek(position);
+        return file.readInt();
+    }
+
+    private static List<String> customIds(List<Outbox.Entry> entries) {
+        return entries.stream().map(entry -> entry.getEmail().getCustomId()).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,101 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.coresender.sdk.TestEmails.email;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimiterTest {
+
+    @DisplayName("Burst is admitted at once and the rest has to wait")
+    @Test
+    public void testBurst() {
+        RateLimiter limiter = new RateLimiter(10, 5);
+
+        assertTrue(limiter.tryAcquire(5));
+        assertFalse(limiter.tryAcquire(1));
+
+        long wait = limiter.reserve(10);
+        assertTrue(wait > TimeUnit.MILLISECONDS.toNanos(900) && wait <= TimeUnit.SECONDS.toNanos(1), "wait " + wait);
+    }
+
+    @DisplayName("Burst spanning more nanoseconds than fit in a long is rejected")
+    @Test
+    public void testBurstOverflow() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0.000_001, Integer.MAX_VALUE));
+        assertEquals("RateLimiter(emailsPerSecond=1.0E-6, burst=9223)", new RateLimiter(0.000_001, 9223).toString());
+    }
+
+    @DisplayName("Concurrent threads never take more tokens than available")
+    @Test
+    public void testConcurrentTryAcquire() throws Exception {
+        RateLimiter limiter = new RateLimiter(0.001, 1000);
+        AtomicInteger acquired = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+                for (int i = 0; i < 500; i++) {
+                    if (limiter.tryAcquire(1)) {
+                        acquired.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(1000, acquired.get());
+    }
+
+    @DisplayName("Fail fast mode rejects emails over the limit in both blocking and asynchronous sends")
+    @Test
+    public void testFailFast() {
+        Transport transport = new Transport() {
+            @Override
+            public HttpResponse<SendEmailResponse> send(TransportRequest request) {
+                return null;
+            }
+
+            @Override
+            public CompletableFuture<HttpResponse<SendEmailResponse>> sendAsync(TransportRequest request) {
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (Coresender coresender = Coresender.builder().accountId("id").apiKey("key").transport(transport)
+                                               .rateLimit(0.001, 1).rateLimitFailFast(true).build()) {
+            coresender.sendSimpleEmail(email(null));
+
+            assertThrows(RateLimitExceededException.class, () -> coresender.sendSimpleEmail(email(null)));
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> coresender.sendAsync(email(null)).get(5, TimeUnit.SECONDS));
+            assertTrue(exception.getCause() instanceof RateLimitExceededException);
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.JsonCodec;
+import com.coresender.sdk.data.SendEmailResponse;
+import com.coresender.sdk.testing.ApiSimulator;
+import kong.unirest.Headers;
+import kong.unirest.HttpResponse;
+import kong.unirest.UnirestException;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static com.coresender.sdk.TestEmails.email;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RetryPolicyTest {
+
+    private final RetryPolicy policy = RetryPolicy.builder().maxAttempts(3).baseDelay(Duration.ofMillis(10)).maxDelay(Duration.ofMillis(100)).build();
+
+    @DisplayName("Only transient failures that can't send emails twice are retried")
+    @Test
+    public void testShouldRetry() {
+        List<Email> unique = List.of(email("1", true));
+        List<Email> plain = List.of(email("1", false));
+
+        assertTrue(policy.shouldRetry(1, plain, response(429, null), null));
+        assertTrue(policy.shouldRetry(1, unique, response(503, null), null));
+        assertFalse(policy.shouldRetry(1, plain, response(503, null), null));
+        assertFalse(policy.shouldRetry(1, unique, response(400, null), null));
+        assertFalse(policy.shouldRetry(3, unique, response(503, null), null));
+        assertTrue(policy.shouldRetry(1, plain, null, new UnirestException(new ConnectException("Connection refused"))));
+        assertFalse(policy.shouldRetry(1, plain, null, new UnirestException(new SocketException("Connection reset"))));
+        assertTrue(RetryPolicy.builder().retryNonIdempotent(true).build().shouldRetry(1, plain, response(503, null), null));
+    }
+
+    @DisplayName("Delay grows with decorrelated jitter and follows Retry-After up to the maximum delay")
+    @Test
+    public void testDelay() {
+        long delay = 0;
+        for (int i = 0; i < 20; i++) {
+            long next = policy.delayMillis(delay, null);
+            assertTrue(next >= 10 && next <= Math.max(10, Math.min(100, delay * 3)), "delay " + next + " after " + delay);
+            delay = next;
+        }
+        assertEquals(2000, RetryPolicy.builder().build().delayMillis(0, response(429, "2")));
+        assertEquals(100, policy.delayMillis(0, response(429, "2")));
+        assertEquals(100, policy.delayMillis(0, response(429, String.valueOf(Long.MAX_VALUE))));
+        assertEquals(Long.MAX_VALUE, RetryPolicy.retryAfterMillis(String.valueOf(Long.MAX_VALUE / 100)));
+        assertEquals(0, RetryPolicy.retryAfterMillis("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertEquals(-1, RetryPolicy.retryAfterMillis("soon"));
+    }
+
+    @DisplayName("Maximum delay shorter than the base delay is rejected")
+    @Test
+    public void testDelayBounds() {
+        RetryPolicy.RetryPolicyBuilder builder = RetryPolicy.builder().baseDelay(Duration.ofSeconds(1)).maxDelay(Duration.ofMillis(100));
+
+        assertThrows(IllegalArgumentException.class, builder::build);
+        assertEquals(100, builder.maxDelay(Duration.ofMillis(100)).baseDelay(Duration.ofMillis(100)).build().delayMillis(1000, null));
+    }
+
+    @DisplayName("Asynchronous send is repeated until it succeeds")
+    @Test
+    public void testAsyncRetry() throws Exception {
+        ConcurrentLinkedQueue<HttpResponse<SendEmailResponse>> responses = new ConcurrentLinkedQueue<>(
+                List.of(response(503, null), response(429, "0"), response(200, null)));
+        AtomicInteger attempts = new AtomicInteger();
+        Transport transport = new Transport() {
+            @Override
+            public HttpResponse<SendEmailResponse> send(TransportRequest request) {
+                attempts.incrementAndGet();
+                return responses.poll();
+            }
+
+            @Override
+            public CompletableFuture<HttpResponse<SendEmailResponse>> sendAsync(TransportRequest request) {
+                return CompletableFuture.supplyAsync(() -> send(request));
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        try (Coresender coresender = Coresender.builder().accountId("id").apiKey("key").transport(transport).retryPolicy(policy).build()) {
+            HttpResponse<SendEmailResponse> response = coresender.sendAsync(email("1", true)).get(5, TimeUnit.SECONDS);
+
+            assertEquals(200, response.getStatus());
+            assertEquals(3, attempts.get());
+        }
+    }
+
+    @DisplayName("Request whose results were partly streamed when it failed is not repeated")
+    @Test
+    public void testStreamedNotRetried() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        Transport transport = new Transport() {
+            @Override
+            public HttpResponse<SendEmailResponse> send(TransportRequest request) {
+                attempts.incrementAndGet();
+                try {
+                    byte[] content = TestResponses.accepted(JsonCodec.readEmails(new ByteArrayInputStream(request.getBody().toByteArray()))).getBytes(StandardCharsets.UTF_8);
+                    // the connection breaks half way through the body
+                    request.getReader().read(new ByteArrayInputStream(content, 0, content.length / 2));
+                } catch (IOException exception) {
+                    throw new UnirestException(exception);
+                }
+                throw new UnirestException("Connection reset");
+            }
+
+            @Override
+            public CompletableFuture<HttpResponse<SendEmailResponse>> sendAsync(TransportRequest request) {
+                return CompletableFuture.supplyAsync(() -> send(request));
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        List<Email> emails = uniqueEmails(8);
+        try (Coresender coresender = Coresender.builder().accountId("id").apiKey("key").transport(transport)
+                                               .batchMaxEmails(4).retryPolicy(policy).build()) {
+            List<SendEmailResponse.Data> results = new ArrayList<>();
+            CompletableFuture<HttpResponse<SendEmailResponse>> response = coresender.sendBatchAsync(emails, results::add);
+
+            assertThrows(ExecutionException.class, () -> response.get(5, TimeUnit.SECONDS));
+            assertEquals(2, attempts.get());
+            assertStreamedOnce(emails.subList(0, 4), results.subList(0, 4), true);
+            assertStreamedOnce(emails.subList(4, 8), results.subList(4, 8), true);
+        }
+    }
+
+    @DisplayName("Every email gets a single streamed result when the API cuts the connection in the middle of a response")
+    @Test
+    public void testCutConnection() throws Exception {
+        List<Email> emails = uniqueEmails(20);
+        for (boolean httpClient : new boolean[] {false, true}) {
+            try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").start();
+                 Coresender coresender = builder(simulator, httpClient).batchMaxEmails(10).retryPolicy(policy).build()) {
+                List<SendEmailResponse.Data> results = new ArrayList<>();
+                simulator.enqueue(ApiSimulator.CUT_CONNECTION);
+                emails.forEach(coresender::addToBatch);
+                coresender.execute(results::add);
+
+                List<SendEmailResponse.Data> asyncResults = new ArrayList<>();
+                simulator.enqueue(200, ApiSimulator.CUT_CONNECTION);
+                coresender.sendBatchAsync(emails, asyncResults::add).get(5, TimeUnit.SECONDS);
+
+                assertStreamedOnce(emails.subList(0, 10), results.subList(0, 10), false);
+                assertStreamedOnce(emails.subList(10, 20), results.subList(10, 20), false);
+                assertStreamedOnce(emails.subList(0, 10), asyncResults.subList(0, 10), false);
+                assertStreamedOnce(emails.subList(10, 20), asyncResults.subList(10, 20), false);
+            }
+        }
+    }
+
+    private static Coresender.CoresenderBuilder builder(ApiSimulator simulator, boolean httpClient) {
+        Coresender.CoresenderBuilder builder = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl());
+        return httpClient ? builder.transport(new HttpClientTransport()) : builder;
+    }
+
+    private static List<Email> uniqueEmails(int count) {
+        List<Email> emails = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            emails.add(email(String.valueOf(i), true));
+        }
+        return emails;
+    }
+
+    /**
+     * Checks that every email got one result in its place: accepted ones first, failed ones after the break, if any.
+     */
+    private static void assertStreamedOnce(List<Email> emails, List<SendEmailResponse.Data> results, boolean broken) {
+        assertEquals(emails.stream().map(Email::getCustomId).collect(Collectors.toList()),
+                     results.stream().map(SendEmailResponse.Data::getCustomId).collect(Collectors.toList()));
+        int accepted = (int) results.stream().filter(data -> "accepted".equals(data.getStatus())).count();
+        assertTrue(results.subList(accepted, results.size()).stream().allMatch(data -> "failed".equals(data.getStatus())), results.toString());
+        if (broken) {
+            assertTrue(accepted > 0 && accepted < results.size(), results.toString());
+        }
+    }
+
+    private static HttpResponse<SendEmailResponse> response(int status, String retryAfter) {
+        Headers headers = new Headers();
+        if (retryAfter != null) {
+            headers.add("Retry-After", retryAfter);
+        }
+        return TestResponses.response(status, headers, null);
+    }
+}
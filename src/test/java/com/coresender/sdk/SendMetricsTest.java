@@ -0,0 +1,101 @@
+package com.coresender.sdk;
+
+import com.sun.net.httpserver.HttpServer;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.coresender.sdk.TestEmails.email;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SendMetricsTest {
+
+    @DisplayName("Histogram percentiles are accurate to a few percent")
+    @Test
+    public void testHistogram() {
+        Histogram histogram = new Histogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMax());
+        assertEquals(50_000_500, histogram.getMean(), 1);
+        assertEquals(50_000_000, histogram.getValueAtPercentile(50), 50_000_000 * 0.03);
+        assertEquals(99_000_000, histogram.getValueAtPercentile(99), 99_000_000 * 0.03);
+        assertEquals(100_000_000, histogram.getValueAtPercentile(100));
+        for (int index = 1; index < 1888; index++) {
+            assertEquals(index, Histogram.index(Histogram.highestValue(index)));
+            assertEquals(index, Histogram.index(Histogram.highestValue(index - 1) + 1));
+        }
+        assertEquals(1887, Histogram.index(Long.MAX_VALUE));
+    }
+
+    @DisplayName("Every attempt is reported to listeners and Flight Recorder")
+    @Test
+    public void testEvents() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            boolean throttled = requests.getAndIncrement() == 0;
+            byte[] response = (throttled ? "{\"data\":[]}" : "{\"data\":[{\"status\":\"accepted\"},{\"status\":\"accepted\"}],\"meta\":{\"rq_time\":\"0.002\"}}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(throttled ? 429 : 200, response.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(response);
+            }
+        });
+        server.start();
+        SendMetrics metrics = new SendMetrics();
+        Path file = Files.createTempFile("coresender", ".jfr");
+        try (Recording recording = new Recording();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key")
+                                               .baseUrl("http://127.0.0.1:" + server.getAddress().getPort())
+                                               .transport(new HttpClientTransport())
+                                               .retryPolicy(RetryPolicy.builder().maxAttempts(2).baseDelay(Duration.ofMillis(1)).build())
+                                               .eventListener(metrics)
+                                               .build()) {
+            recording.enable("com.coresender.Send");
+            recording.start();
+            assertEquals(200, coresender.sendEmailBatch(List.of(email("1"), email("2"))).getStatus());
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            server.stop(0);
+        }
+
+        assertEquals(2, metrics.getRequests());
+        assertEquals(4, metrics.getEmails());
+        assertEquals(1, metrics.getRetries());
+        assertEquals(0, metrics.getFailures());
+        assertEquals(Map.of(200, 1L, 429, 1L), metrics.getStatusCounts());
+        assertEquals(1, metrics.getBatchSize().getCount());
+        assertEquals(2, metrics.getBatchSize().getMax());
+        assertEquals(2, metrics.getRequestTime().getCount());
+        assertEquals(2_000_000, metrics.getServerTime().getMax(), 2_000_000 * 0.03);
+        assertTrue(metrics.getParseTime().getMax() > 0);
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        assertEquals(2, events.size());
+        assertEquals(429, events.get(0).getInt("status"));
+        assertEquals(2, events.get(1).getInt("attempt"));
+        assertEquals(2, events.get(1).getInt("emails"));
+        assertTrue(events.get(1).getLong("requestSize") > 0);
+    }
+}
@@ -0,0 +1,188 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.SendEmailResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import kong.unirest.HttpResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.coresender.sdk.TestEmails.email;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SendProcessorTest {
+
+    @DisplayName("Results are published in order while upstream demand stays bounded")
+    @Test
+    public void testBackpressure() throws Exception {
+        ResultSubscriber subscriber = new ResultSubscriber();
+        EmailPublisher publisher = new EmailPublisher(1000, subscriber);
+        try (Coresender coresender = Coresender.builder().accountId("id").apiKey("key").transport(new EchoTransport(0))
+                                               .batchMaxEmails(10).batchParallelism(2).build()) {
+            Flow.Processor<Email, SendEmailResponse.Data> processor = coresender.sendProcessor();
+            processor.subscribe(subscriber);
+            publisher.subscribe(processor);
+
+            subscriber.completion.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(IntStream.range(0, 1000).mapToObj(String::valueOf).collect(Collectors.toList()),
+                     subscriber.results.stream().map(SendEmailResponse.Data::getCustomId).collect(Collectors.toList()));
+        assertTrue(publisher.maxLag.get() <= 20, "lag " + publisher.maxLag.get());
+    }
+
+    @DisplayName("Failed request ends the stream with an error and cancels upstream")
+    @Test
+    public void testFailure() throws Exception {
+        ResultSubscriber subscriber = new ResultSubscriber();
+        EmailPublisher publisher = new EmailPublisher(1000, subscriber);
+        try (Coresender coresender = Coresender.builder().accountId("id").apiKey("key").transport(new EchoTransport(3))
+                                               .batchMaxEmails(10).build()) {
+            Flow.Processor<Email, SendEmailResponse.Data> processor = coresender.sendProcessor();
+            processor.subscribe(subscriber);
+            publisher.subscribe(processor);
+
+            CompletableFuture<Void> completion = subscriber.completion;
+            Exception exception = assertThrows(Exception.class, () -> completion.get(10, TimeUnit.SECONDS));
+            assertTrue(exception.getCause() instanceof SendEmailException, "cause " + exception.getCause());
+        }
+
+        assertTrue(publisher.cancelled.get());
+        assertEquals(20, subscriber.results.size());
+    }
+
+    private static class EmailPublisher implements Flow.Publisher<Email> {
+
+        private final int count;
+
+        private final ResultSubscriber results;
+
+        private final AtomicLong requested = new AtomicLong();
+
+        private final AtomicLong maxLag = new AtomicLong();
+
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+
+        private long totalRequested;
+
+        private int emitted;
+
+        EmailPublisher(final int count, final ResultSubscriber results) {
+            this.count = count;
+            this.results = results;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super Email> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public synchronized void request(long n) {
+                    requested.addAndGet(n);
+                    totalRequested += n;
+                    // emails requested but whose results were not delivered yet
+                    maxLag.accumulateAndGet(totalRequested - results.results.size(), Math::max);
+                    while (emitted < count && requested.get() > 0 && !cancelled.get()) {
+                        requested.decrementAndGet();
+                        subscriber.onNext(email(String.valueOf(emitted++)));
+                    }
+                    if (emitted == count) {
+                        emitted++;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled.set(true);
+                }
+            });
+        }
+    }
+
+    private static class ResultSubscriber implements Flow.Subscriber<SendEmailResponse.Data> {
+
+        private final List<SendEmailResponse.Data> results = new CopyOnWriteArrayList<>();
+
+        private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(SendEmailResponse.Data item) {
+            results.add(item);
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completion.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            completion.complete(null);
+        }
+    }
+
+    private static class EchoTransport implements Transport {
+
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        private final int failAt;
+
+        private int requests;
+
+        EchoTransport(final int failAt) {
+            this.failAt = failAt;
+        }
+
+        @Override
+        public HttpResponse<SendEmailResponse> send(TransportRequest request) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public synchronized CompletableFuture<HttpResponse<SendEmailResponse>> sendAsync(TransportRequest request) {
+            boolean fail = ++requests == failAt;
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    String data = "{\"data\":[]}";
+                    if (!fail) {
+                        StringBuilder builder = new StringBuilder("{\"data\":[");
+                        for (JsonNode email : mapper.readTree(request.getBody().toByteArray())) {
+                            builder.append(builder.length() > 9 ? "," : "")
+                                   .append("{\"custom_id\":\"").append(email.get("custom_id").asText()).append("\",\"status\":\"accepted\"}");
+                        }
+                        data = builder.append("]}").toString();
+                    }
+                    return TestResponses.response(fail ? 400 : 200, data);
+                } catch (Exception exception) {
+                    throw new IllegalStateException(exception);
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
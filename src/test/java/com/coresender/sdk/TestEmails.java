@@ -0,0 +1,51 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.Email.Address;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Emails shared by the tests.
+ */
+final class TestEmails {
+
+    static final String BODY_TEXT = "Geordi, I need engines, now!";
+
+    private TestEmails() {
+    }
+
+    /**
+     * @return builder with sender, recipient and subject set, but no content
+     */
+    static Email.EmailBuilder builder() {
+        return Email.builder()
+                    .from(Address.of("jean.luc@example.com", "Jean-Luc Picard"))
+                    .to(List.of(Address.of("geordi@example.com", "Geordi La Forge")))
+                    .subject("I need engines");
+    }
+
+    static Email email(String customId) {
+        return builder().bodyText(BODY_TEXT).customId(customId).build();
+    }
+
+    static Email email(String customId, boolean customIdUnique) {
+        return builder().bodyText(BODY_TEXT).customId(customId).customIdUnique(customIdUnique).build();
+    }
+
+    /**
+     * @param count number of emails
+     * @return emails with custom ids from 0, a recipient each and about 400 bytes of non-ASCII HTML content
+     */
+    static List<Email> emails(int count) {
+        List<Email> emails = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            emails.add(builder().to(List.of(Address.of("geordi" + i + "@example.com", "Geordi La Forge")))
+                                .bodyHtml("<html><body><p>Geordi, I need engines, now! Ünïcödé ✓</p></body></html>".repeat(5))
+                                .customId(String.valueOf(i))
+                                .build());
+        }
+        return emails;
+    }
+}
@@ -0,0 +1,64 @@
+package com.coresender.sdk;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.JsonCodec;
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.BasicResponse;
+import kong.unirest.Config;
+import kong.unirest.Headers;
+import kong.unirest.HttpResponse;
+import kong.unirest.RawResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * API responses shared by the tests.
+ */
+final class TestResponses {
+
+    private TestResponses() {
+    }
+
+    /**
+     * @param status  HTTP status
+     * @param content JSON response body, or null for none
+     * @return response without headers
+     */
+    static HttpResponse<SendEmailResponse> response(int status, String content) {
+        return response(status, new Headers(), content);
+    }
+
+    /**
+     * @param status  HTTP status
+     * @param headers response headers
+     * @param content JSON response body, or null for none
+     * @return response
+     */
+    static HttpResponse<SendEmailResponse> response(int status, Headers headers, String content) {
+        RawResponse raw = mock(RawResponse.class);
+        when(raw.getStatus()).thenReturn(status);
+        when(raw.getHeaders()).thenReturn(headers);
+        when(raw.getConfig()).thenReturn(new Config());
+        try {
+            return new BasicResponse<>(raw, content == null ? null : JsonCodec.readResponse(content));
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * @param emails emails sent
+     * @return response body accepting all the emails, in their order
+     */
+    static String accepted(Collection<Email> emails) {
+        return emails.stream()
+                     .map(email -> "{\"custom_id\":\"" + email.getCustomId() + "\",\"status\":\"accepted\"}")
+                     .collect(Collectors.joining(",", "{\"data\":[", "]}"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.coresender.sdk;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class VirtualThreadsTest {
+
+    @DisplayName("Java 11 variant runs tasks on daemon platform threads")
+    @Test
+    public void testPlatformThreads() throws Exception {
+        ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("test-");
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+            assertFalse(VirtualThreads.isSupported());
+            assertEquals("test-1", thread.getName());
+            assertTrue(thread.isDaemon());
+        } finally {
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @DisplayName("Java 21 variant runs every task on a new virtual thread")
+    @Test
+    public void testVirtualThreads() throws Exception {
+        // the variant is compiled into the multi-release output only when building with JDK 21 or newer
+        Path classes = Path.of(VirtualThreads.class.getProtectionDomain().getCodeSource().getLocation().toURI()).resolve("META-INF/versions/21");
+        assumeTrue(Runtime.version().feature() >= 21 && Files.isDirectory(classes));
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, null)) {
+            Class<?> variant = loader.loadClass(VirtualThreads.class.getName());
+            Method isSupported = variant.getDeclaredMethod("isSupported");
+            Method newThreadPerTaskExecutor = variant.getDeclaredMethod("newThreadPerTaskExecutor", String.class);
+            isSupported.setAccessible(true);
+            newThreadPerTaskExecutor.setAccessible(true);
+            Method isVirtual = Thread.class.getMethod("isVirtual");
+
+            ExecutorService executor = (ExecutorService) newThreadPerTaskExecutor.invoke(null, "test-");
+            try {
+                Thread first = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+                Thread second = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+                assertTrue((Boolean) isSupported.invoke(null));
+                assertTrue((Boolean) isVirtual.invoke(first));
+                assertEquals("test-1", first.getName());
+                assertEquals("test-2", second.getName());
+            } finally {
+                executor.shutdown();
+            }
+        }
+    }
+}
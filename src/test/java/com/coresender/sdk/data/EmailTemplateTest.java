@@ -0,0 +1,84 @@
+package com.coresender.sdk.data;
+
+import com.coresender.sdk.data.Email.Address;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class EmailTemplateTest {
+
+    private final EmailTemplate template = EmailTemplate.builder()
+                                                        .subject("{{ship}} needs engines")
+                                                        .bodyText("{{name}},\nI need engines, now!\n{{signature}}")
+                                                        .bodyHtml("<p>{{name}}, I need engines, <strong>now!</strong></p>{{{signature}}}")
+                                                        .build();
+
+    @DisplayName("Template is rendered into the request the same way as a plain email")
+    @Test
+    public void testWrite() throws Exception {
+        // long enough to be read in several pieces, with surrogate pairs on both sides of every piece boundary
+        String name = "Geordi \"La\" Forge <chief> & 🚀".repeat(500);
+        String signature = "<em>Jean-Luc</em> ✓";
+        Email templated = Email.builder()
+                               .from(Address.of("jean.luc@example.com", "Jean-Luc Picard"))
+                               .to(List.of(Address.of("geordi@example.com")))
+                               .template(template, Map.of("ship", "Enterprise", "name", name, "signature", signature))
+                               .customId("1")
+                               .build();
+        String escapedName = name.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+        Email plain = Email.builder()
+                           .from(Address.of("jean.luc@example.com", "Jean-Luc Picard"))
+                           .to(List.of(Address.of("geordi@example.com")))
+                           .subject("Enterprise needs engines")
+                           .bodyText(name + ",\nI need engines, now!\n" + signature)
+                           .bodyHtml("<p>" + escapedName + ", I need engines, <strong>now!</strong></p>" + signature)
+                           .customId("1")
+                           .build();
+
+        assertEquals(JsonCodec.writeEmails(List.of(plain)), JsonCodec.writeEmails(List.of(templated)));
+        assertEquals(plain.getSubject(), templated.getSubject());
+        assertEquals(plain.getBody().getHtml(), templated.getBody().getHtml());
+    }
+
+    @DisplayName("Template is rendered once for the getters and its missing content is left out of the request")
+    @Test
+    public void testRenderOnce() throws Exception {
+        Email templated = Email.builder()
+                               .from(Address.of("jean.luc@example.com"))
+                               .to(List.of(Address.of("geordi@example.com")))
+                               .template(template, Map.of("ship", "Enterprise", "name", "Geordi", "signature", "Jean-Luc"))
+                               .build();
+        Email subjectOnly = Email.builder()
+                                 .from(Address.of("jean.luc@example.com"))
+                                 .to(List.of(Address.of("geordi@example.com")))
+                                 .template(EmailTemplate.builder().subject("{{ship}} needs engines").build(), Map.of("ship", "Enterprise"))
+                                 .build();
+
+        assertSame(templated.getSubject(), templated.getSubject());
+        assertSame(templated.getBody(), templated.getBody());
+        assertEquals("Enterprise needs engines", subjectOnly.getSubject());
+        assertFalse(JsonCodec.writeEmails(List.of(subjectOnly)).contains("\"body\""));
+    }
+
+    @DisplayName("Malformed templates and missing values are rejected")
+    @Test
+    public void testInvalid() {
+        assertEquals(List.of("ship", "name", "signature"), template.getVariables());
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.builder().subject("Hello {{name").build());
+        assertThrows(IllegalArgumentException.class, () -> EmailTemplate.builder().subject("Hello {{ }}").build());
+        assertThrows(IllegalArgumentException.class, () -> Email.builder().template(template, Map.of("ship", "Enterprise")));
+        assertThrows(IllegalStateException.class, () -> Email.builder()
+                                                             .from(Address.of("jean.luc@example.com"))
+                                                             .to(List.of(Address.of("geordi@example.com")))
+                                                             .subject("Engines")
+                                                             .template(template, Map.of("ship", "", "name", "", "signature", ""))
+                                                             .build());
+    }
+}
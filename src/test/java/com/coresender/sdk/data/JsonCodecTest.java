@@ -0,0 +1,128 @@
+package com.coresender.sdk.data;
+
+import com.coresender.sdk.data.Email.Address;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategy;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JsonCodecTest {
+
+    private static final ObjectMapper mapper = new ObjectMapper()
+            .setPropertyNamingStrategy(PropertyNamingStrategy.SNAKE_CASE)
+            .setSerializationInclusion(Include.NON_NULL)
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .configure(DeserializationFeature.ACCEPT_SINGLE_VALUE_AS_ARRAY, true);
+
+    @DisplayName("Emails are written the same way as with data binding")
+    @Test
+    public void testWriteEmails() throws Exception {
+        List<Email> emails = List.of(Email.builder()
+                                          .from(Address.of("jean.luc@example.com", "Jean-Luc Picard"))
+                                          .to(List.of(Address.of("geordi@example.com", "Geordi \"La\" Forge"), Address.of("data@example.com")))
+                                          .replyTo(List.of(Address.of("info@enterprise.com")))
+                                          .subject("I need engines ✓")
+                                          .bodyText("Geordi,\nI need engines, now!")
+                                          .bodyHtml("<p>Geordi, I need engines, <strong>now!</strong></p>")
+                                          .customId("1234-qwerty")
+                                          .customIdUnique(true)
+                                          .trackClicks(true)
+                                          .listUnsubscribe("https://example.com/unsubscribe/abcd-1234")
+                                          .listId("no list")
+                                          .build(),
+                                     Email.builder()
+                                          .from(Address.of("gandalf@middleearth.com"))
+                                          .to(List.of(Address.of("balrog.of.moria@example.com")))
+                                          .subject("Passage problems")
+                                          .build());
+
+        String json = JsonCodec.writeEmails(emails);
+
+        assertEquals(mapper.writeValueAsString(emails), json);
+    }
+
+    @DisplayName("Shared values written from the fragment cache produce the same bytes")
+    @Test
+    public void testWriteEmailsWithCache() throws Exception {
+        List<Email> emails = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            emails.add(Email.builder()
+                            .from(Address.of("newsletter@example.com", "Newsletter \"Weekly\" ✓"))
+                            .to(List.of(Address.of("customer" + i + "@example.com")))
+                            .subject("Spring newsletter is here")
+                            .bodyHtml(new String("<p>Dear customer, spring is here & so are our offers</p>"))
+                            .listUnsubscribe("https://example.com/unsubscribe/abcd-1234")
+                            .build());
+        }
+        FragmentCache cache = new FragmentCache();
+
+        byte[] expected = JsonCodec.writeEmailsAsBytes(emails);
+
+        assertArrayEquals(expected, JsonCodec.writeEmailsAsBytes(emails, cache));
+        assertArrayEquals(expected, JsonCodec.writeEmailsAsBytes(emails, cache));
+        assertEquals(5, cache.getMisses());
+        assertEquals(20 * 5 - 5, cache.getHits());
+
+        FragmentCache small = new FragmentCache(8 * 64);
+        JsonCodec.writeEmailsAsBytes(emails, small);
+        assertTrue(small.getEvictions() > 0);
+        assertArrayEquals(expected, JsonCodec.writeEmailsAsBytes(emails, small));
+    }
+
+    @DisplayName("Response is read the same way as with data binding")
+    @Test
+    public void testReadResponse() throws Exception {
+        String json = "{\"data\":[{\"message_id\":\"m-1\",\"custom_id\":\"c-1\",\"status\":\"accepted\",\"extra\":{\"a\":[1,2]}},"
+                + "{\"custom_id\":\"c-2\",\"status\":\"rejected\",\"code\":422,\"errors\":[{\"code\":\"invalid\",\"field\":\"to\","
+                + "\"value\":null,\"errors\":{\"code\":\"nested\",\"description\":\"Nested\"}}]}],\"meta\":{\"rq_time\":0.0123},\"other\":true}";
+
+        SendEmailResponse response = JsonCodec.readResponse(json);
+
+        assertEquals(mapper.readValue(json, SendEmailResponse.class).toString(), response.toString());
+    }
+
+    @DisplayName("Single result object is accepted as data array")
+    @Test
+    public void testReadSingleResult() throws Exception {
+        String json = "{\"data\":{\"message_id\":\"m-1\",\"status\":\"accepted\"}}";
+
+        SendEmailResponse response = JsonCodec.readResponse(json);
+
+        assertEquals(mapper.readValue(json, SendEmailResponse.class).toString(), response.toString());
+    }
+
+    @DisplayName("Results are passed to the consumer in order without being collected")
+    @Test
+    public void testReadResponseWithConsumer() throws Exception {
+        String json = "{\"data\":[{\"custom_id\":\"c-1\"},{\"custom_id\":\"c-2\"},{\"custom_id\":\"c-3\"}],\"meta\":{\"rq_time\":\"0.1\"}}";
+        List<String> customIds = new ArrayList<>();
+
+        SendEmailResponse response;
+        try (JsonParser parser = JsonCodec.getFactory().createParser(json)) {
+            response = JsonCodec.readResponse(parser, data -> customIds.add(data.getCustomId()));
+        }
+
+        assertEquals(List.of("c-1", "c-2", "c-3"), customIds);
+        assertNull(response.getData());
+        assertEquals("0.1", response.getMeta().getRqTime());
+    }
+
+    @DisplayName("Malformed response is rejected")
+    @Test
+    public void testReadMalformedResponse() {
+        assertThrows(Exception.class, () -> JsonCodec.readResponse("[{\"status\":\"accepted\"}]"));
+        assertThrows(Exception.class, () -> JsonCodec.readResponse("{\"data\":[{\"status\":\"accepted\""));
+    }
+}
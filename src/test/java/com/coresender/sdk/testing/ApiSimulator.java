@@ -0,0 +1,590 @@
+package com.coresender.sdk.testing;
+
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.JsonCodec;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Embeddable HTTP server implementing the send_email contract of the Coresender API, for load and failure testing
+ * without the real API. Point the SDK at it with {@code Coresender.builder().baseUrl(simulator.getBaseUrl())}.
+ * <p>
+ * Requests are checked for basic authentication and a JSON array of emails, optionally gzip compressed. Every email
+ * gets its own accepted or rejected processing information, and {@code meta.rq_time} reports the simulated
+ * processing time. Latency, failing statuses, rejected emails and a throughput limit are configured on the builder;
+ * {@link #enqueue(int...)} scripts the statuses of the next requests exactly.
+ */
+public class ApiSimulator implements AutoCloseable {
+
+    /**
+     * Path of the send_email endpoint.
+     */
+    public static final String SEND_EMAIL_PATH = "/v1/send_email";
+
+    /**
+     * Scripted status accepting the emails like 200, but closing the connection half way through the response body.
+     */
+    public static final int CUT_CONNECTION = 0;
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final String authorization;
+
+    private final Latency latency;
+
+    private final Map<Integer, Double> statusRates;
+
+    private final double rejectRate;
+
+    private final Predicate<Email> rejectIf;
+
+    private final Throttle throttle;
+
+    private final boolean recordEmails;
+
+    private final Random random;
+
+    private final Queue<Integer> script = new ConcurrentLinkedQueue<>();
+
+    private final List<Email> receivedEmails = Collections.synchronizedList(new ArrayList<>());
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder emails = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+
+    private final Set<InetSocketAddress> connections = ConcurrentHashMap.newKeySet();
+
+    private ApiSimulator(final ApiSimulatorBuilder builder) throws IOException {
+        this.authorization = builder.accountId == null ? null
+                : "Basic " + Base64.getEncoder().encodeToString((builder.accountId + ":" + builder.apiKey).getBytes(StandardCharsets.UTF_8));
+        this.latency = builder.latency;
+        this.statusRates = new LinkedHashMap<>(builder.statusRates);
+        this.rejectRate = builder.rejectRate;
+        this.rejectIf = builder.rejectIf;
+        this.throttle = builder.maxEmailsPerSecond > 0 ? new Throttle(builder.maxEmailsPerSecond) : null;
+        this.recordEmails = builder.recordEmails;
+        this.random = builder.seed == null ? new Random() : new Random(builder.seed);
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "api-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port), 0);
+        this.server.createContext(SEND_EMAIL_PATH, this::handle);
+        this.server.setExecutor(executor);
+        this.server.start();
+    }
+
+    /**
+     * Creates ApiSimulatorBuilder instance.
+     *
+     * @return ApiSimulatorBuilder object
+     */
+    public static ApiSimulatorBuilder builder() {
+        return new ApiSimulatorBuilder();
+    }
+
+    /**
+     * @return base URL to be passed to {@code Coresender.CoresenderBuilder#baseUrl(String)}
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * Makes the next requests fail with the given statuses, one per request, before any configured rates apply.
+     *
+     * @param statuses HTTP statuses, e.g. 429 or 503; 200 answers a request normally, {@link #CUT_CONNECTION}
+     *                 breaks off its response
+     */
+    public void enqueue(int... statuses) {
+        for (int status : statuses) {
+            script.add(status);
+        }
+    }
+
+    /**
+     * @return number of requests received
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return number of emails in requests answered with status 200
+     */
+    public long getEmails() {
+        return emails.sum();
+    }
+
+    /**
+     * @return number of emails answered as rejected
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return number of responses by HTTP status
+     */
+    public Map<Integer, Long> getStatusCounts() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statuses.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    /**
+     * @return number of client connections requests were received on, i.e. distinct client addresses and ports
+     */
+    public int getConnections() {
+        return connections.size();
+    }
+
+    /**
+     * @return emails of requests answered with status 200, if recording is enabled
+     */
+    public List<Email> getReceivedEmails() {
+        synchronized (receivedEmails) {
+            return List.copyOf(receivedEmails);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        requests.increment();
+        connections.add(exchange.getRemoteAddress());
+        try (InputStream body = exchange.getRequestBody()) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                respondError(exchange, start, 405, "method_not_allowed", "Only POST is supported");
+                return;
+            }
+            if (authorization != null ? !authorization.equals(exchange.getRequestHeaders().getFirst("Authorization"))
+                                      : !String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")).startsWith("Basic ")) {
+                respondError(exchange, start, 401, "unauthorized", "Invalid account id or API key");
+                return;
+            }
+            List<Email> batch;
+            try {
+                boolean gzip = "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+                batch = JsonCodec.readEmails(gzip ? new GZIPInputStream(body) : body);
+            } catch (IOException exception) {
+                respondError(exchange, start, 400, "invalid_request", exception.getMessage());
+                return;
+            }
+            sleep(latency == null ? 0 : latency.nextNanos(random));
+            Integer scripted = script.poll();
+            boolean cut = scripted != null && scripted == CUT_CONNECTION;
+            int status = cut ? 200 : scripted != null ? scripted : randomStatus();
+            if (status == 200 && throttle != null && !throttle.tryAcquire(batch.size())) {
+                status = 429;
+            }
+            if (status != 200) {
+                respondError(exchange, start, status, status == 429 ? "rate_limit_exceeded" : "server_error", "Simulated failure");
+                return;
+            }
+            emails.add(batch.size());
+            if (recordEmails) {
+                receivedEmails.addAll(batch);
+            }
+            respond(exchange, start, 200, cut, generator -> {
+                generator.writeArrayFieldStart("data");
+                for (Email email : batch) {
+                    writeData(generator, email);
+                }
+                generator.writeEndArray();
+            });
+        } catch (RuntimeException exception) {
+            respondError(exchange, start, 500, "server_error", String.valueOf(exception));
+        }
+    }
+
+    private int randomStatus() {
+        double draw = random.nextDouble();
+        for (Map.Entry<Integer, Double> rate : statusRates.entrySet()) {
+            draw -= rate.getValue();
+            if (draw < 0) {
+                return rate.getKey();
+            }
+        }
+        return 200;
+    }
+
+    private void writeData(JsonGenerator generator, Email email) throws IOException {
+        generator.writeStartObject();
+        boolean reject = rejectIf != null && rejectIf.test(email) || rejectRate > 0 && random.nextDouble() < rejectRate;
+        if (reject) {
+            rejected.increment();
+            generator.writeStringField("custom_id", email.getCustomId());
+            generator.writeStringField("status", "rejected");
+            generator.writeStringField("code", "422");
+            generator.writeArrayFieldStart("errors");
+            generator.writeStartObject();
+            generator.writeStringField("code", "invalid");
+            generator.writeStringField("description", "Rejected by the simulator");
+            generator.writeStringField("field", "to.0.email");
+            generator.writeStringField("value", email.getTo().isEmpty() ? null : email.getTo().get(0).getEmail());
+            generator.writeEndObject();
+            generator.writeEndArray();
+        } else {
+            generator.writeStringField("message_id", UUID.randomUUID().toString());
+            generator.writeStringField("custom_id", email.getCustomId());
+            generator.writeStringField("status", "accepted");
+        }
+        generator.writeEndObject();
+    }
+
+    private void respondError(HttpExchange exchange, long start, int status, String code, String description) throws IOException {
+        if (status == 429) {
+            exchange.getResponseHeaders().add("Retry-After", "1");
+        }
+        respond(exchange, start, status, false, generator -> {
+            generator.writeArrayFieldStart("errors");
+            generator.writeStartObject();
+            generator.writeStringField("code", code);
+            generator.writeStringField("description", description);
+            generator.writeEndObject();
+            generator.writeEndArray();
+        });
+    }
+
+    private void respond(HttpExchange exchange, long start, int status, boolean cut, Content content) throws IOException {
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        byte[] bytes;
+        try (ByteArrayBuilder output = new ByteArrayBuilder()) {
+            try (JsonGenerator generator = JsonCodec.getFactory().createGenerator(output, JsonEncoding.UTF8)) {
+                generator.writeStartObject();
+                content.write(generator);
+                generator.writeObjectFieldStart("meta");
+                generator.writeStringField("rq_time", String.format(Locale.ROOT, "%.6f", (System.nanoTime() - start) / 1e9));
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            bytes = output.toByteArray();
+        }
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        if (cut) {
+            OutputStream output = exchange.getResponseBody();
+            output.write(bytes, 0, bytes.length / 2);
+            output.flush();
+            // closing short of the announced length drops the connection
+            exchange.close();
+            return;
+        }
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static void sleep(long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Content {
+
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * Token bucket refilled continuously, allowing bursts of up to one second of throughput.
+     */
+    private static final class Throttle {
+
+        private final double perNano;
+
+        private final double capacity;
+
+        private double tokens;
+
+        private long refilled = System.nanoTime();
+
+        Throttle(final double perSecond) {
+            this.perNano = perSecond / TimeUnit.SECONDS.toNanos(1);
+            this.capacity = perSecond;
+            this.tokens = perSecond;
+        }
+
+        synchronized boolean tryAcquire(int count) {
+            long now = System.nanoTime();
+            tokens = Math.min(capacity, tokens + (now - refilled) * perNano);
+            refilled = now;
+            if (tokens < count) {
+                return false;
+            }
+            tokens -= count;
+            return true;
+        }
+    }
+
+    /**
+     * Distribution of simulated processing times.
+     */
+    @FunctionalInterface
+    public interface Latency {
+
+        /**
+         * @param random source of randomness, seeded if the simulator is
+         * @return next processing time in nanoseconds
+         */
+        long nextNanos(Random random);
+
+        /**
+         * @param latency processing time of every request
+         * @return constant latency
+         */
+        static Latency fixed(Duration latency) {
+            long nanos = latency.toNanos();
+            return random -> nanos;
+        }
+
+        /**
+         * @param min shortest processing time
+         * @param max longest processing time
+         * @return latency uniformly distributed between the bounds
+         */
+        static Latency uniform(Duration min, Duration max) {
+            long from = min.toNanos();
+            long range = max.toNanos() - from;
+            if (range < 0) {
+                throw new IllegalArgumentException("max must not be less than min");
+            }
+            return random -> from + (long) (random.nextDouble() * range);
+        }
+
+        /**
+         * Log-normal latency, the usual shape of service response times: most requests are close to the median
+         * with a long tail of slow ones.
+         *
+         * @param median median processing time
+         * @param p99    99th percentile of processing time
+         * @return log-normally distributed latency
+         */
+        static Latency logNormal(Duration median, Duration p99) {
+            if (p99.compareTo(median) < 0) {
+                throw new IllegalArgumentException("p99 must not be less than median");
+            }
+            double mu = Math.log(median.toNanos());
+            // 2.326 is the 99th percentile of the standard normal distribution
+            double sigma = Math.log((double) p99.toNanos() / median.toNanos()) / 2.326;
+            return random -> (long) Math.exp(mu + sigma * random.nextGaussian());
+        }
+    }
+
+    /**
+     * API simulator builder.
+     */
+    public static class ApiSimulatorBuilder {
+
+        private int port;
+
+        private String accountId;
+
+        private String apiKey;
+
+        private Latency latency;
+
+        private final Map<Integer, Double> statusRates = new LinkedHashMap<>();
+
+        private double rejectRate;
+
+        private Predicate<Email> rejectIf;
+
+        private double maxEmailsPerSecond;
+
+        private boolean recordEmails;
+
+        private Long seed;
+
+        ApiSimulatorBuilder() {
+        }
+
+        /**
+         * Sets port to listen on. Defaults to a free port chosen by the system.
+         *
+         * @param port port number
+         * @return builder object
+         */
+        public ApiSimulatorBuilder port(final int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Sets the only accepted credentials. Any basic authentication is accepted if not set.
+         *
+         * @param accountId sending account id
+         * @param apiKey    sending account API key
+         * @return builder object
+         */
+        public ApiSimulatorBuilder credentials(final String accountId, final String apiKey) {
+            if (accountId == null) {
+                throw new IllegalArgumentException("accountId is marked non-null but is null");
+            }
+            if (apiKey == null) {
+                throw new IllegalArgumentException("apiKey is marked non-null but is null");
+            }
+            this.accountId = accountId;
+            this.apiKey = apiKey;
+            return this;
+        }
+
+        /**
+         * Sets distribution of processing times. Requests are answered immediately if not set.
+         *
+         * @param latency latency distribution, e.g. {@link Latency#logNormal(Duration, Duration)}
+         * @return builder object
+         */
+        public ApiSimulatorBuilder latency(final Latency latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Makes a share of requests fail with the given status. May be called for several statuses.
+         *
+         * @param status HTTP status, e.g. 429 or 503
+         * @param rate   share of requests between 0 and 1
+         * @return builder object
+         */
+        public ApiSimulatorBuilder statusRate(final int status, final double rate) {
+            if (rate < 0 || rate > 1) {
+                throw new IllegalArgumentException("rate must be between 0 and 1");
+            }
+            this.statusRates.put(status, rate);
+            return this;
+        }
+
+        /**
+         * Makes a share of emails in successful requests rejected.
+         *
+         * @param rejectRate share of emails between 0 and 1
+         * @return builder object
+         */
+        public ApiSimulatorBuilder rejectRate(final double rejectRate) {
+            if (rejectRate < 0 || rejectRate > 1) {
+                throw new IllegalArgumentException("rejectRate must be between 0 and 1");
+            }
+            this.rejectRate = rejectRate;
+            return this;
+        }
+
+        /**
+         * Rejects the emails matching the condition.
+         *
+         * @param rejectIf condition, e.g. {@code email -> email.getTo().get(0).getEmail().endsWith("@invalid.example")}
+         * @return builder object
+         */
+        public ApiSimulatorBuilder rejectIf(final Predicate<Email> rejectIf) {
+            this.rejectIf = rejectIf;
+            return this;
+        }
+
+        /**
+         * Limits throughput, requests above it are answered with status 429 and {@code Retry-After}.
+         *
+         * @param maxEmailsPerSecond maximum number of emails accepted per second
+         * @return builder object
+         */
+        public ApiSimulatorBuilder maxEmailsPerSecond(final double maxEmailsPerSecond) {
+            if (maxEmailsPerSecond <= 0) {
+                throw new IllegalArgumentException("maxEmailsPerSecond must be positive");
+            }
+            this.maxEmailsPerSecond = maxEmailsPerSecond;
+            return this;
+        }
+
+        /**
+         * Sets whether emails of successful requests are kept for {@link ApiSimulator#getReceivedEmails()}.
+         * Disabled by default, so long running load tests don't run out of memory.
+         *
+         * @param recordEmails whether to keep received emails
+         * @return builder object
+         */
+        public ApiSimulatorBuilder recordEmails(final boolean recordEmails) {
+            this.recordEmails = recordEmails;
+            return this;
+        }
+
+        /**
+         * Seeds the random latencies, failures and rejections, so a single threaded run is repeatable.
+         *
+         * @param seed random seed
+         * @return builder object
+         */
+        public ApiSimulatorBuilder seed(final long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Starts the simulator.
+         *
+         * @return running simulator
+         * @throws IOException if the server can't be started
+         */
+        public ApiSimulator start() throws IOException {
+            double total = statusRates.values().stream().mapToDouble(Double::doubleValue).sum();
+            if (total > 1) {
+                throw new IllegalArgumentException("Status rates add up to more than 1");
+            }
+            return new ApiSimulator(this);
+        }
+
+        @Override
+        public String toString() {
+            return "ApiSimulator.ApiSimulatorBuilder(port=" + this.port + ", accountId=" + this.accountId + ", latency=" + this.latency
+                    + ", statusRates=" + this.statusRates + ", rejectRate=" + this.rejectRate + ", maxEmailsPerSecond=" + this.maxEmailsPerSecond + ")";
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.coresender.sdk.testing;
+
+import com.coresender.sdk.Coresender;
+import com.coresender.sdk.RetryPolicy;
+import com.coresender.sdk.data.Email;
+import com.coresender.sdk.data.Email.Address;
+import com.coresender.sdk.data.SendEmailResponse;
+import kong.unirest.HttpResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+public class ApiSimulatorTest {
+
+    @DisplayName("Simulator answers every email, injects scripted failures and rejections")
+    @Test
+    public void testSendEmail() throws Exception {
+        try (ApiSimulator simulator = ApiSimulator.builder()
+                                                  .credentials("id", "key")
+                                                  .latency(ApiSimulator.Latency.uniform(Duration.ofMillis(1), Duration.ofMillis(5)))
+                                                  .rejectIf(email -> email.getCustomId().equals("2"))
+                                                  .recordEmails(true)
+                                                  .start();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl())
+                                               .compression(true).compressionThreshold(100)
+                                               .retryPolicy(RetryPolicy.builder().maxAttempts(2).baseDelay(Duration.ofMillis(1)).retryNonIdempotent(true).build())
+                                               .build()) {
+            simulator.enqueue(503);
+
+            HttpResponse<SendEmailResponse> response = coresender.sendBatchAsync(emails(3)).join();
+
+            assertEquals(200, response.getStatus());
+            List<SendEmailResponse.Data> data = response.getBody().getData();
+            assertEquals(List.of("accepted", "rejected", "accepted"), List.of(data.get(0).getStatus(), data.get(1).getStatus(), data.get(2).getStatus()));
+            assertNotNull(data.get(0).getMessageId());
+            assertEquals("geordi2@example.com", data.get(1).getErrors().get(0).getValue());
+            assertNotNull(response.getBody().getMeta().getRqTime());
+            assertEquals(Map.of(200, 1L, 503, 1L), simulator.getStatusCounts());
+            assertEquals(3, simulator.getReceivedEmails().size());
+            assertEquals(1, simulator.getRejected());
+        }
+    }
+
+    @DisplayName("Simulator rejects wrong credentials and throughput above the limit")
+    @Test
+    public void testLimits() throws Exception {
+        try (ApiSimulator simulator = ApiSimulator.builder().credentials("id", "key").maxEmailsPerSecond(10).start();
+             Coresender wrong = Coresender.builder().accountId("id").apiKey("wrong").baseUrl(simulator.getBaseUrl()).build();
+             Coresender coresender = Coresender.builder().accountId("id").apiKey("key").baseUrl(simulator.getBaseUrl()).build()) {
+            assertEquals(401, wrong.sendBatchAsync(emails(1)).join().getStatus());
+            assertEquals(200, coresender.sendBatchAsync(emails(10)).join().getStatus());
+
+            HttpResponse<SendEmailResponse> throttled = coresender.sendBatchAsync(emails(10)).join();
+
+            assertEquals(429, throttled.getStatus());
+            assertEquals("1", throttled.getHeaders().getFirst("Retry-After"));
+        }
+    }
+
+    private static List<Email> emails(int count) {
+        List<Email> emails = new ArrayList<>();
+        for (int i = 1; i <= count; i++) {
+            emails.add(Email.builder()
+                            .from(Address.of("jean.luc@example.com", "Jean-Luc Picard"))
+                            .to(List.of(Address.of("geordi" + i + "@example.com", "Geordi La Forge")))
+                            .subject("I need engines")
+                            .bodyText("Geordi, I need engines, now!")
+                            .customId(String.valueOf(i))
+                            .build());
+        }
+        return emails;
+    }
+}